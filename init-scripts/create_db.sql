@@ -6,6 +6,7 @@ CREATE TABLE IF NOT EXISTS users (
     username VARCHAR(50) UNIQUE NOT NULL,
     password VARCHAR(100) NOT NULL,
     email VARCHAR(100) UNIQUE NOT NULL,
+    token_version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
@@ -16,18 +17,48 @@ CREATE TABLE IF NOT EXISTS user_roles (
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+-- Tokens carry the user's roles and token_version; changing the roles bumps the version, which revokes the
+-- tokens issued with the old roles.
+CREATE OR REPLACE FUNCTION bump_token_version() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE users SET token_version = token_version + 1
+    WHERE id IN (SELECT user_id FROM changed_roles);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER user_roles_inserted AFTER INSERT ON user_roles
+    REFERENCING NEW TABLE AS changed_roles FOR EACH STATEMENT EXECUTE FUNCTION bump_token_version();
+CREATE TRIGGER user_roles_updated AFTER UPDATE ON user_roles
+    REFERENCING NEW TABLE AS changed_roles FOR EACH STATEMENT EXECUTE FUNCTION bump_token_version();
+CREATE TRIGGER user_roles_deleted AFTER DELETE ON user_roles
+    REFERENCING OLD TABLE AS changed_roles FOR EACH STATEMENT EXECUTE FUNCTION bump_token_version();
+
 CREATE TABLE IF NOT EXISTS bank_accounts (
     id SERIAL PRIMARY KEY,
     user_id INT NOT NULL,
     account_number VARCHAR(20) UNIQUE NOT NULL,
     balance DECIMAL(15,2) NOT NULL DEFAULT 0.00,
     currency VARCHAR(3) NOT NULL DEFAULT 'USD',
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    stripe_count INT,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
+CREATE TABLE IF NOT EXISTS account_stripes (
+    account_id INT NOT NULL,
+    stripe INT NOT NULL,
+    balance DECIMAL(15,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (account_id, stripe),
+    FOREIGN KEY (account_id) REFERENCES bank_accounts(id) ON DELETE CASCADE
+);
+
+-- Range-partitioned by month of transaction_date; see create_transactions_partition below. The partition key
+-- has to be part of the primary key, ids stay unique through transactions_id_seq.
 CREATE TABLE IF NOT EXISTS transactions (
-    id SERIAL PRIMARY KEY,
+    id SERIAL,
     from_account_id INT,
     to_account_id INT NOT NULL,
     amount DECIMAL(15,2) NOT NULL,
@@ -35,12 +66,75 @@ CREATE TABLE IF NOT EXISTS transactions (
     from_currency VARCHAR,
     to_currency VARCHAR,
     description TEXT,
-    transaction_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    transaction_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    rate_date DATE,
+    status VARCHAR(20) NOT NULL DEFAULT 'COMPLETED',
+    failure_reason VARCHAR(255),
+    PRIMARY KEY (id, transaction_date),
     FOREIGN KEY (from_account_id) REFERENCES bank_accounts(id) ON DELETE SET NULL,
     FOREIGN KEY (to_account_id) REFERENCES bank_accounts(id) ON DELETE CASCADE
+) PARTITION BY RANGE (transaction_date);
+
+-- Partitions are named transactions_YYYY_MM. The application creates upcoming ones and moves those past the
+-- retention window into the archive schema (app.transactions.partitions).
+CREATE SCHEMA IF NOT EXISTS archive;
+
+CREATE OR REPLACE FUNCTION create_transactions_partition(month DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    first_day DATE := date_trunc('month', month);
+    partition_name TEXT := 'transactions_' || to_char(month, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, first_day, (first_day + INTERVAL '1 month')::DATE);
+    RETURN TRUE;
+END
+$$ LANGUAGE plpgsql;
+
+SELECT create_transactions_partition((date_trunc('month', CURRENT_DATE) + n * INTERVAL '1 month')::DATE)
+FROM generate_series(0, 3) n;
+
+CREATE TABLE IF NOT EXISTS ledger_entries (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id BIGINT,
+    account_id INT NOT NULL,
+    direction VARCHAR(6) NOT NULL CHECK (direction IN ('DEBIT', 'CREDIT')),
+    amount DECIMAL(15,2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    rate DECIMAL(19,8),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (account_id) REFERENCES bank_accounts(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS exchange_rates (
+    rate_date DATE NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    rub_per_unit DECIMAL(19,6) NOT NULL,
+    fetched_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (rate_date, currency)
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(200) PRIMARY KEY,
+    operation VARCHAR(20) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    transaction_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS ledger_checkpoints (
+    shard INT PRIMARY KEY,
+    journal_seq BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
 );
 
 CREATE INDEX idx_users_username ON users(username);
 CREATE INDEX idx_accounts_user ON bank_accounts(user_id);
-CREATE INDEX idx_transactions_from ON transactions(from_account_id);
-CREATE INDEX idx_transactions_to ON transactions(to_account_id);
\ No newline at end of file
+-- account history pages, newest first, are (transaction_date, id) range scans within one account
+CREATE INDEX idx_transactions_from_date ON transactions(from_account_id, transaction_date DESC, id DESC);
+CREATE INDEX idx_transactions_to_date ON transactions(to_account_id, transaction_date DESC, id DESC);
+-- statements read an account's entries in booking order
+CREATE INDEX idx_ledger_entries_account_date ON ledger_entries(account_id, created_at, id);
+CREATE INDEX idx_transactions_pending ON transactions(id) WHERE status = 'PENDING';
\ No newline at end of file
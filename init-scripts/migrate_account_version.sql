@@ -0,0 +1,18 @@
+\c localbank_db;
+
+-- Columns bank_accounts gained after the first release: version for optimistic locking, active, and
+-- stripe_count with the account_stripes table it describes. ddl-auto cannot add a NOT NULL column without a
+-- default to a populated table, so existing databases need this script. Safe to re-run. Runs before
+-- migrate_ledger_entries.sql, which reads account_stripes.
+
+ALTER TABLE bank_accounts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE bank_accounts ADD COLUMN IF NOT EXISTS active BOOLEAN NOT NULL DEFAULT TRUE;
+ALTER TABLE bank_accounts ADD COLUMN IF NOT EXISTS stripe_count INT;
+
+CREATE TABLE IF NOT EXISTS account_stripes (
+    account_id INT NOT NULL,
+    stripe INT NOT NULL,
+    balance DECIMAL(15,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (account_id, stripe),
+    FOREIGN KEY (account_id) REFERENCES bank_accounts(id) ON DELETE CASCADE
+);
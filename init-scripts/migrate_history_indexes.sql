@@ -0,0 +1,19 @@
+\c localbank_db;
+
+-- Account history pages, newest first, are (transaction_date, id) range scans within one account, so the
+-- single-column account indexes are replaced by composite ones. CONCURRENTLY keeps transfers running while
+-- the new indexes build; safe to re-run. Partitioned tables cannot be indexed concurrently, and once
+-- transactions is partitioned (migrate_partition_transactions.sql) it already carries these indexes.
+
+SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'transactions'::regclass)
+    AS transactions_partitioned \gset
+\if :transactions_partitioned
+\else
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_from_date
+    ON transactions(from_account_id, transaction_date DESC, id DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_to_date
+    ON transactions(to_account_id, transaction_date DESC, id DESC);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_from;
+DROP INDEX CONCURRENTLY IF EXISTS idx_transactions_to;
+\endif
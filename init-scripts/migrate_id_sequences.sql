@@ -0,0 +1,17 @@
+\c localbank_db;
+
+-- Entities take ids from these sequences through Hibernate's pooled optimizer: one nextval reserves
+-- the 50 ids below the returned value, so the increment has to match allocationSize = 50.
+-- Runs after fill_db.sql on a fresh database and can be applied as-is to an existing one.
+
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+SELECT setval('users_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM users), 1));
+
+ALTER SEQUENCE bank_accounts_id_seq INCREMENT BY 50;
+SELECT setval('bank_accounts_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM bank_accounts), 1));
+
+ALTER SEQUENCE transactions_id_seq INCREMENT BY 50;
+SELECT setval('transactions_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM transactions), 1));
+
+ALTER SEQUENCE ledger_entries_id_seq INCREMENT BY 50;
+SELECT setval('ledger_entries_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM ledger_entries), 1));
@@ -0,0 +1,23 @@
+\c localbank_db;
+
+-- bank_accounts.balance is a cache of the sum of each account's ledger_entries. Accounts whose balance
+-- predates ledger_entries get one opening entry, without a transaction, carrying their balance (stripes
+-- included) so that the first recomputation finds no drift. Safe to re-run: accounts that already have
+-- entries are skipped. Runs after migrate_id_sequences.sql, so the sequence is moved past the new rows.
+
+INSERT INTO ledger_entries (transaction_id, account_id, direction, amount, currency, rate, created_at)
+SELECT NULL,
+       a.id,
+       CASE WHEN t.total < 0 THEN 'DEBIT' ELSE 'CREDIT' END,
+       ABS(t.total),
+       a.currency,
+       NULL,
+       CURRENT_TIMESTAMP
+FROM bank_accounts a
+CROSS JOIN LATERAL (
+    SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_stripes s WHERE s.account_id = a.id), 0) AS total
+) t
+WHERE t.total <> 0
+  AND NOT EXISTS (SELECT 1 FROM ledger_entries e WHERE e.account_id = a.id);
+
+SELECT setval('ledger_entries_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM ledger_entries), 1));
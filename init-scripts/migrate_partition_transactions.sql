@@ -0,0 +1,80 @@
+\c localbank_db;
+
+-- Converts the single transactions table into one range-partitioned by month of transaction_date, as in
+-- create_db.sql. Rows are copied into the new partitions in one transaction, so run it with the application
+-- stopped; transactions_id_seq is kept, so ids continue where they were. Rows without a transaction_date get
+-- the earliest one in the table, which the new NOT NULL partition key requires. Does nothing if transactions
+-- is already partitioned, as on a fresh database.
+
+CREATE SCHEMA IF NOT EXISTS archive;
+
+CREATE OR REPLACE FUNCTION create_transactions_partition(month DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    first_day DATE := date_trunc('month', month);
+    partition_name TEXT := 'transactions_' || to_char(month, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, first_day, (first_day + INTERVAL '1 month')::DATE);
+    RETURN TRUE;
+END
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    earliest TIMESTAMP;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'transactions'::regclass) THEN
+        RAISE NOTICE 'transactions is already partitioned';
+        RETURN;
+    END IF;
+
+    LOCK TABLE transactions IN ACCESS EXCLUSIVE MODE;
+    ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+    ALTER TABLE transactions_unpartitioned RENAME CONSTRAINT transactions_pkey TO transactions_unpartitioned_pkey;
+    DROP INDEX IF EXISTS idx_transactions_from, idx_transactions_to,
+        idx_transactions_from_date, idx_transactions_to_date, idx_transactions_pending;
+    ALTER SEQUENCE transactions_id_seq OWNED BY NONE;
+
+    CREATE TABLE transactions (
+        id INT NOT NULL DEFAULT nextval('transactions_id_seq'),
+        from_account_id INT,
+        to_account_id INT NOT NULL,
+        amount DECIMAL(15,2) NOT NULL,
+        type VARCHAR(20) NOT NULL,
+        from_currency VARCHAR,
+        to_currency VARCHAR,
+        description TEXT,
+        transaction_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+        rate_date DATE,
+        status VARCHAR(20) NOT NULL DEFAULT 'COMPLETED',
+        failure_reason VARCHAR(255),
+        PRIMARY KEY (id, transaction_date),
+        FOREIGN KEY (from_account_id) REFERENCES bank_accounts(id) ON DELETE SET NULL,
+        FOREIGN KEY (to_account_id) REFERENCES bank_accounts(id) ON DELETE CASCADE
+    ) PARTITION BY RANGE (transaction_date);
+    ALTER SEQUENCE transactions_id_seq OWNED BY transactions.id;
+
+    SELECT COALESCE(MIN(transaction_date), CURRENT_TIMESTAMP) INTO earliest FROM transactions_unpartitioned;
+    PERFORM create_transactions_partition(m::DATE)
+    FROM generate_series(date_trunc('month', earliest),
+                         date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months',
+                         INTERVAL '1 month') m;
+
+    INSERT INTO transactions (id, from_account_id, to_account_id, amount, type, from_currency, to_currency,
+                              description, transaction_date, rate_date, status, failure_reason)
+    SELECT id, from_account_id, to_account_id, amount, type, from_currency, to_currency,
+           description, COALESCE(transaction_date, earliest), rate_date, COALESCE(status, 'COMPLETED'), failure_reason
+    FROM transactions_unpartitioned;
+
+    DROP TABLE transactions_unpartitioned;
+
+    CREATE INDEX idx_transactions_from_date ON transactions(from_account_id, transaction_date DESC, id DESC);
+    CREATE INDEX idx_transactions_to_date ON transactions(to_account_id, transaction_date DESC, id DESC);
+    CREATE INDEX idx_transactions_pending ON transactions(id) WHERE status = 'PENDING';
+END
+$$;
+
+ANALYZE transactions;
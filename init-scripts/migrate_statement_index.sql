@@ -0,0 +1,9 @@
+\c localbank_db;
+
+-- Statements read an account's ledger entries in booking order, so the account index also covers
+-- (created_at, id). Balance recomputation only needs the leading account_id column. Safe to re-run.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_ledger_entries_account_date
+    ON ledger_entries(account_id, created_at, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_ledger_entries_account;
@@ -0,0 +1,25 @@
+\c localbank_db;
+
+-- Tokens carry the user's roles, id and token_version, so requests no longer load the user. Bumping the
+-- version revokes the tokens issued before; UserService.updateUser does it, and so do these triggers whenever
+-- the user's roles change. Safe to re-run.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION bump_token_version() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE users SET token_version = token_version + 1
+    WHERE id IN (SELECT user_id FROM changed_roles);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS user_roles_inserted ON user_roles;
+CREATE TRIGGER user_roles_inserted AFTER INSERT ON user_roles
+    REFERENCING NEW TABLE AS changed_roles FOR EACH STATEMENT EXECUTE FUNCTION bump_token_version();
+DROP TRIGGER IF EXISTS user_roles_updated ON user_roles;
+CREATE TRIGGER user_roles_updated AFTER UPDATE ON user_roles
+    REFERENCING NEW TABLE AS changed_roles FOR EACH STATEMENT EXECUTE FUNCTION bump_token_version();
+DROP TRIGGER IF EXISTS user_roles_deleted ON user_roles;
+CREATE TRIGGER user_roles_deleted AFTER DELETE ON user_roles
+    REFERENCING OLD TABLE AS changed_roles FOR EACH STATEMENT EXECUTE FUNCTION bump_token_version();
@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @PropertySource("classpath:application.yml")
 @EnableJpaRepositories(basePackages = "com.BankApp.localbankapp.repository")
+@EnableScheduling
 public class LocalBankApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(LocalBankApplication.class, args);
@@ -0,0 +1,65 @@
+package com.BankApp.localbankapp.config;
+
+import com.BankApp.localbankapp.util.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read replicas, active when {@code app.datasource.replicas.urls} is set. Replaces Boot's single data source with
+ * the primary pool ({@code spring.datasource}) and one pool per replica behind a {@link ReplicaRoutingDataSource}.
+ * Replicas use the primary's driver and credentials.
+ *
+ * @author Alexander Brazhkin
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.replicas.urls")
+public class DataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                      DataSourceProperties properties,
+                                                      @Value("${app.datasource.replicas.urls}") List<String> urls,
+                                                      @Value("${app.datasource.replicas.poolSize:10}") int poolSize,
+                                                      @Value("${app.datasource.replicas.connectionTimeoutMs:2000}") long connectionTimeoutMs,
+                                                      @Value("${app.datasource.replicas.maxLagMs:5000}") long maxLagMs,
+                                                      @Value("${app.datasource.replicas.lagQuery:}") String lagQuery) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                                                 .type(HikariDataSource.class)
+                                                 .url(urls.get(i).trim())
+                                                 .build();
+            String name = "replica-" + (i + 1);
+            replica.setPoolName(name);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setConnectionTimeout(connectionTimeoutMs);
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMs, lagQuery);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
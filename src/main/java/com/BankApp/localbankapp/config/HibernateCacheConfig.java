@@ -0,0 +1,59 @@
+package com.BankApp.localbankapp.config;
+
+import com.BankApp.localbankapp.model.AccountInfo;
+import com.BankApp.localbankapp.model.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regions of Hibernate's second-level cache, held in-process by Caffeine. Entity, collection and query result
+ * regions are bounded by {@code maxSize} entries each and expire after {@code ttlMs}, which bounds staleness from
+ * writes that bypass Hibernate (manual SQL, other instances). The update timestamps region, which tells query
+ * results from before a write to the table, is never evicted, as Hibernate requires.
+ *
+ * <p>Each application context gets its own cache manager, so contexts on different databases in one JVM (tests)
+ * never share entries.
+ *
+ * @author Alexander Brazhkin
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${app.hibernateCache.maxSize:10000}") long maxSize,
+                                              @Value("${app.hibernateCache.ttlMs:600000}") long ttlMs) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("hibernate:" + UUID.randomUUID()), HibernateCacheConfig.class.getClassLoader());
+
+        CaffeineConfiguration<Object, Object> bounded = new CaffeineConfiguration<>();
+        bounded.setMaximumSize(OptionalLong.of(maxSize));
+        bounded.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttlMs)));
+        for (String region : new String[]{User.CACHE_REGION, User.ROLES_CACHE_REGION, AccountInfo.CACHE_REGION,
+                RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME}) {
+            cacheManager.createCache(region, bounded);
+        }
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
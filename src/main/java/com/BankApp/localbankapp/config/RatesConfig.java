@@ -0,0 +1,57 @@
+package com.BankApp.localbankapp.config;
+
+import com.BankApp.localbankapp.currency.CbrHttpRateSource;
+import com.BankApp.localbankapp.currency.CircuitBreaker;
+import com.BankApp.localbankapp.currency.FileRateSource;
+import com.BankApp.localbankapp.currency.RateFetcher;
+import com.BankApp.localbankapp.currency.RateSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@Configuration
+public class RatesConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.rates.source", havingValue = "cbr", matchIfMissing = true)
+    public RateSource cbrRateSource(@Value("${app.rates.url:http://www.cbr.ru/scripts/XML_daily.asp}") String url,
+                                    @Value("${app.rates.fetchTimeoutMs:10000}") long fetchTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(fetchTimeoutMs));
+        requestFactory.setReadTimeout(Duration.ofMillis(fetchTimeoutMs));
+        return new CbrHttpRateSource(new RestTemplate(requestFactory), url);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.rates.source", havingValue = "file")
+    public RateSource fileRateSource(@Value("${app.rates.file}") Resource file) {
+        return new FileRateSource(file);
+    }
+
+    @Bean
+    public RateFetcher rateFetcher(RateSource rateSource,
+                                   ObjectProvider<MeterRegistry> meterRegistry,
+                                   @Value("${app.rates.fetchTimeoutMs:10000}") long fetchTimeoutMs,
+                                   @Value("${app.rates.fetchPoolSize:1}") int fetchPoolSize,
+                                   @Value("${app.rates.breaker.failureThreshold:3}") int failureThreshold,
+                                   @Value("${app.rates.breaker.openMs:60000}") long openMs) {
+        return new RateFetcher(
+                rateSource,
+                new CircuitBreaker(failureThreshold, Duration.ofMillis(openMs)),
+                Duration.ofMillis(fetchTimeoutMs),
+                fetchPoolSize,
+                meterRegistry.getIfAvailable()
+        );
+    }
+}
@@ -2,9 +2,12 @@ package com.BankApp.localbankapp.config;
 
 import com.BankApp.localbankapp.security.JwtAuthFilter;
 import com.BankApp.localbankapp.security.JwtTokenProvider;
+import com.BankApp.localbankapp.security.TokenVersionCache;
 import com.BankApp.localbankapp.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
@@ -15,6 +18,7 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -23,6 +27,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Alexander Brazhkin
@@ -32,10 +37,16 @@ import java.util.List;
 public class SecurityConfig {
     private final UserService userService;
     private final JwtTokenProvider jwtTokenProvider;
+    private final TokenVersionCache tokenVersionCache;
+    private final int bcryptCost;
 
-    public SecurityConfig(UserService userService, JwtTokenProvider jwtTokenProvider) {
+    public SecurityConfig(UserService userService, JwtTokenProvider jwtTokenProvider,
+                          TokenVersionCache tokenVersionCache,
+                          @Value("${app.auth.bcryptCost:10}") int bcryptCost) {
         this.userService = userService;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenVersionCache = tokenVersionCache;
+        this.bcryptCost = bcryptCost;
     }
 
     @Bean
@@ -55,7 +66,8 @@ public class SecurityConfig {
                                 "/v3/api-docs/**",
                                 "/webjars/**"
                         ).permitAll()
-                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/**", "/actuator/balances/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/actuator/rates/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .authenticationProvider(authenticationProvider())
@@ -64,9 +76,17 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * New hashes are BCrypt of {@code app.auth.bcryptCost}, prefixed with {@code {bcrypt}} so that the algorithm
+     * can change later. Hashes from before the prefix still match, and both those and hashes of a lower cost are
+     * rehashed on the user's next login.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptCost);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
@@ -79,12 +99,13 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userService);
         return authProvider;
     }
 
     @Bean
     public JwtAuthFilter jwtAuthFilter() {
-        return new JwtAuthFilter(jwtTokenProvider, userService);
+        return new JwtAuthFilter(jwtTokenProvider, userService, tokenVersionCache);
     }
 
     @Bean
@@ -1,18 +1,27 @@
 package com.BankApp.localbankapp.controller;
 
 import com.BankApp.localbankapp.dto.AccountDTO;
+import com.BankApp.localbankapp.dto.AccountResponse;
+import com.BankApp.localbankapp.dto.StatementFormat;
+import com.BankApp.localbankapp.dto.TransactionPage;
 import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.TransactionType;
 import com.BankApp.localbankapp.service.AccountService;
+import com.BankApp.localbankapp.service.StatementService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * @author Alexander Brazhkin
@@ -23,6 +32,7 @@ import java.math.BigDecimal;
 @Tag(name = "Bank Accounts", description = "Управление банковскими счетами")
 public class AccountController {
     private final AccountService accountService;
+    private final StatementService statementService;
 
     @Operation(summary = "Создать новый банковский счёт")
     @ApiResponse(responseCode = "200", description = "Счёт успешно создан")
@@ -36,8 +46,8 @@ public class AccountController {
     @ApiResponse(responseCode = "200", description = "Счёт найден")
     @ApiResponse(responseCode = "404", description = "Счёт не найден")
     @GetMapping("/{id}")
-    public ResponseEntity<BankAccount> getAccount(@PathVariable Long id) {
-        BankAccount account = accountService.getAccountById(id);
+    public ResponseEntity<AccountResponse> getAccount(@PathVariable Long id) {
+        AccountResponse account = accountService.getAccountById(id);
         return ResponseEntity.ok(account);
     }
 
@@ -47,4 +57,35 @@ public class AccountController {
         BigDecimal balance = accountService.getBalanceById(accountId);
         return ResponseEntity.ok(balance);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Получить историю операций по счёту (постранично, от новых к старым)")
+    @ApiResponse(responseCode = "200", description = "Страница истории; nextCursor передаётся в следующий запрос")
+    @ApiResponse(responseCode = "404", description = "Счёт не найден")
+    @GetMapping("/{accountId}/transactions")
+    public ResponseEntity<TransactionPage> getTransactions(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        TransactionPage page = accountService.getTransactions(accountId, cursor, limit, type, from, to);
+        return ResponseEntity.ok(page);
+    }
+
+    @Operation(summary = "Выгрузить полную выписку по счёту с остатком после каждой операции (csv или ndjson)")
+    @ApiResponse(responseCode = "200", description = "Выписка передаётся потоком")
+    @ApiResponse(responseCode = "400", description = "Неизвестный формат")
+    @ApiResponse(responseCode = "404", description = "Счёт не найден")
+    @GetMapping("/{accountId}/statement")
+    public ResponseEntity<StreamingResponseBody> getStatement(@PathVariable Long accountId,
+                                                              @RequestParam(defaultValue = "csv") String format) {
+        StatementFormat statementFormat = StatementFormat.parse(format);
+        StreamingResponseBody body = statementService.export(accountId, statementFormat);
+        return ResponseEntity.ok()
+                .contentType(statementFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"statement-" + accountId + "." + statementFormat.getExtension() + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,33 @@
+package com.BankApp.localbankapp.controller;
+
+import com.BankApp.localbankapp.dto.AccountResponse;
+import com.BankApp.localbankapp.service.AccountService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Operator actions; everything under {@code /api/admin} requires {@code ROLE_ADMIN}.
+ *
+ * @author Alexander Brazhkin
+ */
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "Administration", description = "Операции администратора")
+public class AdminController {
+    private final AccountService accountService;
+
+    @Operation(summary = "Разбить баланс счёта на полосы для конкурентных операций")
+    @ApiResponse(responseCode = "200", description = "Число полос изменено")
+    @ApiResponse(responseCode = "403", description = "Нет роли администратора")
+    @ApiResponse(responseCode = "404", description = "Счёт не найден")
+    @PutMapping("/accounts/{accountId}/stripes")
+    public ResponseEntity<AccountResponse> setStripeCount(@PathVariable Long accountId, @RequestParam int count) {
+        AccountResponse account = accountService.setStripeCount(accountId, count);
+        return ResponseEntity.ok(account);
+    }
+}
@@ -0,0 +1,33 @@
+package com.BankApp.localbankapp.controller;
+
+import com.BankApp.localbankapp.dto.BalanceReport;
+import com.BankApp.localbankapp.service.BalanceRebuildService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator access to the balance recomputation: {@code GET /actuator/balances} reports accounts whose cached
+ * balance drifted from their ledger entries, {@code POST /actuator/balances} also repairs them. Both need the
+ * admin role.
+ *
+ * @author Alexander Brazhkin
+ */
+@Component
+@Endpoint(id = "balances")
+@RequiredArgsConstructor
+public class BalancesEndpoint {
+    private final BalanceRebuildService balanceRebuildService;
+
+    @ReadOperation
+    public BalanceReport verify() {
+        return balanceRebuildService.verify();
+    }
+
+    @WriteOperation
+    public BalanceReport rebuild() {
+        return balanceRebuildService.rebuild();
+    }
+}
@@ -1,17 +1,29 @@
 package com.BankApp.localbankapp.controller;
 
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.BatchTransferResult;
 import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.dto.TransactionStatusResponse;
 import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionType;
+import com.BankApp.localbankapp.service.AsyncTransactionService;
+import com.BankApp.localbankapp.service.IdempotencyService;
 import com.BankApp.localbankapp.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+import java.util.function.Supplier;
+
 /**
  * @author Alexander Brazhkin
  */
@@ -20,26 +32,77 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 @Tag(name = "Транзакции", description = "Операции перевода между счетами")
 public class TransactionController {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final AsyncTransactionService asyncTransactionService;
 
     @Operation(summary = "Выполнить перевод между счетами")
     @PostMapping("/transfer")
-    public ResponseEntity<Transaction> transfer(@RequestBody TransactionDTO dto) {
-        Transaction transaction = transactionService.transfer(dto);
+    public ResponseEntity<Transaction> transfer(@RequestBody TransactionDTO dto,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        Transaction transaction = once(idempotencyKey, TransactionType.TRANSFER, dto, () -> transactionService.transfer(dto));
         return ResponseEntity.ok(transaction);
     }
 
     @Operation(summary = "Пополнить счёт")
     @PostMapping("/deposit")
-    public ResponseEntity<Transaction> deposit(@RequestBody TransactionDTO dto) {
-        Transaction transaction = transactionService.deposit(dto);
+    public ResponseEntity<Transaction> deposit(@RequestBody TransactionDTO dto,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        Transaction transaction = once(idempotencyKey, TransactionType.DEPOSIT, dto, () -> transactionService.deposit(dto));
         return ResponseEntity.ok(transaction);
     }
 
     @Operation(summary = "Снять средства")
     @PostMapping("/withdraw")
-    public ResponseEntity<Transaction> withdraw(@RequestBody TransactionDTO dto) {
-        Transaction transaction = transactionService.withdrawal(dto);
+    public ResponseEntity<Transaction> withdraw(@RequestBody TransactionDTO dto,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        Transaction transaction = once(idempotencyKey, TransactionType.WITHDRAWAL, dto, () -> transactionService.withdrawal(dto));
         return ResponseEntity.ok(transaction);
     }
+
+    @Operation(summary = "Выполнить пакет переводов в одной транзакции")
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransferResult> transferBatch(@RequestBody BatchTransferRequest request) {
+        BatchTransferResult result = transactionService.transferBatch(request);
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "Поставить перевод в очередь на асинхронное выполнение")
+    @PostMapping("/async/transfer")
+    public ResponseEntity<TransactionStatusResponse> transferAsync(@RequestBody TransactionDTO dto) {
+        return accepted(asyncTransactionService.submit(TransactionType.TRANSFER, dto));
+    }
+
+    @Operation(summary = "Поставить пополнение счёта в очередь на асинхронное выполнение")
+    @PostMapping("/async/deposit")
+    public ResponseEntity<TransactionStatusResponse> depositAsync(@RequestBody TransactionDTO dto) {
+        return accepted(asyncTransactionService.submit(TransactionType.DEPOSIT, dto));
+    }
+
+    @Operation(summary = "Поставить снятие средств в очередь на асинхронное выполнение")
+    @PostMapping("/async/withdraw")
+    public ResponseEntity<TransactionStatusResponse> withdrawAsync(@RequestBody TransactionDTO dto) {
+        return accepted(asyncTransactionService.submit(TransactionType.WITHDRAWAL, dto));
+    }
+
+    @Operation(summary = "Получить статус транзакции")
+    @GetMapping("/{id}/status")
+    public ResponseEntity<TransactionStatusResponse> getStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(asyncTransactionService.getStatus(id));
+    }
+
+    private static ResponseEntity<TransactionStatusResponse> accepted(TransactionStatusResponse status) {
+        return ResponseEntity.accepted()
+                             .location(URI.create("/api/transactions/" + status.getTransactionId() + "/status"))
+                             .body(status);
+    }
+
+    private Transaction once(String idempotencyKey, TransactionType operation, TransactionDTO dto, Supplier<Transaction> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        return idempotencyService.execute(idempotencyKey, operation, dto, action);
+    }
 }
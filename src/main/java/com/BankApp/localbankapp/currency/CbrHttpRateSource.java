@@ -0,0 +1,39 @@
+package com.BankApp.localbankapp.currency;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Fetches the daily rates straight from the CBR web service, parsing the response body as it streams in.
+ *
+ * @author Alexander Brazhkin
+ */
+public class CbrHttpRateSource implements RateSource {
+    private final RestTemplate restTemplate;
+    private final String url;
+    private final CbrXmlParser parser = new CbrXmlParser();
+
+    public CbrHttpRateSource(RestTemplate restTemplate, String url) {
+        this.restTemplate = restTemplate;
+        this.url = url;
+    }
+
+    @Override
+    public RateSnapshot fetch() throws IOException {
+        try {
+            return restTemplate.execute(url, HttpMethod.GET, null,
+                    response -> parser.parse(response.getBody(), Instant.now()));
+        } catch (RestClientException e) {
+            throw new IOException("Failed to fetch exchange rates from " + url, e);
+        }
+    }
+
+    @Override
+    public String describe() {
+        return url;
+    }
+}
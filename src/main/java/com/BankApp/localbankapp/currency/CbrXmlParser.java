@@ -0,0 +1,169 @@
+package com.BankApp.localbankapp.currency;
+
+import com.BankApp.localbankapp.model.Currency;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streaming (StAX) parser for the CBR {@code XML_daily} feed. Reads the raw bytes so the encoding declared
+ * by the document (windows-1251) is honoured, keeps only the currencies the bank supports and never builds
+ * a DOM or per-element strings. DTDs and external entities are rejected.
+ *
+ * @author Alexander Brazhkin
+ */
+public class CbrXmlParser {
+    private static final DateTimeFormatter CBR_DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final XMLInputFactory FACTORY = newSecureFactory();
+
+    public RateSnapshot parse(InputStream in, Instant fetchedAt) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+            return read(reader, fetchedAt);
+        } catch (XMLStreamException | RuntimeException e) {
+            throw new IOException("Malformed CBR rates feed", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing left to release
+                }
+            }
+        }
+    }
+
+    private RateSnapshot read(XMLStreamReader reader, Instant fetchedAt) throws XMLStreamException {
+        BigDecimal[] rubPerUnit = new BigDecimal[CURRENCIES.length];
+        LocalDate rateDate = null;
+
+        Field field = Field.NONE;
+        Currency currency = null;
+        long value = 0;
+        int valueScale = -1;
+        long nominal = 0;
+        char[] code = new char[3];
+        int codeLength = 0;
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.DTD ->
+                        throw new XMLStreamException("DOCTYPE is not allowed in the rates feed");
+                case XMLStreamConstants.START_ELEMENT -> {
+                    String name = reader.getLocalName();
+                    switch (name) {
+                        case "ValCurs" -> {
+                            String date = reader.getAttributeValue(null, "Date");
+                            rateDate = date == null || date.isEmpty() ? null : LocalDate.parse(date, CBR_DATE);
+                        }
+                        case "Valute" -> {
+                            currency = null;
+                            codeLength = 0;
+                            value = 0;
+                            valueScale = -1;
+                            nominal = 0;
+                        }
+                        case "CharCode" -> field = Field.CHAR_CODE;
+                        case "Value" -> field = Field.VALUE;
+                        case "Nominal" -> field = Field.NOMINAL;
+                        default -> field = Field.NONE;
+                    }
+                }
+                case XMLStreamConstants.CHARACTERS -> {
+                    if (field == Field.NONE) {
+                        break;
+                    }
+                    char[] text = reader.getTextCharacters();
+                    int end = reader.getTextStart() + reader.getTextLength();
+                    for (int i = reader.getTextStart(); i < end; i++) {
+                        char c = text[i];
+                        if (Character.isWhitespace(c)) {
+                            continue;
+                        }
+                        switch (field) {
+                            case CHAR_CODE -> {
+                                if (codeLength < code.length) {
+                                    code[codeLength] = c;
+                                }
+                                codeLength++;
+                            }
+                            case VALUE -> {
+                                if (c == ',' || c == '.') {
+                                    valueScale = 0;
+                                } else {
+                                    value = Math.addExact(Math.multiplyExact(value, 10), digit(c));
+                                    if (valueScale >= 0) {
+                                        valueScale++;
+                                    }
+                                }
+                            }
+                            case NOMINAL -> nominal = Math.addExact(Math.multiplyExact(nominal, 10), digit(c));
+                            default -> { }
+                        }
+                    }
+                }
+                case XMLStreamConstants.END_ELEMENT -> {
+                    field = Field.NONE;
+                    String name = reader.getLocalName();
+                    if ("CharCode".equals(name)) {
+                        currency = codeLength == code.length ? lookup(code) : null;
+                    } else if ("Valute".equals(name) && currency != null && currency != Currency.RUB) {
+                        if (nominal <= 0) {
+                            throw new XMLStreamException("Missing nominal for " + currency);
+                        }
+                        BigDecimal rate = BigDecimal.valueOf(value, Math.max(valueScale, 0));
+                        rubPerUnit[currency.ordinal()] = nominal == 1
+                                ? rate.setScale(6, RoundingMode.HALF_UP)
+                                : rate.divide(BigDecimal.valueOf(nominal), 6, RoundingMode.HALF_UP);
+                    }
+                }
+                default -> { }
+            }
+        }
+        return new RateSnapshot(rateDate, fetchedAt, rubPerUnit);
+    }
+
+    private static Currency lookup(char[] code) {
+        for (Currency currency : CURRENCIES) {
+            String name = currency.name();
+            if (name.length() == code.length
+                    && name.charAt(0) == Character.toUpperCase(code[0])
+                    && name.charAt(1) == Character.toUpperCase(code[1])
+                    && name.charAt(2) == Character.toUpperCase(code[2])) {
+                return currency;
+            }
+        }
+        return null;
+    }
+
+    private static int digit(char c) throws XMLStreamException {
+        if (c < '0' || c > '9') {
+            throw new XMLStreamException("Unexpected character '" + c + "' in numeric field");
+        }
+        return c - '0';
+    }
+
+    private static XMLInputFactory newSecureFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        return factory;
+    }
+
+    private enum Field {
+        NONE, CHAR_CODE, VALUE, NOMINAL
+    }
+}
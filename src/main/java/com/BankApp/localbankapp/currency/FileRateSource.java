@@ -0,0 +1,33 @@
+package com.BankApp.localbankapp.currency;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+
+/**
+ * Reads a recorded CBR feed from disk or the classpath, for tests and nodes without internet access.
+ *
+ * @author Alexander Brazhkin
+ */
+public class FileRateSource implements RateSource {
+    private final Resource resource;
+    private final CbrXmlParser parser = new CbrXmlParser();
+
+    public FileRateSource(Resource resource) {
+        this.resource = resource;
+    }
+
+    @Override
+    public RateSnapshot fetch() throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return parser.parse(in, Instant.now());
+        }
+    }
+
+    @Override
+    public String describe() {
+        return resource.getDescription();
+    }
+}
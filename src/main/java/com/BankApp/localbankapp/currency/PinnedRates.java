@@ -0,0 +1,39 @@
+package com.BankApp.localbankapp.currency;
+
+import com.BankApp.localbankapp.model.Currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+/**
+ * Pins a rate snapshot on first use, so every leg of one operation converts with the same rates and the
+ * operation records a single rate date. Not thread-safe; hand it between threads only through a queue.
+ *
+ * @author Alexander Brazhkin
+ */
+public final class PinnedRates {
+    private final Supplier<RateSnapshot> source;
+    private RateSnapshot snapshot;
+
+    public PinnedRates(Supplier<RateSnapshot> source) {
+        this.source = source;
+    }
+
+    public BigDecimal convert(BigDecimal amount, Currency from, Currency to) {
+        if (from == to) {
+            return amount;
+        }
+        if (snapshot == null) {
+            snapshot = source.get();
+        }
+        return snapshot.convert(amount, from, to);
+    }
+
+    /**
+     * Feed date of the pinned snapshot, {@code null} if nothing was converted.
+     */
+    public LocalDate rateDate() {
+        return snapshot != null ? snapshot.getRateDate() : null;
+    }
+}
@@ -0,0 +1,168 @@
+package com.BankApp.localbankapp.currency;
+
+import com.BankApp.localbankapp.exception.RatesUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs {@link RateSource#fetch()} on a small dedicated pool so request and scheduler threads never block
+ * on the upstream. Concurrent callers share one in-flight fetch, and a {@link CircuitBreaker} stops
+ * calling an upstream that keeps failing.
+ *
+ * @author Alexander Brazhkin
+ */
+@Slf4j
+public class RateFetcher implements DisposableBean {
+    private final RateSource rateSource;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration fetchTimeout;
+    private final ThreadPoolExecutor executor;
+    private final AtomicReference<CompletableFuture<RateSnapshot>> inFlight = new AtomicReference<>();
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private volatile Duration lastFetchLatency;
+    private volatile String lastFailure;
+
+    public RateFetcher(RateSource rateSource, CircuitBreaker circuitBreaker, Duration fetchTimeout,
+                       int poolSize, MeterRegistry meterRegistry) {
+        this.rateSource = rateSource;
+        this.circuitBreaker = circuitBreaker;
+        this.fetchTimeout = fetchTimeout;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize), daemonThreads(), new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        MeterRegistry registry = meterRegistry != null ? meterRegistry : new SimpleMeterRegistry();
+        this.successTimer = Timer.builder("rates.fetch").tag("outcome", "success")
+                                 .description("CBR rate feed fetch latency").register(registry);
+        this.failureTimer = Timer.builder("rates.fetch").tag("outcome", "failure")
+                                 .description("CBR rate feed fetch latency").register(registry);
+        Gauge.builder("rates.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+             .description("Rate feed circuit breaker state: 0 closed, 1 open, 2 half-open")
+             .register(registry);
+    }
+
+    public static RateFetcher direct(RateSource rateSource) {
+        return new RateFetcher(rateSource, new CircuitBreaker(Integer.MAX_VALUE, Duration.ZERO),
+                Duration.ofSeconds(30), 1, null);
+    }
+
+    /**
+     * Starts a fetch, or joins the one already running. The returned future fails with
+     * {@link RatesUnavailableException} when the breaker is open, the pool is saturated or the fetch times out.
+     */
+    public CompletableFuture<RateSnapshot> fetch() {
+        while (true) {
+            CompletableFuture<RateSnapshot> current = inFlight.get();
+            if (current != null) {
+                return current;
+            }
+            CompletableFuture<RateSnapshot> mine = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, mine)) {
+                start(mine);
+                return mine;
+            }
+        }
+    }
+
+    private void start(CompletableFuture<RateSnapshot> future) {
+        if (!circuitBreaker.tryAcquire()) {
+            inFlight.compareAndSet(future, null);
+            future.completeExceptionally(new RatesUnavailableException(
+                    "Rate feed circuit breaker is open after " + circuitBreaker.getConsecutiveFailures() + " failures"));
+            return;
+        }
+
+        future.orTimeout(fetchTimeout.toMillis(), TimeUnit.MILLISECONDS)
+              .whenComplete((snapshot, error) -> {
+                  inFlight.compareAndSet(future, null);
+                  if (error == null) {
+                      circuitBreaker.onSuccess();
+                      lastFailure = null;
+                  } else {
+                      circuitBreaker.onFailure();
+                      lastFailure = error.toString();
+                      log.warn("Rate fetch from {} failed: {}", rateSource.describe(), error.toString());
+                  }
+              });
+
+        try {
+            executor.execute(() -> run(future));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new RatesUnavailableException("Rate fetch pool is saturated", e));
+        }
+    }
+
+    private void run(CompletableFuture<RateSnapshot> future) {
+        if (future.isDone()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            RateSnapshot snapshot = rateSource.fetch();
+            record(successTimer, started);
+            future.complete(snapshot);
+        } catch (Exception e) {
+            record(failureTimer, started);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void record(Timer timer, long started) {
+        long elapsed = System.nanoTime() - started;
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        lastFetchLatency = Duration.ofNanos(elapsed);
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public int getConsecutiveFailures() {
+        return circuitBreaker.getConsecutiveFailures();
+    }
+
+    public Duration getLastFetchLatency() {
+        return lastFetchLatency;
+    }
+
+    public String getLastFailure() {
+        return lastFailure;
+    }
+
+    public Duration getFetchTimeout() {
+        return fetchTimeout;
+    }
+
+    public String describe() {
+        return rateSource.describe();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "rates-fetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
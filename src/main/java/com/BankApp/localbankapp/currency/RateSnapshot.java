@@ -0,0 +1,143 @@
+package com.BankApp.localbankapp.currency;
+
+import com.BankApp.localbankapp.model.Currency;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of CBR rates (roubles per one unit of currency) for the supported currencies as of a single feed date.
+ * Cross rates between {@link Currency} values are precomputed once per snapshot and indexed by ordinal.
+ *
+ * @author Alexander Brazhkin
+ */
+@Value
+public class RateSnapshot {
+    public static final int CROSS_RATE_SCALE = 10;
+    public static final int MINOR_RATE_SCALE = 9;
+    public static final long MINOR_RATE_FACTOR = 1_000_000_000L;
+
+    private static final long HALF_MINOR_FACTOR = MINOR_RATE_FACTOR / 2;
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    LocalDate rateDate;
+    Instant fetchedAt;
+    Map<String, BigDecimal> rates;
+    @Getter(AccessLevel.NONE)
+    BigDecimal[] rubPerUnit;
+    @Getter(AccessLevel.NONE)
+    BigDecimal[][] crossRates;
+    @Getter(AccessLevel.NONE)
+    long[][] minorCrossRates;
+
+    /**
+     * @param rubPerUnit roubles per one unit of each currency, indexed by ordinal; {@code null} where the feed
+     *                   has no quote. The RUB slot is always treated as 1.
+     */
+    public RateSnapshot(LocalDate rateDate, Instant fetchedAt, BigDecimal[] rubPerUnit) {
+        this.rateDate = rateDate;
+        this.fetchedAt = fetchedAt;
+        this.rubPerUnit = Arrays.copyOf(rubPerUnit, CURRENCIES.length);
+        this.rubPerUnit[Currency.RUB.ordinal()] = BigDecimal.ONE;
+        this.crossRates = new BigDecimal[CURRENCIES.length][CURRENCIES.length];
+        this.minorCrossRates = new long[CURRENCIES.length][CURRENCIES.length];
+
+        Map<String, BigDecimal> quoted = new LinkedHashMap<>();
+        for (Currency from : CURRENCIES) {
+            BigDecimal rubPerFrom = this.rubPerUnit[from.ordinal()];
+            if (rubPerFrom != null && from != Currency.RUB) {
+                quoted.put(from.name(), rubPerFrom);
+            }
+            for (Currency to : CURRENCIES) {
+                BigDecimal rubPerTo = this.rubPerUnit[to.ordinal()];
+                if (from == to) {
+                    crossRates[from.ordinal()][to.ordinal()] = BigDecimal.ONE;
+                } else if (rubPerFrom != null && rubPerTo != null) {
+                    crossRates[from.ordinal()][to.ordinal()] =
+                            rubPerFrom.divide(rubPerTo, CROSS_RATE_SCALE, RoundingMode.HALF_UP);
+                }
+                BigDecimal cross = crossRates[from.ordinal()][to.ordinal()];
+                minorCrossRates[from.ordinal()][to.ordinal()] = cross == null ? 0L
+                        : cross.movePointRight(MINOR_RATE_SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            }
+        }
+        this.rates = Collections.unmodifiableMap(quoted);
+    }
+
+    public BigDecimal rubPerUnit(Currency currency) {
+        return rubPerUnit[currency.ordinal()];
+    }
+
+    public BigDecimal rubPerUnit(String currency) {
+        return "RUB".equals(currency) ? BigDecimal.ONE : rates.get(currency);
+    }
+
+    /**
+     * Units of {@code to} per one unit of {@code from}, or {@code null} if the feed lacks either currency.
+     */
+    public BigDecimal crossRate(Currency from, Currency to) {
+        return crossRates[from.ordinal()][to.ordinal()];
+    }
+
+    /**
+     * Same as {@link #crossRate} as a fixed-point long scaled by {@link #MINOR_RATE_FACTOR}, 0 if unsupported.
+     */
+    public long minorCrossRate(Currency from, Currency to) {
+        return minorCrossRates[from.ordinal()][to.ordinal()];
+    }
+
+    public BigDecimal convert(BigDecimal amount, Currency from, Currency to) {
+        if (from == to) {
+            return amount.setScale(2, RoundingMode.HALF_UP);
+        }
+        BigDecimal rate = crossRate(from, to);
+        if (rate == null) {
+            throw unsupported(from, to);
+        }
+        return amount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Converts an amount expressed in minor units (cents, kopecks), rounding half-up to whole minor units.
+     * Stays in {@code long} arithmetic unless the intermediate product would overflow.
+     */
+    public long convertMinor(long amountMinor, Currency from, Currency to) {
+        if (from == to) {
+            return amountMinor;
+        }
+        long rate = minorCrossRate(from, to);
+        if (rate == 0L) {
+            throw unsupported(from, to);
+        }
+
+        long high = Math.multiplyHigh(amountMinor, rate);
+        long low = amountMinor * rate;
+        if (high == (low >> 63) && low > Long.MIN_VALUE + HALF_MINOR_FACTOR && low < Long.MAX_VALUE - HALF_MINOR_FACTOR) {
+            return low >= 0
+                    ? (low + HALF_MINOR_FACTOR) / MINOR_RATE_FACTOR
+                    : -((-low + HALF_MINOR_FACTOR) / MINOR_RATE_FACTOR);
+        }
+        return BigDecimal.valueOf(amountMinor)
+                         .multiply(BigDecimal.valueOf(rate, MINOR_RATE_SCALE))
+                         .setScale(0, RoundingMode.HALF_UP)
+                         .longValueExact();
+    }
+
+    private static IllegalArgumentException unsupported(Currency from, Currency to) {
+        return new IllegalArgumentException("Unsupported currency: " + from + " or " + to);
+    }
+
+    public Duration age(Instant now) {
+        return Duration.between(fetchedAt, now);
+    }
+}
@@ -0,0 +1,14 @@
+package com.BankApp.localbankapp.currency;
+
+import java.io.IOException;
+
+/**
+ * Supplier of the CBR daily rates feed. Implementations decide where the XML comes from.
+ *
+ * @author Alexander Brazhkin
+ */
+public interface RateSource {
+    RateSnapshot fetch() throws IOException;
+
+    String describe();
+}
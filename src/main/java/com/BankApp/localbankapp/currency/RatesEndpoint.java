@@ -0,0 +1,56 @@
+package com.BankApp.localbankapp.currency;
+
+import com.BankApp.localbankapp.util.CurrencyConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator view of the exchange rate snapshot and the fetcher's circuit breaker:
+ * {@code GET /actuator/rates} to inspect, {@code POST /actuator/rates} to force a refresh (admins only).
+ * Fetch latency is also published as the {@code rates.fetch} timer under {@code /actuator/metrics}.
+ *
+ * @author Alexander Brazhkin
+ */
+@Component
+@Endpoint(id = "rates")
+@RequiredArgsConstructor
+public class RatesEndpoint {
+    private final CurrencyConverter currencyConverter;
+
+    @ReadOperation
+    public Map<String, Object> rates() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        RateFetcher fetcher = currencyConverter.getRateFetcher();
+        body.put("source", fetcher.describe());
+        body.put("maxStaleness", currencyConverter.getMaxStaleness().toString());
+        body.put("circuitState", fetcher.getCircuitState());
+        body.put("consecutiveFailures", fetcher.getConsecutiveFailures());
+        body.put("lastFetchLatency", fetcher.getLastFetchLatency() == null ? null : fetcher.getLastFetchLatency().toString());
+        body.put("lastFailure", fetcher.getLastFailure());
+
+        RateSnapshot snapshot = currencyConverter.getSnapshot();
+        if (snapshot == null) {
+            body.put("loaded", false);
+            return body;
+        }
+        body.put("loaded", true);
+        body.put("rateDate", snapshot.getRateDate());
+        body.put("fetchedAt", snapshot.getFetchedAt());
+        body.put("age", snapshot.age(Instant.now()).toString());
+        body.put("rates", snapshot.getRates());
+        return body;
+    }
+
+    @WriteOperation
+    public Map<String, Object> refresh() {
+        currencyConverter.refresh();
+        return rates();
+    }
+}
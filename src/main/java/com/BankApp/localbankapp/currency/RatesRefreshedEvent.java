@@ -0,0 +1,9 @@
+package com.BankApp.localbankapp.currency;
+
+/**
+ * Published whenever {@link com.BankApp.localbankapp.util.CurrencyConverter} installs a new snapshot.
+ *
+ * @author Alexander Brazhkin
+ */
+public record RatesRefreshedEvent(RateSnapshot snapshot) {
+}
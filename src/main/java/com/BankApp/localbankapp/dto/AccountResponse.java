@@ -0,0 +1,27 @@
+package com.BankApp.localbankapp.dto;
+
+import com.BankApp.localbankapp.model.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * An account as returned by {@code GET /api/accounts/{id}}, read by one projection query. The owner is only
+ * referenced by id; {@code balance} includes the account's stripes.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountResponse {
+    private Long id;
+    private String accountNumber;
+    private BigDecimal balance;
+    private Currency currency;
+    private Boolean active;
+    private Integer stripeCount;
+    private Long userId;
+}
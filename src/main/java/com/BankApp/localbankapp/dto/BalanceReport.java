@@ -0,0 +1,34 @@
+package com.BankApp.localbankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Outcome of a balance recomputation. {@code drifts} holds at most the configured number of accounts;
+ * {@code driftCount} counts all of them.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceReport {
+    private long accountsChecked;
+    private long driftCount;
+    private long repaired;
+    private long durationMs;
+    private List<Drift> drifts;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Drift {
+        private Long accountId;
+        private BigDecimal cached;
+        private BigDecimal ledger;
+    }
+}
@@ -0,0 +1,25 @@
+package com.BankApp.localbankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+    private List<TransactionDTO> transfers;
+    private Mode mode = Mode.ALL_OR_NOTHING;
+
+    public enum Mode {
+        /** Any failed item rolls the whole batch back. */
+        ALL_OR_NOTHING,
+        /** Failed items are skipped and reported; the rest are committed. */
+        PARTIAL
+    }
+}
@@ -0,0 +1,34 @@
+package com.BankApp.localbankapp.dto;
+
+import com.BankApp.localbankapp.model.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Per-item outcome of a batch transfer, in request order. Items are {@code COMPLETED}, {@code FAILED}, or
+ * {@code CANCELLED} when an all-or-nothing batch was rolled back because of another item.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResult {
+    private BatchTransferRequest.Mode mode;
+    private int completed;
+    private int failed;
+    private List<Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int index;
+        private TransactionStatus status;
+        private Long transactionId;
+        private String error;
+    }
+}
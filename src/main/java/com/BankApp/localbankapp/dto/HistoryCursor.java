@@ -0,0 +1,34 @@
+package com.BankApp.localbankapp.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in an account's history: the {@code (timestamp, id)} of the last row returned. Clients only see it
+ * as an opaque token.
+ *
+ * @author Alexander Brazhkin
+ */
+public record HistoryCursor(LocalDateTime timestamp, long id) {
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                     .encodeToString((timestamp + "," + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static HistoryCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int comma = value.indexOf(',');
+            return new HistoryCursor(LocalDateTime.parse(value.substring(0, comma)),
+                    Long.parseLong(value.substring(comma + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
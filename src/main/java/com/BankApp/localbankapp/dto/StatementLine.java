@@ -0,0 +1,34 @@
+package com.BankApp.localbankapp.dto;
+
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.EntryDirection;
+import com.BankApp.localbankapp.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One ledger entry of a statement with the account's balance right after it. {@code transactionId},
+ * {@code type} and {@code counterpartyAccountId} are {@code null} for opening balances.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementLine {
+    private Long entryId;
+    private LocalDateTime timestamp;
+    private Long transactionId;
+    private TransactionType type;
+    private EntryDirection direction;
+    private Long counterpartyAccountId;
+    private BigDecimal amount;
+    private Currency currency;
+    private BigDecimal rate;
+    private String description;
+    private BigDecimal balance;
+}
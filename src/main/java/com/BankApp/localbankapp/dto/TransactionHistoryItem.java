@@ -0,0 +1,34 @@
+package com.BankApp.localbankapp.dto;
+
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.EntryDirection;
+import com.BankApp.localbankapp.model.TransactionStatus;
+import com.BankApp.localbankapp.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One transaction as seen from the account whose history is read: {@code DEBIT} if money left it,
+ * {@code CREDIT} if money arrived.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionHistoryItem {
+    private Long id;
+    private TransactionType type;
+    private TransactionStatus status;
+    private EntryDirection direction;
+    private Long counterpartyAccountId;
+    private BigDecimal amount;
+    private Currency fromCurrency;
+    private Currency toCurrency;
+    private String description;
+    private LocalDateTime timestamp;
+}
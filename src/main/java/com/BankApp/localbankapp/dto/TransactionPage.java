@@ -0,0 +1,21 @@
+package com.BankApp.localbankapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of account history, newest first. Pass {@code nextCursor} back to read the following page;
+ * it is {@code null} on the last one.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPage {
+    private List<TransactionHistoryItem> items;
+    private String nextCursor;
+}
@@ -0,0 +1,22 @@
+package com.BankApp.localbankapp.dto;
+
+import com.BankApp.localbankapp.model.TransactionStatus;
+import com.BankApp.localbankapp.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Processing state of a transaction submitted through the asynchronous endpoints.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionStatusResponse {
+    private Long transactionId;
+    private TransactionType type;
+    private TransactionStatus status;
+    private String failureReason;
+}
@@ -33,4 +33,20 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleBadRequestException(Exception ex) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
+
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    @ExceptionHandler(SubmissionQueueFullException.class)
+    public ResponseEntity<String> handleTooManyRequestsException(Exception ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler({
+            RatesUnavailableException.class,
+            LedgerUnavailableException.class,
+            LoginsUnavailableException.class,
+    })
+    public ResponseEntity<String> handleServiceUnavailableException(Exception ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
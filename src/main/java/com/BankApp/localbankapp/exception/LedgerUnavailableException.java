@@ -0,0 +1,14 @@
+package com.BankApp.localbankapp.exception;
+
+/**
+ * @author Alexander Brazhkin
+ */
+public class LedgerUnavailableException extends RuntimeException {
+    public LedgerUnavailableException(String msg) {
+        super(msg);
+    }
+
+    public LedgerUnavailableException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
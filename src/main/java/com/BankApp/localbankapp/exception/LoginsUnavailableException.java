@@ -0,0 +1,14 @@
+package com.BankApp.localbankapp.exception;
+
+/**
+ * @author Alexander Brazhkin
+ */
+public class LoginsUnavailableException extends RuntimeException {
+    public LoginsUnavailableException(String msg) {
+        super(msg);
+    }
+
+    public LoginsUnavailableException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
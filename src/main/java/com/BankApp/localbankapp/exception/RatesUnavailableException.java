@@ -0,0 +1,14 @@
+package com.BankApp.localbankapp.exception;
+
+/**
+ * @author Alexander Brazhkin
+ */
+public class RatesUnavailableException extends RuntimeException {
+    public RatesUnavailableException(String msg) {
+        super(msg);
+    }
+
+    public RatesUnavailableException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.BankApp.localbankapp.exception;
+
+/**
+ * Thrown when the asynchronous transaction queue is at capacity; clients should retry later.
+ *
+ * @author Alexander Brazhkin
+ */
+public class SubmissionQueueFullException extends RuntimeException {
+    public SubmissionQueueFullException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,50 @@
+package com.BankApp.localbankapp.ledger;
+
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+
+import java.math.BigDecimal;
+
+/**
+ * In-memory balance of one account, owned and mutated only by its shard thread.
+ *
+ * @author Alexander Brazhkin
+ */
+final class AccountState {
+    final long id;
+    final String accountNumber;
+    final Currency currency;
+    final boolean active;
+    long balanceMinor;
+    boolean dirty;
+
+    AccountState(long id, String accountNumber, Currency currency, boolean active, long balanceMinor) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.currency = currency;
+        this.active = active;
+        this.balanceMinor = balanceMinor;
+    }
+
+    void apply(long deltaMinor) {
+        balanceMinor += deltaMinor;
+        dirty = true;
+    }
+
+    BigDecimal balance() {
+        return Ledger.fromMinor(balanceMinor);
+    }
+
+    /**
+     * Detached copy for API responses.
+     */
+    BankAccount view() {
+        BankAccount account = new BankAccount();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        account.setCurrency(currency);
+        account.setBalance(balance());
+        account.setActive(active);
+        return account;
+    }
+}
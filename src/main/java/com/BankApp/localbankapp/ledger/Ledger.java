@@ -0,0 +1,28 @@
+package com.BankApp.localbankapp.ledger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Minor-unit arithmetic shared by the ledger. Every supported currency has two fraction digits.
+ *
+ * @author Alexander Brazhkin
+ */
+final class Ledger {
+    static final int MINOR_SCALE = 2;
+
+    private Ledger() {
+    }
+
+    static long toMinor(BigDecimal amount) {
+        return amount.setScale(MINOR_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromMinor(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, MINOR_SCALE);
+    }
+
+    static int shardOf(long accountId, int shards) {
+        return (int) Math.floorMod(accountId, (long) shards);
+    }
+}
@@ -0,0 +1,56 @@
+package com.BankApp.localbankapp.ledger;
+
+import com.BankApp.localbankapp.currency.PinnedRates;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Transaction;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Work item consumed by a {@link LedgerShard}. Client commands arrive through the shard's ring buffer; the legs of
+ * cross-shard transfers travel between shards through their mailboxes.
+ *
+ * @author Alexander Brazhkin
+ */
+sealed interface LedgerCommand {
+
+    CompletableFuture<?> result();
+
+    record Deposit(long transactionId, TransactionDTO dto, PinnedRates rates,
+                   CompletableFuture<Transaction> result) implements LedgerCommand {
+    }
+
+    record Withdrawal(long transactionId, TransactionDTO dto, PinnedRates rates,
+                      CompletableFuture<Transaction> result) implements LedgerCommand {
+    }
+
+    /**
+     * Sent to the shard owning the source account.
+     */
+    record Transfer(long transactionId, TransactionDTO dto, PinnedRates rates,
+                    CompletableFuture<Transaction> result) implements LedgerCommand {
+    }
+
+    /**
+     * Sent to the target shard once the {@link LedgerRecord.Kind#TRANSFER_OUT} record is durable.
+     * {@code source} is {@code null} when the credit is re-issued during recovery.
+     */
+    record Credit(LedgerRecord debit, PinnedRates rates, BankAccount source,
+                  CompletableFuture<Transaction> result) implements LedgerCommand {
+    }
+
+    /**
+     * Sent back to the source shard when the target rejects a credit.
+     */
+    record Refund(LedgerRecord debit, RuntimeException reason,
+                  CompletableFuture<Transaction> result) implements LedgerCommand {
+    }
+
+    record Balance(long accountId, CompletableFuture<BigDecimal> result) implements LedgerCommand {
+    }
+
+    record Flush(CompletableFuture<ShardFlush> result) implements LedgerCommand {
+    }
+}
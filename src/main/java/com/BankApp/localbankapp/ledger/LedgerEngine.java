@@ -0,0 +1,372 @@
+package com.BankApp.localbankapp.ledger;
+
+import com.BankApp.localbankapp.currency.PinnedRates;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.exception.LedgerUnavailableException;
+import com.BankApp.localbankapp.model.LedgerEntry;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.service.ExchangeRateService;
+import com.BankApp.localbankapp.util.CurrencyConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * In-memory balance engine. Accounts are partitioned into shards by id; each shard is a single thread that
+ * applies commands from its ring buffer and journals every change before answering. Balances and completed
+ * transactions are flushed to the database in the background, together with a per-shard checkpoint.
+ *
+ * <p>A transfer between accounts of one shard is a single journal record. Across shards it is debit-then-credit:
+ * the source shard journals a {@code TRANSFER_OUT} and, once it is durable, sends the credit to the target
+ * shard, which journals a {@code TRANSFER_IN} or, if it rejects the credit, has the source journal a
+ * {@code TRANSFER_REFUND}. The caller is answered only after one of those two.
+ *
+ * <p>On start the engine loads the checkpoints, replays every journal record after them on top of the flushed
+ * balances, re-issues credits still owed by a {@code TRANSFER_OUT}, and writes a fresh checkpoint.
+ *
+ * @author Alexander Brazhkin
+ */
+@Component
+@ConditionalOnProperty(name = "app.ledger.enabled", havingValue = "true")
+@Slf4j
+public class LedgerEngine implements SmartLifecycle {
+    private static final String SHARD_DIR_PREFIX = "shard-";
+
+    private final LedgerStore store;
+    private final CurrencyConverter currencyConverter;
+    private final ExchangeRateService exchangeRateService;
+    private final int shardCount;
+    private final int ringSize;
+    private final int batchSize;
+    private final Path journalDir;
+    private final boolean fsync;
+    private final long flushIntervalMs;
+    private final long submitTimeoutNanos;
+
+    private final Object flushLock = new Object();
+    private final Map<Long, BigDecimal> unwrittenBalances = new HashMap<>();
+    private final List<Transaction> unwrittenTransactions = new ArrayList<>();
+    private final List<LedgerEntry> unwrittenEntries = new ArrayList<>();
+    private final Map<Integer, Long> unwrittenCheckpoints = new HashMap<>();
+    private final List<Path> obsoleteSegments = new ArrayList<>();
+
+    private LedgerShard[] shards;
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    public LedgerEngine(LedgerStore store,
+                        CurrencyConverter currencyConverter,
+                        ExchangeRateService exchangeRateService,
+                        @Value("${app.ledger.shards:4}") int shardCount,
+                        @Value("${app.ledger.ringSize:4096}") int ringSize,
+                        @Value("${app.ledger.batchSize:256}") int batchSize,
+                        @Value("${app.ledger.journal.dir:./ledger}") String journalDir,
+                        @Value("${app.ledger.journal.fsync:true}") boolean fsync,
+                        @Value("${app.ledger.flushIntervalMs:200}") long flushIntervalMs,
+                        @Value("${app.ledger.submitTimeoutMs:1000}") long submitTimeoutMs) {
+        this.store = store;
+        this.currencyConverter = currencyConverter;
+        this.exchangeRateService = exchangeRateService;
+        this.shardCount = shardCount;
+        this.ringSize = ringSize;
+        this.batchSize = batchSize;
+        this.journalDir = Paths.get(journalDir);
+        this.fsync = fsync;
+        this.flushIntervalMs = flushIntervalMs;
+        this.submitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(submitTimeoutMs);
+    }
+
+    public CompletableFuture<Transaction> deposit(TransactionDTO dto, PinnedRates rates) {
+        CompletableFuture<Transaction> result = new CompletableFuture<>();
+        publish(dto.getToAccountId(), new LedgerCommand.Deposit(store.nextTransactionId(), dto, rates, result));
+        return result;
+    }
+
+    public CompletableFuture<Transaction> withdrawal(TransactionDTO dto, PinnedRates rates) {
+        CompletableFuture<Transaction> result = new CompletableFuture<>();
+        publish(dto.getFromAccountId(), new LedgerCommand.Withdrawal(store.nextTransactionId(), dto, rates, result));
+        return result;
+    }
+
+    public CompletableFuture<Transaction> transfer(TransactionDTO dto, PinnedRates rates) {
+        CompletableFuture<Transaction> result = new CompletableFuture<>();
+        publish(dto.getFromAccountId(), new LedgerCommand.Transfer(store.nextTransactionId(), dto, rates, result));
+        return result;
+    }
+
+    /**
+     * Current balance as seen by the owning shard, including changes not flushed yet.
+     */
+    public CompletableFuture<BigDecimal> balance(long accountId) {
+        CompletableFuture<BigDecimal> result = new CompletableFuture<>();
+        publish(accountId, new LedgerCommand.Balance(accountId, result));
+        return result;
+    }
+
+    public PinnedRates pinRates() {
+        return new PinnedRates(currencyConverter::currentSnapshot);
+    }
+
+    public int shardOf(long accountId) {
+        return Ledger.shardOf(accountId, shardCount);
+    }
+
+    LedgerShard shard(long accountId) {
+        return shards[shardOf(accountId)];
+    }
+
+    AccountState loadAccount(long id) {
+        return store.loadAccount(id);
+    }
+
+    private void publish(long accountId, LedgerCommand command) {
+        if (!running) {
+            throw new LedgerUnavailableException("Ledger is not running");
+        }
+        LedgerShard shard = shard(accountId);
+        long deadline = System.nanoTime() + submitTimeoutNanos;
+        while (!shard.offer(command)) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new LedgerUnavailableException("Ledger shard " + shardOf(accountId) + " is saturated");
+            }
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    /**
+     * Writes everything the shards applied so far to the database in one transaction and advances their
+     * checkpoints. Data captured by a failed flush is kept and written by the next one.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<CompletableFuture<ShardFlush>> parts = new ArrayList<>(shards.length);
+            for (LedgerShard shard : shards) {
+                CompletableFuture<ShardFlush> part = new CompletableFuture<>();
+                try {
+                    shard.requireHealthy();
+                } catch (LedgerUnavailableException e) {
+                    // its memory may hold changes that never reached the journal; recovery rebuilds it
+                    continue;
+                }
+                shard.send(new LedgerCommand.Flush(part));
+                parts.add(part);
+            }
+            for (CompletableFuture<ShardFlush> part : parts) {
+                ShardFlush flush;
+                try {
+                    flush = part.join();
+                } catch (CompletionException e) {
+                    // the shard stopped on a journal failure while rolling its segment
+                    continue;
+                }
+                unwrittenBalances.putAll(flush.balances());
+                unwrittenTransactions.addAll(flush.transactions());
+                unwrittenEntries.addAll(flush.entries());
+                unwrittenCheckpoints.put(flush.shard(), flush.journalSeq());
+                obsoleteSegments.addAll(flush.closedSegments());
+            }
+            store.write(unwrittenBalances, unwrittenTransactions, unwrittenEntries, unwrittenCheckpoints);
+            LedgerJournal.delete(obsoleteSegments);
+            if (!unwrittenTransactions.isEmpty()) {
+                log.debug("Flushed {} balances and {} transactions", unwrittenBalances.size(), unwrittenTransactions.size());
+            }
+            unwrittenBalances.clear();
+            unwrittenTransactions.clear();
+            unwrittenEntries.clear();
+            unwrittenCheckpoints.clear();
+            obsoleteSegments.clear();
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Ledger flush failed, retrying in {} ms: {}", flushIntervalMs, e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read ledger journal in " + journalDir, e);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "ledger-flush"));
+        flusher.scheduleWithFixedDelay(this::scheduledFlush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void recover() throws IOException {
+        Map<Integer, Long> checkpoints = store.loadCheckpoints();
+        long[] nextSeq = new long[shardCount];
+        Map<Long, Long> deltas = new HashMap<>();
+        Map<Long, LedgerRecord> owedCredits = new LinkedHashMap<>();
+        Set<Long> settled = new HashSet<>();
+        List<LedgerRecord> replayedRecords = new ArrayList<>();
+
+        for (Path dir : shardDirectories()) {
+            int index = Integer.parseInt(dir.getFileName().toString().substring(SHARD_DIR_PREFIX.length()));
+            long checkpoint = checkpoints.getOrDefault(index, 0L);
+            for (LedgerRecord record : LedgerJournal.read(dir)) {
+                if (index < shardCount) {
+                    nextSeq[index] = Math.max(nextSeq[index], record.seq());
+                }
+                if (record.seq() <= checkpoint) {
+                    continue;
+                }
+                replayedRecords.add(record);
+                deltas.merge(record.accountId(), record.deltaFor(record.accountId()), Long::sum);
+                if (record.kind() == LedgerRecord.Kind.TRANSFER && record.counterpartyId() != record.accountId()) {
+                    deltas.merge(record.counterpartyId(), record.deltaFor(record.counterpartyId()), Long::sum);
+                }
+                switch (record.kind()) {
+                    case TRANSFER_OUT -> owedCredits.put(record.transactionId(), record);
+                    case TRANSFER_REFUND -> settled.add(record.transactionId());
+                    case TRANSFER_IN -> {
+                        settled.add(record.transactionId());
+                        unwrittenTransactions.add(record.toTransaction());
+                    }
+                    default -> unwrittenTransactions.add(record.toTransaction());
+                }
+            }
+            if (index >= shardCount) {
+                // written with a larger shard count; its records are folded into the current shards
+                obsoleteSegments.addAll(LedgerJournal.segments(dir));
+            }
+        }
+        owedCredits.keySet().removeAll(settled);
+        owedCredits.keySet().removeAll(store.existingTransactionIds(owedCredits.keySet()));
+
+        shards = new LedgerShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            long next = Math.max(nextSeq[i], checkpoints.getOrDefault(i, 0L)) + 1;
+            LedgerJournal journal = new LedgerJournal(journalDir.resolve(SHARD_DIR_PREFIX + i), next, fsync);
+            shards[i] = new LedgerShard(i, this, journal, ringSize, batchSize);
+        }
+        Map<Long, AccountState> replayedAccounts = new HashMap<>();
+        deltas.forEach((id, delta) -> {
+            AccountState account = store.loadAccount(id);
+            if (account == null) {
+                log.warn("Dropping replayed ledger change of {} for deleted account {}", delta, id);
+                return;
+            }
+            replayedAccounts.put(id, account);
+            if (delta == 0L) {
+                return;
+            }
+            account.apply(delta);
+            shard(id).seed(account);
+        });
+        for (LedgerRecord record : replayedRecords) {
+            AccountState account = replayedAccounts.get(record.accountId());
+            AccountState counterparty = record.kind() == LedgerRecord.Kind.TRANSFER
+                    ? replayedAccounts.get(record.counterpartyId()) : null;
+            if (account == null || record.kind() == LedgerRecord.Kind.TRANSFER && counterparty == null) {
+                continue;
+            }
+            unwrittenEntries.addAll(record.toEntries(account.currency, counterparty != null ? counterparty.currency : null));
+        }
+
+        for (LedgerShard shard : shards) {
+            shard.start();
+        }
+        running = true;
+
+        // the checkpoint below makes TRANSFER_OUT records obsolete, so their credits must be durable first
+        List<CompletableFuture<Transaction>> credits = new ArrayList<>(owedCredits.size());
+        for (LedgerRecord debit : owedCredits.values()) {
+            CompletableFuture<Transaction> credit = new CompletableFuture<>();
+            PinnedRates rates = debit.rateDate() != null
+                    ? new PinnedRates(() -> exchangeRateService.snapshotOn(debit.rateDate()))
+                    : pinRates();
+            shard(debit.counterpartyId()).send(new LedgerCommand.Credit(debit, rates, null, credit));
+            credits.add(credit);
+        }
+        for (CompletableFuture<Transaction> credit : credits) {
+            credit.handle((tx, e) -> null).join();
+        }
+        flush();
+        log.info("Ledger started with {} shards, replayed {} journal records, re-issued {} cross-shard credits",
+                shardCount, replayedRecords.size(), owedCredits.size());
+    }
+
+    private List<Path> shardDirectories() throws IOException {
+        if (!Files.isDirectory(journalDir)) {
+            return List.of();
+        }
+        try (Stream<Path> dirs = Files.list(journalDir)) {
+            return dirs.filter(Files::isDirectory)
+                       .filter(dir -> dir.getFileName().toString().matches(SHARD_DIR_PREFIX + "\\d+"))
+                       .sorted()
+                       .toList();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Final ledger flush failed, the journal will be replayed on next start: {}", e.getMessage());
+        }
+        for (LedgerShard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    /**
+     * Stops the shards without a final flush, leaving the database behind the journal as a crash would.
+     */
+    public void halt() {
+        running = false;
+        flusher.shutdownNow();
+        for (LedgerShard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Start before the web server accepts requests and stop after it has drained them.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
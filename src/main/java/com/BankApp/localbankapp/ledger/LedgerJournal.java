@@ -0,0 +1,193 @@
+package com.BankApp.localbankapp.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only write-ahead journal of one shard, split into segment files named after their first sequence
+ * number. Appends are staged in memory and written by {@link #commit()}, once per batch of commands, so one
+ * {@code fsync} covers the whole batch. Only the owning shard thread appends.
+ *
+ * <p>After a failed write or segment open the journal accepts no more writes: the failed batch may be partly on
+ * disk, so nothing staged after it may be reported as durable.
+ *
+ * @author Alexander Brazhkin
+ */
+@Slf4j
+public class LedgerJournal implements AutoCloseable {
+    private static final String SUFFIX = ".wal";
+
+    private final Path dir;
+    private final boolean fsync;
+    private ByteBuffer staged = ByteBuffer.allocateDirect(LedgerRecord.SIZE * 256);
+    private FileChannel segment;
+    private Path segmentPath;
+    private long segmentFirstSeq;
+    private final List<Path> closedSegments = new ArrayList<>();
+    private long nextSeq;
+    private UncheckedIOException failure;
+
+    public LedgerJournal(Path dir, long nextSeq, boolean fsync) {
+        this.dir = dir;
+        this.nextSeq = nextSeq;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(dir);
+            openSegment();
+            // segments left by a previous run are obsolete once the first checkpoint after recovery is written
+            segments(dir).stream().filter(p -> !p.equals(segmentPath)).forEach(closedSegments::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open ledger journal in " + dir, e);
+        }
+    }
+
+    public long nextSeq() {
+        return nextSeq++;
+    }
+
+    /**
+     * Sequence number of the last record handed out, 0 if none.
+     */
+    public long lastSeq() {
+        return nextSeq - 1;
+    }
+
+    public void append(LedgerRecord record) {
+        if (staged.remaining() < LedgerRecord.SIZE) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(staged.capacity() * 2);
+            grown.put(staged.flip());
+            staged = grown;
+        }
+        record.writeTo(staged);
+    }
+
+    /**
+     * Writes everything appended since the last commit and, unless disabled, forces it to disk. The staged records
+     * are dropped only once both succeeded.
+     */
+    public void commit() {
+        requireHealthy();
+        if (staged.position() == 0) {
+            return;
+        }
+        staged.flip();
+        try {
+            while (staged.hasRemaining()) {
+                segment.write(staged);
+            }
+            if (fsync) {
+                segment.force(false);
+            }
+        } catch (IOException e) {
+            staged.position(staged.limit()).limit(staged.capacity());
+            failure = new UncheckedIOException("Cannot write ledger journal segment " + segmentPath, e);
+            throw failure;
+        }
+        staged.clear();
+    }
+
+    /**
+     * Commits and, if the current segment holds any record, starts a new one.
+     *
+     * @return every closed segment, all of which hold only records older than the current segment
+     */
+    public List<Path> roll() {
+        commit();
+        if (nextSeq > segmentFirstSeq) {
+            closeSegment();
+            closedSegments.add(segmentPath);
+            openSegment();
+        }
+        List<Path> closed = List.copyOf(closedSegments);
+        closedSegments.clear();
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (failure == null) {
+                commit();
+            }
+        } finally {
+            closeSegment();
+        }
+    }
+
+    private void requireHealthy() {
+        if (failure != null) {
+            throw new UncheckedIOException("Ledger journal in " + dir + " stopped after a failed write", failure.getCause());
+        }
+    }
+
+    private void openSegment() {
+        segmentPath = dir.resolve(String.format("%020d%s", nextSeq, SUFFIX));
+        segmentFirstSeq = nextSeq;
+        try {
+            segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            failure = new UncheckedIOException("Cannot open ledger journal segment " + segmentPath, e);
+            throw failure;
+        }
+    }
+
+    private void closeSegment() {
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.warn("Failed to close ledger journal segment {}: {}", segmentPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Segments in {@code dir}, oldest first.
+     */
+    public static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    /**
+     * Reads every intact record in {@code dir}. A segment is read up to its first incomplete or corrupt record,
+     * which can only be the tail of a write interrupted by a crash.
+     */
+    public static List<LedgerRecord> read(Path dir) throws IOException {
+        List<LedgerRecord> records = new ArrayList<>();
+        for (Path path : segments(dir)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            LedgerRecord record;
+            while ((record = LedgerRecord.readFrom(buffer)) != null) {
+                records.add(record);
+            }
+            if (buffer.hasRemaining()) {
+                log.warn("Ignoring {} bytes of torn ledger journal tail in {}", buffer.remaining(), path);
+            }
+        }
+        return records;
+    }
+
+    public static void delete(List<Path> segments) {
+        for (Path path : segments) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Failed to delete ledger journal segment {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
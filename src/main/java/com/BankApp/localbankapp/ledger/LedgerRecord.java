@@ -0,0 +1,200 @@
+package com.BankApp.localbankapp.ledger;
+
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.EntryDirection;
+import com.BankApp.localbankapp.model.LedgerEntry;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * One applied balance change as written to a shard's journal. Records are fixed-size and checksummed so
+ * a torn write at the end of a segment is detected and dropped on replay.
+ *
+ * <p>Balance effects are plain deltas in minor units, so replaying records in any order on top of the last
+ * flushed balances yields the same result.
+ *
+ * @author Alexander Brazhkin
+ */
+public record LedgerRecord(long seq,
+                           Kind kind,
+                           long transactionId,
+                           long accountId,
+                           long counterpartyId,
+                           long debitMinor,
+                           long creditMinor,
+                           long amountMinor,
+                           Currency fromCurrency,
+                           Currency toCurrency,
+                           LocalDate rateDate,
+                           long timestampMillis) {
+
+    public static final int SIZE = 8 + 1 + 8 * 6 + 2 + 8 + 8 + 4;
+
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    public enum Kind {
+        /** {@code accountId} credited with {@code creditMinor}. */
+        DEPOSIT,
+        /** {@code accountId} debited with {@code debitMinor}. */
+        WITHDRAWAL,
+        /** Both accounts live on this shard: {@code accountId} debited, {@code counterpartyId} credited. */
+        TRANSFER,
+        /**
+         * First leg of a cross-shard transfer: {@code accountId} debited. Until a matching {@link #TRANSFER_IN} or
+         * {@link #TRANSFER_REFUND} exists, the credit of {@code creditMinor} in {@code toCurrency} is owed to
+         * {@code counterpartyId}.
+         */
+        TRANSFER_OUT,
+        /** Second leg of a cross-shard transfer: {@code accountId} credited, {@code counterpartyId} is the source. */
+        TRANSFER_IN,
+        /** The target rejected a cross-shard credit: {@code accountId}, the source, gets its debit back. */
+        TRANSFER_REFUND
+    }
+
+    /**
+     * Balance change this record applies to {@code id}.
+     */
+    public long deltaFor(long id) {
+        return switch (kind) {
+            case DEPOSIT, TRANSFER_IN, TRANSFER_REFUND -> id == accountId ? creditMinor : 0L;
+            case WITHDRAWAL, TRANSFER_OUT -> id == accountId ? -debitMinor : 0L;
+            case TRANSFER -> (id == accountId ? -debitMinor : 0L) + (id == counterpartyId ? creditMinor : 0L);
+        };
+    }
+
+    /**
+     * The {@code transactions} row this record completes, or {@code null} for the first leg of a cross-shard
+     * transfer and for refunds. Accounts are references carrying only their id.
+     */
+    public Transaction toTransaction() {
+        Transaction tx = new Transaction();
+        switch (kind) {
+            case DEPOSIT -> describe(tx, TransactionType.DEPOSIT, "Deposit", null, reference(accountId));
+            case WITHDRAWAL -> describe(tx, TransactionType.WITHDRAWAL, "Withdrawal", reference(accountId), null);
+            case TRANSFER -> describe(tx, TransactionType.TRANSFER, "Transfer",
+                    reference(accountId), reference(counterpartyId));
+            case TRANSFER_IN -> describe(tx, TransactionType.TRANSFER, "Transfer",
+                    reference(counterpartyId), reference(accountId));
+            case TRANSFER_OUT, TRANSFER_REFUND -> {
+                return null;
+            }
+        }
+        tx.setId(transactionId);
+        tx.setAmount(Ledger.fromMinor(amountMinor));
+        tx.setFromCurrency(fromCurrency);
+        tx.setToCurrency(toCurrency);
+        tx.setRateDate(rateDate);
+        tx.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault()));
+        return tx;
+    }
+
+    /**
+     * The {@code ledger_entries} rows for this record's balance effects, given the currencies of {@code accountId}
+     * and {@code counterpartyId}. The transaction is a reference carrying only its id.
+     */
+    public List<LedgerEntry> toEntries(Currency accountCurrency, Currency counterpartyCurrency) {
+        Transaction tx = new Transaction();
+        tx.setId(transactionId);
+        LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault());
+        return switch (kind) {
+            case DEPOSIT -> List.of(entry(tx, accountId, EntryDirection.CREDIT, creditMinor, accountCurrency,
+                    toCurrency, createdAt));
+            case WITHDRAWAL, TRANSFER_OUT -> List.of(entry(tx, accountId, EntryDirection.DEBIT, debitMinor,
+                    accountCurrency, fromCurrency, createdAt));
+            case TRANSFER_IN, TRANSFER_REFUND -> List.of(entry(tx, accountId, EntryDirection.CREDIT, creditMinor,
+                    accountCurrency, fromCurrency, createdAt));
+            case TRANSFER -> List.of(
+                    entry(tx, accountId, EntryDirection.DEBIT, debitMinor, accountCurrency, fromCurrency, createdAt),
+                    entry(tx, counterpartyId, EntryDirection.CREDIT, creditMinor, counterpartyCurrency, fromCurrency,
+                            createdAt));
+        };
+    }
+
+    private LedgerEntry entry(Transaction tx, long id, EntryDirection direction, long minor, Currency currency,
+                              Currency operationCurrency, LocalDateTime createdAt) {
+        LedgerEntry entry = new LedgerEntry(tx, id, direction, Ledger.fromMinor(minor), currency,
+                Ledger.fromMinor(amountMinor), operationCurrency != null ? operationCurrency : currency);
+        entry.setCreatedAt(createdAt);
+        return entry;
+    }
+
+    private static void describe(Transaction tx, TransactionType type, String description,
+                                 BankAccount from, BankAccount to) {
+        tx.setType(type);
+        tx.setDescription(description);
+        tx.setFromAccount(from);
+        tx.setToAccount(to);
+    }
+
+    private static BankAccount reference(long id) {
+        BankAccount account = new BankAccount();
+        account.setId(id);
+        account.setBalance(null);
+        account.setActive(null);
+        return account;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putLong(seq)
+              .put((byte) kind.ordinal())
+              .putLong(transactionId)
+              .putLong(accountId)
+              .putLong(counterpartyId)
+              .putLong(debitMinor)
+              .putLong(creditMinor)
+              .putLong(amountMinor)
+              .put(fromCurrency == null ? -1 : (byte) fromCurrency.ordinal())
+              .put(toCurrency == null ? -1 : (byte) toCurrency.ordinal())
+              .putLong(rateDate == null ? NO_DATE : rateDate.toEpochDay())
+              .putLong(timestampMillis);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start, SIZE - 4));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Reads the record at the buffer's position, or returns {@code null} if it is incomplete or corrupt.
+     */
+    public static LedgerRecord readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < SIZE) {
+            return null;
+        }
+        int start = buffer.position();
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start, SIZE - 4));
+        if (buffer.getInt(start + SIZE - 4) != (int) crc.getValue()) {
+            return null;
+        }
+        long seq = buffer.getLong();
+        int kind = buffer.get();
+        if (kind < 0 || kind >= Kind.values().length) {
+            return null;
+        }
+        LedgerRecord record = new LedgerRecord(seq, Kind.values()[kind],
+                buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                currency(buffer.get()), currency(buffer.get()),
+                date(buffer.getLong()), buffer.getLong());
+        buffer.getInt();
+        return record;
+    }
+
+    private static Currency currency(byte ordinal) {
+        return ordinal < 0 ? null : CURRENCIES[ordinal];
+    }
+
+    private static LocalDate date(long epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
@@ -0,0 +1,377 @@
+package com.BankApp.localbankapp.ledger;
+
+import com.BankApp.localbankapp.currency.PinnedRates;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.exception.LedgerUnavailableException;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.LedgerEntry;
+import com.BankApp.localbankapp.model.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Owns the balances of every account that maps to it and is the only thread that changes them. Commands are
+ * applied one at a time in arrival order, so no locks are needed; every applied change is appended to the
+ * journal, and results are released only after the batch they belong to has been committed to it.
+ *
+ * @author Alexander Brazhkin
+ */
+@Slf4j
+final class LedgerShard implements Runnable {
+    private final int index;
+    private final LedgerEngine engine;
+    private final LedgerJournal journal;
+    private final RingBuffer<LedgerCommand> commands;
+    private final ConcurrentLinkedQueue<LedgerCommand> mailbox = new ConcurrentLinkedQueue<>();
+    private final int batchSize;
+    private final Thread thread;
+    private final Map<Long, AccountState> accounts = new HashMap<>();
+    private final List<Completion> pending = new ArrayList<>();
+    private List<Transaction> completed = new ArrayList<>();
+    private List<LedgerEntry> entries = new ArrayList<>();
+    private volatile boolean running = true;
+    private volatile Throwable failure;
+
+    LedgerShard(int index, LedgerEngine engine, LedgerJournal journal, int ringSize, int batchSize) {
+        this.index = index;
+        this.engine = engine;
+        this.journal = journal;
+        this.commands = new RingBuffer<>(ringSize);
+        this.batchSize = batchSize;
+        this.thread = new Thread(this, "ledger-shard-" + index);
+    }
+
+    /**
+     * Installs recovered state. Only valid before {@link #start()}.
+     */
+    void seed(AccountState account) {
+        accounts.put(account.id, account);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Publishes a client command, or returns {@code false} if the ring is full.
+     */
+    boolean offer(LedgerCommand command) {
+        requireHealthy();
+        return commands.offer(command);
+    }
+
+    /**
+     * Queues a leg from another shard. The mailbox is unbounded so two shards sending to each other never block.
+     */
+    void send(LedgerCommand command) {
+        mailbox.add(command);
+        commands.wake();
+    }
+
+    void requireHealthy() {
+        if (failure != null) {
+            throw new LedgerUnavailableException("Ledger shard " + index + " stopped after a journal failure", failure);
+        }
+    }
+
+    /**
+     * Lets the shard finish everything already queued, then closes its journal.
+     */
+    void stop() {
+        running = false;
+        commands.wake();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    @Override
+    public void run() {
+        while (failure == null) {
+            int applied = 0;
+            LedgerCommand leg;
+            while ((leg = mailbox.poll()) != null) {
+                dispatch(leg);
+                applied++;
+            }
+            applied += commands.drain(this::dispatch, batchSize);
+            if (applied == 0) {
+                if (!running) {
+                    return;
+                }
+                commands.await();
+                continue;
+            }
+            commitBatch();
+        }
+        rejectQueued();
+    }
+
+    private void commitBatch() {
+        try {
+            journal.commit();
+        } catch (RuntimeException e) {
+            journalFailed(e);
+            return;
+        }
+        for (Completion completion : pending) {
+            completion.onCommit().run();
+        }
+        pending.clear();
+    }
+
+    /**
+     * Stops the shard after a journal failure. Every result still waiting for a commit is failed, since its records
+     * may never reach the journal.
+     */
+    private void journalFailed(RuntimeException e) {
+        if (failure == null) {
+            log.error("Ledger shard {} cannot write its journal and stops; restart to recover", index, e);
+            failure = e;
+        }
+        LedgerUnavailableException unavailable =
+                new LedgerUnavailableException("Ledger journal write failed, operation was not applied", e);
+        pending.forEach(completion -> fail(completion.result(), unavailable));
+        pending.clear();
+    }
+
+    private void rejectQueued() {
+        LedgerUnavailableException unavailable = new LedgerUnavailableException("Ledger shard " + index + " is stopped");
+        LedgerCommand command;
+        while ((command = mailbox.poll()) != null) {
+            fail(command.result(), unavailable);
+        }
+        commands.drain(queued -> fail(queued.result(), unavailable), Integer.MAX_VALUE);
+    }
+
+    private void dispatch(LedgerCommand command) {
+        if (failure != null) {
+            fail(command.result(), new LedgerUnavailableException("Ledger shard " + index + " is stopped", failure));
+            return;
+        }
+        try {
+            switch (command) {
+                case LedgerCommand.Deposit deposit -> deposit(deposit);
+                case LedgerCommand.Withdrawal withdrawal -> withdraw(withdrawal);
+                case LedgerCommand.Transfer transfer -> transfer(transfer);
+                case LedgerCommand.Credit credit -> credit(credit);
+                case LedgerCommand.Refund refund -> refund(refund);
+                case LedgerCommand.Balance balance -> balance(balance);
+                case LedgerCommand.Flush flush -> flush(flush);
+            }
+        } catch (RuntimeException e) {
+            // every handler validates before touching state, so nothing was applied
+            fail(command.result(), e);
+        }
+    }
+
+    private void deposit(LedgerCommand.Deposit command) {
+        TransactionDTO dto = command.dto();
+        AccountState account = activeAccount(dto.getToAccountId(), "Deposit account is not found");
+        Currency currency = dto.getToCurrency() != null ? dto.getToCurrency() : account.currency;
+        long creditMinor = Ledger.toMinor(command.rates().convert(dto.getAmount(), currency, account.currency));
+
+        LedgerRecord record = new LedgerRecord(journal.nextSeq(), LedgerRecord.Kind.DEPOSIT, command.transactionId(),
+                account.id, 0L, 0L, creditMinor, Ledger.toMinor(dto.getAmount()),
+                null, currency, command.rates().rateDate(), System.currentTimeMillis());
+        apply(record);
+        complete(record, null, account.view(), command.result());
+    }
+
+    private void withdraw(LedgerCommand.Withdrawal command) {
+        TransactionDTO dto = command.dto();
+        AccountState account = activeAccount(dto.getFromAccountId(), "Withdrawal account is not found");
+        Currency currency = dto.getFromCurrency() != null ? dto.getFromCurrency() : account.currency;
+        long debitMinor = Ledger.toMinor(command.rates().convert(dto.getAmount(), currency, account.currency));
+        requireFunds(account, debitMinor);
+
+        LedgerRecord record = new LedgerRecord(journal.nextSeq(), LedgerRecord.Kind.WITHDRAWAL, command.transactionId(),
+                account.id, 0L, debitMinor, 0L, Ledger.toMinor(dto.getAmount()),
+                currency, null, command.rates().rateDate(), System.currentTimeMillis());
+        apply(record);
+        complete(record, account.view(), null, command.result());
+    }
+
+    private void transfer(LedgerCommand.Transfer command) {
+        TransactionDTO dto = command.dto();
+        PinnedRates rates = command.rates();
+        AccountState source = activeAccount(dto.getFromAccountId(), "Source account not found");
+        Currency fromCurrency = dto.getFromCurrency() != null ? dto.getFromCurrency() : source.currency;
+        long debitMinor = Ledger.toMinor(rates.convert(dto.getAmount(), fromCurrency, source.currency));
+        requireFunds(source, debitMinor);
+
+        long targetId = dto.getToAccountId();
+        if (engine.shardOf(targetId) == index) {
+            AccountState target = activeAccount(targetId, "Target account not found");
+            Currency toCurrency = dto.getToCurrency() != null ? dto.getToCurrency() : target.currency;
+            BigDecimal received = rates.convert(dto.getAmount(), fromCurrency, toCurrency);
+            long creditMinor = Ledger.toMinor(rates.convert(received, toCurrency, target.currency));
+
+            LedgerRecord record = new LedgerRecord(journal.nextSeq(), LedgerRecord.Kind.TRANSFER,
+                    command.transactionId(), source.id, target.id, debitMinor, creditMinor,
+                    Ledger.toMinor(dto.getAmount()), fromCurrency, toCurrency, rates.rateDate(),
+                    System.currentTimeMillis());
+            apply(record);
+            complete(record, source.view(), target.view(), command.result());
+            return;
+        }
+
+        // cross-shard: debit here, and once that is durable the target shard owes the credit
+        Currency creditCurrency = dto.getToCurrency() != null ? dto.getToCurrency() : fromCurrency;
+        long creditMinor = Ledger.toMinor(rates.convert(dto.getAmount(), fromCurrency, creditCurrency));
+        LedgerRecord record = new LedgerRecord(journal.nextSeq(), LedgerRecord.Kind.TRANSFER_OUT,
+                command.transactionId(), source.id, targetId, debitMinor, creditMinor,
+                Ledger.toMinor(dto.getAmount()), fromCurrency, dto.getToCurrency(), rates.rateDate(),
+                System.currentTimeMillis());
+        apply(record);
+        BankAccount sourceView = source.view();
+        pending.add(new Completion(command.result(), () -> engine.shard(targetId)
+                .send(new LedgerCommand.Credit(record, rates, sourceView, command.result()))));
+    }
+
+    private void credit(LedgerCommand.Credit command) {
+        LedgerRecord debit = command.debit();
+        AccountState target;
+        long creditMinor;
+        try {
+            target = activeAccount(debit.counterpartyId(), "Target account not found");
+            Currency creditCurrency = debit.toCurrency() != null ? debit.toCurrency() : debit.fromCurrency();
+            creditMinor = Ledger.toMinor(command.rates()
+                    .convert(Ledger.fromMinor(debit.creditMinor()), creditCurrency, target.currency));
+        } catch (RuntimeException e) {
+            engine.shard(debit.accountId()).send(new LedgerCommand.Refund(debit, e, command.result()));
+            return;
+        }
+
+        LedgerRecord record = new LedgerRecord(journal.nextSeq(), LedgerRecord.Kind.TRANSFER_IN,
+                debit.transactionId(), target.id, debit.accountId(), 0L, creditMinor, debit.amountMinor(),
+                debit.fromCurrency(), debit.toCurrency() != null ? debit.toCurrency() : target.currency,
+                command.rates().rateDate(), debit.timestampMillis());
+        apply(record);
+        complete(record, command.source(), target.view(), command.result());
+    }
+
+    private void refund(LedgerCommand.Refund command) {
+        LedgerRecord debit = command.debit();
+        AccountState source = account(debit.accountId(), "Source account not found");
+        LedgerRecord record = new LedgerRecord(journal.nextSeq(), LedgerRecord.Kind.TRANSFER_REFUND,
+                debit.transactionId(), source.id, debit.counterpartyId(), 0L, debit.debitMinor(), debit.amountMinor(),
+                debit.fromCurrency(), debit.toCurrency(), null, System.currentTimeMillis());
+        apply(record);
+        pending.add(new Completion(command.result(), () -> fail(command.result(), command.reason())));
+    }
+
+    private void balance(LedgerCommand.Balance command) {
+        BigDecimal balance = account(command.accountId(), "Account not found with id: " + command.accountId()).balance();
+        pending.add(new Completion(command.result(), () -> command.result().complete(balance)));
+    }
+
+    private void flush(LedgerCommand.Flush command) {
+        List<Path> closedSegments;
+        try {
+            closedSegments = journal.roll();
+        } catch (RuntimeException e) {
+            journalFailed(e);
+            fail(command.result(), new LedgerUnavailableException("Ledger shard " + index + " is stopped", e));
+            return;
+        }
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (AccountState account : accounts.values()) {
+            if (account.dirty) {
+                balances.put(account.id, account.balance());
+                account.dirty = false;
+            }
+        }
+        List<Transaction> transactions = completed;
+        completed = new ArrayList<>();
+        List<LedgerEntry> recorded = entries;
+        entries = new ArrayList<>();
+        command.result().complete(new ShardFlush(index, journal.lastSeq(), balances, transactions, recorded,
+                closedSegments));
+    }
+
+    private void apply(LedgerRecord record) {
+        journal.append(record);
+        AccountState account = accounts.get(record.accountId());
+        account.apply(record.deltaFor(record.accountId()));
+        Currency counterpartyCurrency = null;
+        if (record.kind() == LedgerRecord.Kind.TRANSFER) {
+            AccountState counterparty = accounts.get(record.counterpartyId());
+            if (record.counterpartyId() != record.accountId()) {
+                counterparty.apply(record.deltaFor(record.counterpartyId()));
+            }
+            counterpartyCurrency = counterparty.currency;
+        }
+        entries.addAll(record.toEntries(account.currency, counterpartyCurrency));
+    }
+
+    private void complete(LedgerRecord record, BankAccount from, BankAccount to,
+                          CompletableFuture<Transaction> result) {
+        Transaction row = record.toTransaction();
+        completed.add(row);
+
+        Transaction response = record.toTransaction();
+        response.setFromAccount(from != null ? from : response.getFromAccount());
+        response.setToAccount(to != null ? to : response.getToAccount());
+        pending.add(new Completion(result, () -> {
+            if (result != null) {
+                result.complete(response);
+            }
+        }));
+    }
+
+    private AccountState account(long id, String notFoundMessage) {
+        AccountState account = accounts.get(id);
+        if (account == null) {
+            account = engine.loadAccount(id);
+            if (account == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, notFoundMessage);
+            }
+            accounts.put(id, account);
+        }
+        return account;
+    }
+
+    private AccountState activeAccount(Long id, String notFoundMessage) {
+        if (id == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, notFoundMessage);
+        }
+        AccountState account = account(id, notFoundMessage);
+        if (!account.active) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Account is not active");
+        }
+        return account;
+    }
+
+    private static void requireFunds(AccountState account, long debitMinor) {
+        if (account.balanceMinor < debitMinor) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient funds");
+        }
+    }
+
+    private static void fail(CompletableFuture<?> result, Throwable cause) {
+        if (result != null) {
+            result.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Result released once the journal batch holding its records is committed.
+     */
+    private record Completion(CompletableFuture<?> result, Runnable onCommit) {
+    }
+}
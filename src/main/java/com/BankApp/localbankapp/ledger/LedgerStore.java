@@ -0,0 +1,183 @@
+package com.BankApp.localbankapp.ledger;
+
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.LedgerEntry;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.util.BalanceCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Database side of the ledger: loads account balances on first use and writes flushes. Plain JDBC, since the
+ * rows are produced outside any persistence context and are written in large batches.
+ *
+ * @author Alexander Brazhkin
+ */
+@Component
+@ConditionalOnProperty(name = "app.ledger.enabled", havingValue = "true")
+public class LedgerStore {
+    private static final String INSERT_TRANSACTION = """
+            insert into transactions (id, amount, from_account_id, to_account_id, type, description,
+                                      transaction_date, from_currency, to_currency, rate_date, status)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'COMPLETED')""";
+    private static final String INSERT_ENTRY = """
+            insert into ledger_entries (id, transaction_id, account_id, direction, amount, currency, rate, created_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceCache balanceCache;
+    private final IdBlock transactionIds = new IdBlock("transactions_id_seq", Transaction.ID_ALLOCATION_SIZE);
+    private final IdBlock entryIds = new IdBlock("ledger_entries_id_seq", LedgerEntry.ID_ALLOCATION_SIZE);
+
+    public LedgerStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       BalanceCache balanceCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.balanceCache = balanceCache;
+    }
+
+    /**
+     * @return the account as of the last flush, or {@code null} if it does not exist or is striped; the engine
+     * keeps one balance per account and does not manage stripes
+     */
+    AccountState loadAccount(long id) {
+        return jdbcTemplate.query("""
+                        select id, account_number, currency, balance, active
+                        from bank_accounts where id = ? and (stripe_count is null or stripe_count <= 1)""",
+                rs -> rs.next() ? new AccountState(rs.getLong("id"), rs.getString("account_number"),
+                        Currency.valueOf(rs.getString("currency")), !Boolean.FALSE.equals(rs.getObject("active", Boolean.class)),
+                        Ledger.toMinor(rs.getBigDecimal("balance"))) : null,
+                id);
+    }
+
+    Map<Integer, Long> loadCheckpoints() {
+        Map<Integer, Long> checkpoints = new HashMap<>();
+        jdbcTemplate.query("select shard, journal_seq from ledger_checkpoints",
+                rs -> {
+                    checkpoints.put(rs.getInt("shard"), rs.getLong("journal_seq"));
+                });
+        return checkpoints;
+    }
+
+    Set<Long> existingTransactionIds(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        if (!ids.isEmpty()) {
+            namedJdbcTemplate.query("select id from transactions where id in (:ids)",
+                    new MapSqlParameterSource("ids", ids),
+                    rs -> {
+                        existing.add(rs.getLong("id"));
+                    });
+        }
+        return existing;
+    }
+
+    /**
+     * Takes ids from {@code transactions_id_seq}; see {@link IdBlock}.
+     */
+    public long nextTransactionId() {
+        return transactionIds.next();
+    }
+
+    /**
+     * Writes balances, completed transactions, ledger entries and shard checkpoints atomically.
+     */
+    void write(Map<Long, BigDecimal> balances, List<Transaction> transactions, List<LedgerEntry> entries,
+               Map<Integer, Long> checkpoints) {
+        List<Object[]> balanceRows = new ArrayList<>(balances.size());
+        balances.forEach((id, balance) -> balanceRows.add(new Object[]{balance, id}));
+        List<Object[]> transactionRows = new ArrayList<>(transactions.size());
+        for (Transaction tx : transactions) {
+            transactionRows.add(new Object[]{
+                    tx.getId(),
+                    tx.getAmount(),
+                    tx.getFromAccount() != null ? tx.getFromAccount().getId() : null,
+                    tx.getToAccount() != null ? tx.getToAccount().getId() : null,
+                    tx.getType().name(),
+                    tx.getDescription(),
+                    Timestamp.valueOf(tx.getTimestamp()),
+                    tx.getFromCurrency() != null ? tx.getFromCurrency().name() : null,
+                    tx.getToCurrency() != null ? tx.getToCurrency().name() : null,
+                    tx.getRateDate() != null ? Date.valueOf(tx.getRateDate()) : null
+            });
+        }
+        List<Object[]> entryRows = new ArrayList<>(entries.size());
+        for (LedgerEntry entry : entries) {
+            entryRows.add(new Object[]{
+                    entryIds.next(),
+                    entry.getTransaction().getId(),
+                    entry.getAccountId(),
+                    entry.getDirection().name(),
+                    entry.getAmount(),
+                    entry.getCurrency().name(),
+                    entry.getRate(),
+                    Timestamp.valueOf(entry.getCreatedAt())
+            });
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!balanceRows.isEmpty()) {
+                jdbcTemplate.batchUpdate("update bank_accounts set balance = ?, version = version + 1 where id = ?", balanceRows);
+                balanceCache.evictAfterCommit(List.copyOf(balances.keySet()));
+            }
+            if (!transactionRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactionRows);
+            }
+            if (!entryRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ENTRY, entryRows);
+            }
+            checkpoints.forEach((shard, seq) -> {
+                if (jdbcTemplate.update("update ledger_checkpoints set journal_seq = ?, updated_at = ? where shard = ?",
+                        seq, now, shard) == 0) {
+                    jdbcTemplate.update("insert into ledger_checkpoints (shard, journal_seq, updated_at) values (?, ?, ?)",
+                            shard, seq, now);
+                }
+            });
+        });
+    }
+
+    /**
+     * Ids taken from a sequence in blocks, reading each sequence value {@code v} the way Hibernate's pooled
+     * optimizer does, as the block ending at {@code v}, so JPA inserts never collide with ledger inserts.
+     */
+    private final class IdBlock {
+        private final String sequence;
+        private final int allocationSize;
+        private long next;
+        private long last = -1;
+
+        IdBlock(String sequence, int allocationSize) {
+            this.sequence = sequence;
+            this.allocationSize = allocationSize;
+        }
+
+        synchronized long next() {
+            if (next > last) {
+                Long value = jdbcTemplate.queryForObject("select nextval('" + sequence + "')", Long.class);
+                last = value;
+                next = Math.max(1, value - allocationSize + 1);
+            }
+            return next++;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.BankApp.localbankapp.ledger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated slots. Producers claim a sequence with one CAS
+ * and publish into its slot; the consumer drains published slots in sequence order without locks and parks
+ * only when the ring is empty.
+ *
+ * @author Alexander Brazhkin
+ */
+public class RingBuffer<E> {
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile Thread consumer;
+    private volatile boolean consumerWaiting;
+
+    public RingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two, got " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Publishes {@code element}, or returns {@code false} if the ring is full.
+     */
+    public boolean offer(E element) {
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(seq, seq + 1));
+        slots.set((int) seq & mask, element);
+        if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Passes up to {@code limit} published elements to {@code sink} in publication order.
+     * Must only be called from the consumer thread.
+     *
+     * @return the number of elements drained
+     */
+    public int drain(Consumer<? super E> sink, int limit) {
+        long seq = head;
+        int drained = 0;
+        while (drained < limit) {
+            int slot = (int) seq & mask;
+            E element = slots.get(slot);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(slot, null);
+            head = ++seq;
+            sink.accept(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Parks the consumer thread until something is published, {@link #wake()} is called or about a millisecond
+     * passes.
+     */
+    public void await() {
+        consumer = Thread.currentThread();
+        consumerWaiting = true;
+        if (slots.get((int) head & mask) == null) {
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        }
+        consumerWaiting = false;
+    }
+
+    public void wake() {
+        Thread waiting = consumer;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
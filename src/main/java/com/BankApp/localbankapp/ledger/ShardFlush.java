@@ -0,0 +1,24 @@
+package com.BankApp.localbankapp.ledger;
+
+import com.BankApp.localbankapp.model.LedgerEntry;
+import com.BankApp.localbankapp.model.Transaction;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a shard hands to the flush: balances changed, transactions completed and ledger entries recorded since its
+ * previous flush, up to
+ * and including journal record {@code journalSeq}, and the journal segments that become obsolete once it is written.
+ *
+ * @author Alexander Brazhkin
+ */
+record ShardFlush(int shard,
+                  long journalSeq,
+                  Map<Long, BigDecimal> balances,
+                  List<Transaction> transactions,
+                  List<LedgerEntry> entries,
+                  List<Path> closedSegments) {
+}
@@ -28,4 +28,18 @@ public class TransactionMapper {
         tx.setTimestamp(LocalDateTime.now());
         return tx;
     }
+
+    /**
+     * Rebuilds the request a pending transaction was submitted with. Reading the ids does not initialise
+     * the account proxies.
+     */
+    public static TransactionDTO toDto(Transaction tx) {
+        return new TransactionDTO(
+                tx.getFromAccount() != null ? tx.getFromAccount().getId() : null,
+                tx.getToAccount() != null ? tx.getToAccount().getId() : null,
+                tx.getAmount(),
+                tx.getFromCurrency(),
+                tx.getToCurrency()
+        );
+    }
 }
\ No newline at end of file
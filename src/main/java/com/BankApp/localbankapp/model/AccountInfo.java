@@ -0,0 +1,47 @@
+package com.BankApp.localbankapp.model;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+
+/**
+ * The parts of a {@link BankAccount} that never change once it is opened, held in the second-level cache.
+ * Mapped through a subselect without synchronised tables, so the bulk balance updates on {@code bank_accounts}
+ * do not evict the region the way they would for an entity mapped to the table itself.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Subselect("select id, account_number, currency, user_id from bank_accounts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = AccountInfo.CACHE_REGION)
+public class AccountInfo {
+    public static final String CACHE_REGION = "accountInfo";
+
+    @Id
+    private Long id;
+
+    @Column(name = "account_number")
+    private String accountNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "currency")
+    private Currency currency;
+
+    @Column(name = "user_id")
+    private Long userId;
+}
@@ -0,0 +1,27 @@
+package com.BankApp.localbankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One sub-balance of a striped account. A striped account's balance is its own {@code balance} column plus the
+ * sum of its stripes, so concurrent operations on it update different rows.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "account_stripes")
+public class AccountStripe {
+    @EmbeddedId
+    private AccountStripeId id;
+
+    @Column(nullable = false)
+    private BigDecimal balance = BigDecimal.ZERO;
+}
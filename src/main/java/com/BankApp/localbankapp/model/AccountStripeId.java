@@ -0,0 +1,24 @@
+package com.BankApp.localbankapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class AccountStripeId implements Serializable {
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "stripe", nullable = false)
+    private Integer stripe;
+}
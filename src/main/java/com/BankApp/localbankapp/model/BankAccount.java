@@ -1,9 +1,12 @@
 package com.BankApp.localbankapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 
 /**
@@ -14,9 +17,11 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @Entity
 @Table(name = "bank_accounts")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class BankAccount {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_accounts_id_seq")
+    @SequenceGenerator(name = "bank_accounts_id_seq", sequenceName = "bank_accounts_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -35,4 +40,28 @@ public class BankAccount {
 
     @Column
     private Boolean active = true;
+
+    /**
+     * Number of {@link AccountStripe} rows holding this account's balance, {@code null} if it is not striped.
+     */
+    @Column(name = "stripe_count")
+    private Integer stripeCount;
+
+    /**
+     * Bumped on every balance change, including the bulk updates in {@code AccountRepository}.
+     */
+    @JsonIgnore
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
+    @JsonIgnore
+    public boolean isStriped() {
+        return isStriped(stripeCount);
+    }
+
+    public static boolean isStriped(Integer stripeCount) {
+        return stripeCount != null && stripeCount > 1;
+    }
 }
@@ -0,0 +1,10 @@
+package com.BankApp.localbankapp.model;
+
+/**
+ * Side of a {@link LedgerEntry}: a debit lowers the account's balance, a credit raises it.
+ *
+ * @author Alexander Brazhkin
+ */
+public enum EntryDirection {
+    DEBIT, CREDIT
+}
@@ -0,0 +1,30 @@
+package com.BankApp.localbankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * CBR rate of one currency for one feed date, in roubles per unit.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "exchange_rates")
+public class ExchangeRate {
+    @EmbeddedId
+    private ExchangeRateId id;
+
+    @Column(name = "rub_per_unit", nullable = false, precision = 19, scale = 6)
+    private BigDecimal rubPerUnit;
+
+    @Column(name = "fetched_at", nullable = false)
+    private Instant fetchedAt;
+}
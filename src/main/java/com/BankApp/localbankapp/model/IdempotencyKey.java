@@ -0,0 +1,58 @@
+package com.BankApp.localbankapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A client-supplied {@code Idempotency-Key} and the transaction its first request produced. Stored in the same
+ * database transaction as the money movement, so the primary key is what finally rejects a duplicate.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyKey implements Persistable<String> {
+    @Id
+    @Column(name = "idempotency_key", length = 200)
+    private String key;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransactionType operation;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Transient
+    private boolean isNew = true;
+
+    public IdempotencyKey(String key, TransactionType operation, String requestHash, Long transactionId) {
+        this.key = key;
+        this.operation = operation;
+        this.requestHash = requestHash;
+        this.transactionId = transactionId;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+}
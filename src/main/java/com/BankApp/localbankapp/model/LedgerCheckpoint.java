@@ -0,0 +1,33 @@
+package com.BankApp.localbankapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last journal record of a ledger shard whose effects are in {@code bank_accounts} and {@code transactions}.
+ * Written in the same transaction as those rows; recovery replays only records after it.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "ledger_checkpoints")
+public class LedgerCheckpoint {
+    @Id
+    private Integer shard;
+
+    @Column(name = "journal_seq", nullable = false)
+    private Long journalSeq;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,89 @@
+package com.BankApp.localbankapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * One leg of a transaction as it hit one account: the amount in that account's currency and the rate applied to
+ * get there. Entries are only ever inserted; an account's balance is the sum of its credits minus its debits,
+ * and {@code bank_accounts.balance} is a cache of that sum.
+ *
+ * @author Alexander Brazhkin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "ledger_entries",
+        indexes = @Index(name = "idx_ledger_entries_account_date", columnList = "account_id, created_at, id"))
+public class LedgerEntry {
+    /** Ids handed out per sequence call; the sequence must be created with the same increment. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_id_seq")
+    @SequenceGenerator(name = "ledger_entries_id_seq", sequenceName = "ledger_entries_id_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    /**
+     * {@code null} for opening balances carried over from before entries were recorded. No foreign key: a
+     * cross-shard transfer refunded by the ledger engine leaves entries but no transaction row.
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Transaction transaction;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 6)
+    private EntryDirection direction;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 3)
+    private Currency currency;
+
+    /**
+     * Units of {@link #currency} per unit of the operation's amount, {@code null} when no conversion was applied.
+     */
+    @Column(precision = 19, scale = 8)
+    private BigDecimal rate;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public LedgerEntry(Transaction transaction, Long accountId, EntryDirection direction, BigDecimal amount,
+                       Currency currency, BigDecimal operationAmount, Currency operationCurrency) {
+        this(null, transaction, accountId, direction, amount, currency,
+                rate(amount, currency, operationAmount, operationCurrency), LocalDateTime.now());
+    }
+
+    public BigDecimal signedAmount() {
+        return direction == EntryDirection.CREDIT ? amount : amount.negate();
+    }
+
+    public static BigDecimal rate(BigDecimal amount, Currency currency, BigDecimal operationAmount,
+                                  Currency operationCurrency) {
+        if (currency == operationCurrency || operationAmount == null || operationAmount.signum() == 0) {
+            return null;
+        }
+        return amount.divide(operationAmount, 8, RoundingMode.HALF_UP);
+    }
+}
@@ -1,12 +1,18 @@
 package com.BankApp.localbankapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Alexander Brazhkin
@@ -15,10 +21,18 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_from_date", columnList = "from_account_id, transaction_date desc, id desc"),
+        @Index(name = "idx_transactions_to_date", columnList = "to_account_id, transaction_date desc, id desc")
+})
 public class Transaction {
+    /** Ids handed out per sequence call; the sequence must be created with the same increment. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_seq")
+    @SequenceGenerator(name = "transactions_id_seq", sequenceName = "transactions_id_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, precision = 19, scale = 4)
@@ -49,4 +63,40 @@ public class Transaction {
     @Enumerated(EnumType.STRING)
     @Column(name = "to_currency")
     private Currency toCurrency;
+
+    /**
+     * Feed date of the exchange rate snapshot applied to this transaction, {@code null} if no conversion
+     * was needed. Together with the currencies it identifies rows in {@code exchange_rates}.
+     */
+    @Column(name = "rate_date")
+    private LocalDate rateDate;
+
+    /**
+     * {@code PENDING} while an asynchronously submitted transaction waits in the queue; balances are only
+     * changed once it is {@code COMPLETED}. Synchronous operations are stored as {@code COMPLETED} right away.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20)
+    private TransactionStatus status = TransactionStatus.COMPLETED;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    /**
+     * Debit and credit legs, each in its account's currency. Written together with the transaction.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "transaction", cascade = CascadeType.PERSIST)
+    private List<LedgerEntry> entries = new ArrayList<>();
+
+    /**
+     * Records that {@code amount} in the account's {@code currency} was debited or credited for this
+     * transaction, whose own amount is {@code operationAmount} in {@code operationCurrency}.
+     */
+    public void addEntry(Long accountId, EntryDirection direction, BigDecimal amount, Currency currency,
+                         BigDecimal operationAmount, Currency operationCurrency) {
+        entries.add(new LedgerEntry(this, accountId, direction, amount, currency, operationAmount, operationCurrency));
+    }
 }
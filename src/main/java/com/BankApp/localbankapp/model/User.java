@@ -1,24 +1,39 @@
 package com.BankApp.localbankapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import jakarta.persistence.*;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+/**
+ * Looked up on every authenticated request, so users and their roles live in the second-level cache.
+ *
+ * @author Alexander Brazhkin
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
+    public static final String CACHE_REGION = "users";
+    public static final String ROLES_CACHE_REGION = "users.roles";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -31,8 +46,19 @@ public class User {
     private String email;
 
     @ElementCollection(targetClass = UserRole.class, fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.ROLES_CACHE_REGION)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Enumerated(EnumType.STRING)
     @Column(name = "role", nullable = false)
     private Collection<UserRole> roles = Collections.singleton(UserRole.USER);
+
+    /**
+     * Signed into every token; bumping it revokes the tokens issued before. Written by
+     * {@code UserRepository.bumpTokenVersion} and database triggers only, and read through
+     * {@code TokenVersionCache}, as this copy may be stale in the second-level cache.
+     */
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "token_version", nullable = false, insertable = false, updatable = false)
+    private int tokenVersion;
 }
\ No newline at end of file
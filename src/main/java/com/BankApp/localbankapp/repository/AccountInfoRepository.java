@@ -0,0 +1,15 @@
+package com.BankApp.localbankapp.repository;
+
+import com.BankApp.localbankapp.model.AccountInfo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Account metadata through the second-level cache. Only {@code findById} is served from the cache, so existence
+ * checks use it rather than {@code existsById}, which always counts rows.
+ *
+ * @author Alexander Brazhkin
+ */
+@Repository
+public interface AccountInfoRepository extends JpaRepository<AccountInfo, Long> {
+}
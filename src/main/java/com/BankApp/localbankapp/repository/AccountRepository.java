@@ -1,12 +1,19 @@
 package com.BankApp.localbankapp.repository;
 
+import com.BankApp.localbankapp.dto.AccountResponse;
 import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +24,80 @@ import java.util.Optional;
 public interface AccountRepository extends JpaRepository<BankAccount, Long> {
     Optional<BankAccount> findByAccountNumber(String accountNumber);
     List<BankAccount> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Locks the account unless it is striped; a striped account's balance lives in its stripes, which
+     * are locked one at a time instead.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from BankAccount a where a.id = :id " +
+            "and (a.stripeCount is null or a.stripeCount <= 1)")
+    Optional<BankAccount> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Locks all given accounts in ascending id order, so two transfers touching the same pair of accounts
+     * in opposite directions queue up behind each other instead of deadlocking. Striped accounts are skipped.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from BankAccount a where a.id in :ids " +
+            "and (a.stripeCount is null or a.stripeCount <= 1) order by a.id")
+    List<BankAccount> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Locks the account whether or not it is striped; used when its stripe layout changes.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from BankAccount a where a.id = :id")
+    Optional<BankAccount> lockById(@Param("id") Long id);
+
+    @Query("select a.stripeCount from BankAccount a where a.id = :id")
+    Optional<Integer> findStripeCountById(@Param("id") Long id);
+
+    @Query("select a.id from BankAccount a where a.stripeCount > 1")
+    List<Long> findStripedAccountIds();
+
+    /**
+     * The account's balance including its stripes, read in one statement so that a concurrent rebalance between
+     * the base balance and the stripes is never seen half done. Called outside a transaction it runs in a
+     * read-only one, and so on a replica when they are configured; the balance cache does not keep such reads.
+     */
+    @Query("select a.balance + coalesce((select sum(s.balance) from AccountStripe s where s.id.accountId = a.id), 0) " +
+            "from BankAccount a where a.id = :id")
+    @Transactional(readOnly = true)
+    Optional<BigDecimal> findTotalBalanceById(@Param("id") Long id);
+
+    /**
+     * The account as served to clients, balance including stripes, without loading the entity or its owner.
+     */
+    @Query("select new com.BankApp.localbankapp.dto.AccountResponse(a.id, a.accountNumber, " +
+            "a.balance + coalesce((select sum(s.balance) from AccountStripe s where s.id.accountId = a.id), 0), " +
+            "a.currency, a.active, a.stripeCount, a.user.id) from BankAccount a where a.id = :id")
+    Optional<AccountResponse> findResponseById(@Param("id") Long id);
+
+    @Query("select a.currency as currency, a.balance as balance, a.active as active, " +
+            "a.stripeCount as stripeCount from BankAccount a where a.id = :id")
+    Optional<BalanceView> findBalanceViewById(@Param("id") Long id);
+
+    /**
+     * Debits an active, unstriped account held in {@code currency} if it holds at least {@code amount}.
+     * Returns the number of updated rows (0 or 1).
+     */
+    @Modifying
+    @Query("update BankAccount a set a.balance = a.balance - :amount, a.version = a.version + 1 " +
+            "where a.id = :id and a.balance >= :amount and coalesce(a.active, true) = true " +
+            "and a.currency = :currency and (a.stripeCount is null or a.stripeCount <= 1)")
+    int debit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("currency") Currency currency);
+
+    @Modifying
+    @Query("update BankAccount a set a.balance = a.balance + :amount, a.version = a.version + 1 " +
+            "where a.id = :id and coalesce(a.active, true) = true " +
+            "and a.currency = :currency and (a.stripeCount is null or a.stripeCount <= 1)")
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("currency") Currency currency);
+
+    interface BalanceView {
+        Currency getCurrency();
+        BigDecimal getBalance();
+        Boolean getActive();
+        Integer getStripeCount();
+    }
+}
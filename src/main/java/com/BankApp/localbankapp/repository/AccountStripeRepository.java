@@ -0,0 +1,59 @@
+package com.BankApp.localbankapp.repository;
+
+import com.BankApp.localbankapp.model.AccountStripe;
+import com.BankApp.localbankapp.model.AccountStripeId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Stripe updates are bulk statements and stripe reads are projections, so stripe rows never sit in the
+ * persistence context where a later bulk update would leave them stale.
+ *
+ * @author Alexander Brazhkin
+ */
+@Repository
+public interface AccountStripeRepository extends JpaRepository<AccountStripe, AccountStripeId> {
+
+    @Modifying
+    @Query("update AccountStripe s set s.balance = s.balance + :amount " +
+            "where s.id.accountId = :accountId and s.id.stripe = :stripe")
+    int credit(@Param("accountId") Long accountId, @Param("stripe") int stripe, @Param("amount") BigDecimal amount);
+
+    /**
+     * Debits one stripe if it holds at least {@code amount}. Returns the number of updated rows (0 or 1).
+     */
+    @Modifying
+    @Query("update AccountStripe s set s.balance = s.balance - :amount " +
+            "where s.id.accountId = :accountId and s.id.stripe = :stripe and s.balance >= :amount")
+    int debit(@Param("accountId") Long accountId, @Param("stripe") int stripe, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("update AccountStripe s set s.balance = :balance " +
+            "where s.id.accountId = :accountId and s.id.stripe = :stripe")
+    int setBalance(@Param("accountId") Long accountId, @Param("stripe") int stripe, @Param("balance") BigDecimal balance);
+
+    @Modifying
+    @Query("delete from AccountStripe s where s.id.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountStripe s where s.id.accountId = :accountId")
+    BigDecimal sumBalance(@Param("accountId") Long accountId);
+
+    /**
+     * Locks every stripe of the account in stripe order.
+     */
+    @Query(value = "select stripe, balance from account_stripes where account_id = :accountId order by stripe for update",
+            nativeQuery = true)
+    List<StripeView> lockStripes(@Param("accountId") Long accountId);
+
+    interface StripeView {
+        Integer getStripe();
+        BigDecimal getBalance();
+    }
+}
@@ -0,0 +1,24 @@
+package com.BankApp.localbankapp.repository;
+
+import com.BankApp.localbankapp.model.ExchangeRate;
+import com.BankApp.localbankapp.model.ExchangeRateId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@Repository
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, ExchangeRateId> {
+    List<ExchangeRate> findByIdRateDate(LocalDate rateDate);
+    List<ExchangeRate> findByIdRateDateGreaterThanEqual(LocalDate rateDate);
+
+    @Query("select max(r.id.rateDate) from ExchangeRate r where r.id.rateDate <= :date")
+    Optional<LocalDate> findLatestRateDateOnOrBefore(@Param("date") LocalDate date);
+}
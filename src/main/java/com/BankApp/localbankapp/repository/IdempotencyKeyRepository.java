@@ -0,0 +1,12 @@
+package com.BankApp.localbankapp.repository;
+
+import com.BankApp.localbankapp.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+}
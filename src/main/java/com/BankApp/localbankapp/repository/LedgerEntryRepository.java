@@ -0,0 +1,34 @@
+package com.BankApp.localbankapp.repository;
+
+import com.BankApp.localbankapp.model.LedgerEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * All entries of the account in the order they were booked, with their transactions, read through a cursor
+     * {@value #STREAM_FETCH_SIZE} rows at a time. Must be consumed inside a transaction and closed; entities stay
+     * attached to the persistence context until the caller detaches them.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select e from LedgerEntry e left join fetch e.transaction " +
+            "where e.accountId = :accountId order by e.createdAt, e.id")
+    Stream<LedgerEntry> streamByAccountId(@Param("accountId") Long accountId);
+}
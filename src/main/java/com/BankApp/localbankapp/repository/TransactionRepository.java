@@ -1,16 +1,101 @@
 package com.BankApp.localbankapp.repository;
 
+import com.BankApp.localbankapp.dto.TransactionStatusResponse;
 import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * @author Alexander Brazhkin
  */
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    List<Transaction> findByFromAccountId(Long fromAccountId);
-    List<Transaction> findByToAccountId(Long toAccountId);
-}
\ No newline at end of file
+    /**
+     * One page of the account's history, newest first, strictly older than {@code (beforeTimestamp, beforeId)} and
+     * not older than {@code since}. Each branch seeks into {@code idx_transactions_from_date} or
+     * {@code idx_transactions_to_date} at the cursor and stops after {@code limit} rows, so the cost of a page does
+     * not depend on how deep it is. The branches order by the account column too, which is constant, so that H2
+     * also recognises the index order. The second branch skips transfers from the account to itself, which the
+     * first already returned. The plain bounds on {@code transaction_date}, implied by the row comparison, let
+     * PostgreSQL prune the monthly partitions outside the page's range.
+     */
+    @Query(value = """
+            select * from (
+                (select t.id, t.type, t.status, t.amount, t.from_account_id as fromAccountId,
+                        t.to_account_id as toAccountId, t.from_currency as fromCurrency,
+                        t.to_currency as toCurrency, t.description, t.transaction_date as timestamp
+                 from transactions t
+                 where t.from_account_id = :accountId
+                   and t.type in (:types)
+                   and t.transaction_date >= :since
+                   and t.transaction_date <= :beforeTimestamp
+                   and (t.transaction_date, t.id) < (:beforeTimestamp, :beforeId)
+                 order by t.from_account_id, t.transaction_date desc, t.id desc
+                 limit :limit)
+                union all
+                (select t.id, t.type, t.status, t.amount, t.from_account_id as fromAccountId,
+                        t.to_account_id as toAccountId, t.from_currency as fromCurrency,
+                        t.to_currency as toCurrency, t.description, t.transaction_date as timestamp
+                 from transactions t
+                 where t.to_account_id = :accountId
+                   and (t.from_account_id is null or t.from_account_id <> :accountId)
+                   and t.type in (:types)
+                   and t.transaction_date >= :since
+                   and t.transaction_date <= :beforeTimestamp
+                   and (t.transaction_date, t.id) < (:beforeTimestamp, :beforeId)
+                 order by t.to_account_id, t.transaction_date desc, t.id desc
+                 limit :limit)
+            ) h
+            order by h.timestamp desc, h.id desc
+            limit :limit""", nativeQuery = true)
+    List<HistoryView> findHistory(@Param("accountId") Long accountId,
+                                  @Param("types") Collection<String> types,
+                                  @Param("since") LocalDateTime since,
+                                  @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                  @Param("beforeId") long beforeId,
+                                  @Param("limit") int limit);
+
+    /**
+     * Status of a transaction without loading it; rows from before statuses were recorded count as completed.
+     */
+    @Query("select new com.BankApp.localbankapp.dto.TransactionStatusResponse(t.id, t.type, " +
+            "coalesce(t.status, com.BankApp.localbankapp.model.TransactionStatus.COMPLETED), t.failureReason) " +
+            "from Transaction t where t.id = :id")
+    Optional<TransactionStatusResponse> findStatusById(@Param("id") Long id);
+
+    @Query("select t.id from Transaction t where t.status = :status order by t.id")
+    List<Long> findIdsByStatus(@Param("status") TransactionStatus status);
+
+    /**
+     * Moves a transaction from {@code from} to {@code to}. The update locks the row, so of two workers
+     * claiming the same pending transaction only one sees 1.
+     */
+    @Modifying
+    @Query("update Transaction t set t.status = :to, t.failureReason = :reason " +
+            "where t.id = :id and t.status = :from")
+    int updateStatus(@Param("id") Long id, @Param("from") TransactionStatus from,
+                     @Param("to") TransactionStatus to, @Param("reason") String reason);
+
+    interface HistoryView {
+        Long getId();
+        String getType();
+        String getStatus();
+        BigDecimal getAmount();
+        Long getFromAccountId();
+        Long getToAccountId();
+        String getFromCurrency();
+        String getToCurrency();
+        String getDescription();
+        LocalDateTime getTimestamp();
+    }
+}
@@ -1,9 +1,15 @@
 package com.BankApp.localbankapp.repository;
 
 import com.BankApp.localbankapp.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -14,9 +20,26 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /**
+     * Resolves the user of every authenticated request. The result is held in the query cache, and the user and
+     * roles it points to in the second-level cache; any write to {@code users} or {@code user_roles} invalidates
+     * the cached results.
+     */
     @EntityGraph(attributePaths = "roles")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    /**
+     * Revokes the user's tokens. Pending changes to the user are flushed first.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update User u set u.tokenVersion = u.tokenVersion + 1 where u.id = :id")
+    int bumpTokenVersion(@Param("id") Long id);
+
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
 }
\ No newline at end of file
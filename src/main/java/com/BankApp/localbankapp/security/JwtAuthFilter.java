@@ -1,7 +1,9 @@
 package com.BankApp.localbankapp.security;
 
 import com.BankApp.localbankapp.service.UserService;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import jakarta.servlet.FilterChain;
@@ -13,18 +15,26 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
+ * Authenticates requests from their bearer token. Tokens issued at login carry the user's authorities and token
+ * version, so the user is only checked against {@link TokenVersionCache}; tokens without those claims, issued
+ * before they were introduced, still load the user.
+ *
  * @author Alexander Brazhkin
  */
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtTokenProvider jwtTokenProvider;
     private final UserService userService;
+    private final TokenVersionCache tokenVersionCache;
 
     public JwtAuthFilter(JwtTokenProvider jwtTokenProvider,
-                         UserService userService) {
+                         UserService userService,
+                         TokenVersionCache tokenVersionCache) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userService = userService;
+        this.tokenVersionCache = tokenVersionCache;
     }
 
     @Override
@@ -38,18 +48,15 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
             logger.debug("Processing request to: " + requestURI);
 
-            if (jwt != null && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromJWT(jwt);
-
-                UserDetails userDetails = userService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities()
-                );
-
+            Claims claims = jwt != null ? jwtTokenProvider.verify(jwt) : null;
+            UsernamePasswordAuthenticationToken authentication = claims != null ? authenticate(claims) : null;
+            if (authentication != null) {
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.debug("Set authentication for user: " + username);
+                logger.debug("Set authentication for user: " + authentication.getName());
+            } else if (claims != null) {
+                logger.warn("Revoked JWT token received");
             } else if (jwt != null) {
                 logger.warn("Invalid JWT token received");
             }
@@ -60,6 +67,26 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * The authentication the claims stand for, or {@code null} if the token has been revoked.
+     */
+    private UsernamePasswordAuthenticationToken authenticate(Claims claims) {
+        Number userId = claims.get(JwtTokenProvider.USER_ID, Number.class);
+        Integer version = claims.get(JwtTokenProvider.TOKEN_VERSION, Integer.class);
+        List<?> roles = claims.get(JwtTokenProvider.ROLES, List.class);
+        if (userId == null || version == null || roles == null) {
+            UserDetails userDetails = userService.loadUserByUsername(claims.getSubject());
+            return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        }
+        if (!tokenVersionCache.isCurrent(userId.longValue(), version)) {
+            return null;
+        }
+        List<SimpleGrantedAuthority> authorities = roles.stream()
+                                                        .map(role -> new SimpleGrantedAuthority(role.toString()))
+                                                        .toList();
+        return new UsernamePasswordAuthenticationToken(claims.getSubject(), null, authorities);
+    }
+
     public String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
@@ -67,4 +94,4 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         return null;
     }
-}
\ No newline at end of file
+}
@@ -1,24 +1,37 @@
 package com.BankApp.localbankapp.security;
 
+import com.BankApp.localbankapp.service.impl.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
 import java.util.Date;
 
 /**
+ * Issues and verifies the HMAC-signed JWTs of the API. The signing key and the parser are built once and shared;
+ * the claims of verified tokens are kept in a {@link VerifiedTokenCache} of {@code app.jwtCache.maxSize} entries
+ * (0 disables it) until the token expires.
+ *
+ * <p>Tokens issued at login also carry the user's id ({@value #USER_ID}), authorities ({@value #ROLES}) and token
+ * version ({@value #TOKEN_VERSION}), enough for {@link JwtAuthFilter} to authenticate without loading the user.
+ *
  * @author Alexander Brazhkin
  */
 @Component
 @PropertySource("classpath:application.yml")
 public class JwtTokenProvider {
+    public static final String USER_ID = "uid";
+    public static final String ROLES = "roles";
+    public static final String TOKEN_VERSION = "ver";
     private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
 
     @Value("${app.jwtSecret}")
@@ -27,8 +40,41 @@ public class JwtTokenProvider {
     @Value("${app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwtCache.maxSize:10000}")
+    private int jwtCacheMaxSize = 10_000;
+
+    @Autowired(required = false)
+    private TokenVersionCache tokenVersionCache;
+
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+    private volatile VerifiedTokenCache verifiedTokens;
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser parser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parser().verifyWith(getSigningKey()).build();
+            parser = jwtParser;
+        }
+        return jwtParser;
+    }
+
+    private VerifiedTokenCache verifiedTokens() {
+        VerifiedTokenCache cache = verifiedTokens;
+        if (cache == null) {
+            cache = new VerifiedTokenCache(jwtCacheMaxSize);
+            verifiedTokens = cache;
+        }
+        return cache;
     }
 
     public String generateToken(Authentication authentication) {
@@ -47,39 +93,60 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
-        return Jwts.builder()
-                   .subject(username)
-                   .issuedAt(now)
-                   .expiration(expiryDate)
-                   .signWith(getSigningKey())
-                   .compact();
+        JwtBuilder builder = Jwts.builder()
+                                 .subject(username)
+                                 .issuedAt(now)
+                                 .expiration(expiryDate);
+        if (authentication.getPrincipal() instanceof UserDetailsImpl details) {
+            Long userId = details.getUser().getId();
+            // the version the filter will compare against, rather than the entity's possibly cached copy
+            Integer version = tokenVersionCache != null ? tokenVersionCache.current(userId)
+                                                        : Integer.valueOf(details.getUser().getTokenVersion());
+            builder.claim(USER_ID, userId)
+                   .claim(ROLES, details.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
+                   .claim(TOKEN_VERSION, version);
+        }
+        return builder.signWith(getSigningKey()).compact();
+    }
+
+    /**
+     * Verifies the token in a single pass and returns its claims, or {@code null} if it is empty, malformed,
+     * wrongly signed or expired.
+     */
+    public Claims verify(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return parseClaims(token);
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.error(ex.getMessage());
+        }
+        return null;
     }
 
     public String getUsernameFromJWT(String token) {
         if (token == null || token.trim().isEmpty()) {
             throw new IllegalArgumentException("Token cannot be null or empty");
         }
-        return Jwts.parser()
-                   .verifyWith(getSigningKey())
-                   .build()
-                   .parseSignedClaims(token)
-                   .getPayload()
-                   .getSubject();
+        return parseClaims(token).getSubject();
     }
 
     public boolean validateToken(String authToken) {
-        if (authToken == null || authToken.trim().isEmpty()) {
-            return false;
+        return verify(authToken) != null;
+    }
+
+    private Claims parseClaims(String token) {
+        VerifiedTokenCache cache = verifiedTokens();
+        if (!cache.enabled()) {
+            return parser().parseSignedClaims(token).getPayload();
         }
-        try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(authToken);
-            return true;
-        } catch (JwtException | IllegalArgumentException ex) {
-            log.error(ex.getMessage());
+        ByteBuffer key = VerifiedTokenCache.key(token);
+        Claims claims = cache.get(key, System.currentTimeMillis());
+        if (claims == null) {
+            claims = parser().parseSignedClaims(token).getPayload();
+            cache.put(key, claims);
         }
-        return false;
+        return claims;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.BankApp.localbankapp.security;
+
+import com.BankApp.localbankapp.exception.LoginsUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password checks, BCrypt and all, on a pool of {@code ceil(cpuShare * CPUs)} threads, so that a login storm
+ * takes at most that share of the CPUs and leaves the rest to money-moving requests. Up to {@code queueCapacity}
+ * logins wait for a thread; beyond that, and for logins that waited longer than {@code timeoutMs}, the caller gets
+ * {@link LoginsUnavailableException} (503) right away instead of a slow answer.
+ *
+ * @author Alexander Brazhkin
+ */
+@Slf4j
+@Component
+public class LoginExecutor implements DisposableBean {
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public LoginExecutor(@Value("${app.auth.login.cpuShare:0.5}") double cpuShare,
+                         @Value("${app.auth.login.queueCapacity:64}") int queueCapacity,
+                         @Value("${app.auth.login.timeoutMs:5000}") long timeoutMs) {
+        int threads = threadsFor(cpuShare, Runtime.getRuntime().availableProcessors());
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), daemonThreads(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        log.info("Logins run on {} threads with {} queued at most", threads, queueCapacity);
+    }
+
+    public static int threadsFor(double cpuShare, int cpus) {
+        return Math.max(1, (int) Math.ceil(cpuShare * cpus));
+    }
+
+    /**
+     * Runs the login on the pool and waits for its outcome; exceptions it throws reach the caller unchanged.
+     */
+    public <T> T call(Supplier<T> login) {
+        Future<T> future;
+        try {
+            future = executor.submit(login::get);
+        } catch (RejectedExecutionException e) {
+            throw new LoginsUnavailableException("Too many logins in progress, try again later", e);
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // a login still in the queue is dropped rather than hashed for nobody
+            future.cancel(true);
+            throw new LoginsUnavailableException("Login did not complete within " + timeoutMs + " ms", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LoginsUnavailableException("Interrupted while waiting for login", e);
+        }
+    }
+
+    public int getPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getQueuedLogins() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "login-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.BankApp.localbankapp.security;
+
+import com.BankApp.localbankapp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Current {@code users.token_version} per user, against which {@link JwtAuthFilter} checks the version signed into
+ * each token. Bumping the version revokes every token issued before: {@code UserService.updateUser} does it, and
+ * so does a database trigger on {@code user_roles}, so that role changes reach the authorities in the tokens.
+ *
+ * <p>Bounded LRU of {@code app.jwtCache.maxSize} users. Entries expire after {@code app.jwtCache.versionTtlMs},
+ * which bounds how long a revoked token is still accepted when the bump happened on another instance or in SQL;
+ * bumps made through this instance evict the user once their transaction commits. A load that overlaps an
+ * eviction is returned but not cached.
+ *
+ * @author Alexander Brazhkin
+ */
+@Component
+public class TokenVersionCache {
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final Map<Long, Cached> entries;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public TokenVersionCache(UserRepository userRepository,
+                             @Value("${app.jwtCache.maxSize:10000}") int maxSize,
+                             @Value("${app.jwtCache.versionTtlMs:30000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Whether {@code version} is still the user's token version; {@code false} for users that no longer exist.
+     */
+    public boolean isCurrent(Long userId, int version) {
+        Integer current = current(userId);
+        return current != null && current == version;
+    }
+
+    /**
+     * The user's token version, or {@code null} if there is no such user.
+     */
+    public Integer current(Long userId) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Cached cached = entries.get(userId);
+            if (cached != null) {
+                if (now - cached.loadedAt < ttlNanos) {
+                    return cached.version;
+                }
+                entries.remove(userId);
+            }
+        }
+        long seen = invalidations.get();
+        Integer version = userRepository.findTokenVersionById(userId).orElse(null);
+        synchronized (entries) {
+            if (version != null && invalidations.get() == seen) {
+                entries.put(userId, new Cached(version, now));
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Evicts the user once the current transaction commits, or right away outside a transaction.
+     */
+    public void evictAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userId);
+            }
+        });
+    }
+
+    public void evict(Long userId) {
+        invalidations.incrementAndGet();
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+
+    private record Cached(int version, long loadedAt) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.BankApp.localbankapp.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU of the claims of recently verified tokens, so that a client repeating its token skips the HMAC check
+ * and the JSON parsing. Entries are keyed by the SHA-256 digest of the token, which keeps bearer tokens out of the
+ * heap and cannot be matched by a forged token, and are dropped once the token expires.
+ *
+ * @author Alexander Brazhkin
+ */
+class VerifiedTokenCache {
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final int maxSize;
+    private final Map<ByteBuffer, Verified> entries;
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Verified> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    boolean enabled() {
+        return maxSize > 0;
+    }
+
+    static ByteBuffer key(String token) {
+        return ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * The claims cached under {@code key}, or {@code null} if there are none or the token has expired.
+     */
+    Claims get(ByteBuffer key, long nowMillis) {
+        synchronized (entries) {
+            Verified verified = entries.get(key);
+            if (verified == null) {
+                return null;
+            }
+            if (nowMillis >= verified.expiresAtMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return verified.claims();
+        }
+    }
+
+    /**
+     * Caches the claims of a verified token; tokens without an expiry are never cached.
+     */
+    void put(ByteBuffer key, Claims claims) {
+        if (claims.getExpiration() == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Verified(claims, claims.getExpiration().getTime()));
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record Verified(Claims claims, long expiresAtMillis) {
+    }
+}
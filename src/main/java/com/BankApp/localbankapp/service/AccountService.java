@@ -1,15 +1,22 @@
 package com.BankApp.localbankapp.service;
 
 import com.BankApp.localbankapp.dto.AccountDTO;
+import com.BankApp.localbankapp.dto.AccountResponse;
+import com.BankApp.localbankapp.dto.TransactionPage;
 import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.TransactionType;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * @author Alexander Brazhkin
  */
 public interface AccountService {
     BankAccount createAccount(AccountDTO dto);
-    BankAccount getAccountById(Long id);
+    AccountResponse getAccountById(Long id);
     BigDecimal getBalanceById(Long accountId);
+    AccountResponse setStripeCount(Long accountId, int stripes);
+    TransactionPage getTransactions(Long accountId, String cursor, Integer limit, TransactionType type,
+                                    LocalDateTime from, LocalDateTime to);
 }
\ No newline at end of file
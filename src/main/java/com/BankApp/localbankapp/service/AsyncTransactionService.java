@@ -0,0 +1,13 @@
+package com.BankApp.localbankapp.service;
+
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.dto.TransactionStatusResponse;
+import com.BankApp.localbankapp.model.TransactionType;
+
+/**
+ * @author Alexander Brazhkin
+ */
+public interface AsyncTransactionService {
+    TransactionStatusResponse submit(TransactionType type, TransactionDTO dto);
+    TransactionStatusResponse getStatus(Long transactionId);
+}
@@ -0,0 +1,14 @@
+package com.BankApp.localbankapp.service;
+
+import com.BankApp.localbankapp.dto.BalanceReport;
+
+/**
+ * Recomputes account balances from {@code ledger_entries} and compares them with the cached
+ * {@code bank_accounts.balance} (plus stripes).
+ *
+ * @author Alexander Brazhkin
+ */
+public interface BalanceRebuildService {
+    BalanceReport verify();
+    BalanceReport rebuild();
+}
@@ -0,0 +1,18 @@
+package com.BankApp.localbankapp.service;
+
+import com.BankApp.localbankapp.currency.RateSnapshot;
+import com.BankApp.localbankapp.model.Currency;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * @author Alexander Brazhkin
+ */
+public interface ExchangeRateService {
+    void record(RateSnapshot snapshot);
+    RateSnapshot snapshotOn(LocalDate rateDate);
+    RateSnapshot snapshotAt(Instant instant);
+    BigDecimal convertAt(BigDecimal amount, Currency fromCurrency, Currency toCurrency, Instant instant);
+}
@@ -0,0 +1,14 @@
+package com.BankApp.localbankapp.service;
+
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionType;
+
+import java.util.function.Supplier;
+
+/**
+ * @author Alexander Brazhkin
+ */
+public interface IdempotencyService {
+    Transaction execute(String idempotencyKey, TransactionType operation, TransactionDTO dto, Supplier<Transaction> action);
+}
@@ -0,0 +1,26 @@
+package com.BankApp.localbankapp.service;
+
+/**
+ * How {@link TransactionService} guards account balances against concurrent updates.
+ *
+ * @author Alexander Brazhkin
+ */
+public enum LockingMode {
+    /**
+     * Plain reads. The {@code @Version} check on {@link com.BankApp.localbankapp.model.BankAccount} rejects the
+     * later of two concurrent changes to an account with 409 instead of losing it.
+     */
+    NONE,
+    /** {@code SELECT ... FOR UPDATE} on every involved account, acquired in ascending id order in one query. */
+    PESSIMISTIC,
+    /**
+     * No entity loads: every leg is a single {@code UPDATE ... WHERE balance >= :amount} whose row count
+     * decides success. Accounts are only read to explain a rejected update.
+     */
+    CONDITIONAL_UPDATE,
+    /**
+     * Plain reads like {@link #NONE}, but an operation rejected by the version check is re-run from scratch
+     * after a jittered backoff, up to {@code app.transactions.optimistic.maxAttempts} times.
+     */
+    OPTIMISTIC
+}
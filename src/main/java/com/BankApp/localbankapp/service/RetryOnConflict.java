@@ -0,0 +1,19 @@
+package com.BankApp.localbankapp.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an operation that owns its database transaction and may be re-run as a whole when it loses an optimistic
+ * version check. See {@link LockingMode#OPTIMISTIC}.
+ *
+ * @author Alexander Brazhkin
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
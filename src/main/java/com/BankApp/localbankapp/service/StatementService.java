@@ -0,0 +1,15 @@
+package com.BankApp.localbankapp.service;
+
+import com.BankApp.localbankapp.dto.StatementFormat;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * @author Alexander Brazhkin
+ */
+public interface StatementService {
+    /**
+     * The account's full statement, written when the returned body is. Fails right away, before anything is
+     * written, if the account does not exist.
+     */
+    StreamingResponseBody export(Long accountId, StatementFormat format);
+}
@@ -0,0 +1,18 @@
+package com.BankApp.localbankapp.service;
+
+import com.BankApp.localbankapp.model.BankAccount;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance operations on striped (hot) accounts. Callers must run inside a transaction.
+ *
+ * @author Alexander Brazhkin
+ */
+public interface StripedBalanceService {
+    BankAccount stripe(Long accountId, int stripes);
+    BigDecimal balance(Long accountId);
+    void credit(Long accountId, BigDecimal amount);
+    void debit(Long accountId, BigDecimal amount);
+    void rebalance(Long accountId);
+}
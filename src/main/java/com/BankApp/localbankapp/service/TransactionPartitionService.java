@@ -0,0 +1,11 @@
+package com.BankApp.localbankapp.service;
+
+/**
+ * Keeps the monthly partitions of {@code transactions} ahead of the clock and moves those past the retention
+ * window out of the table into the archive schema.
+ *
+ * @author Alexander Brazhkin
+ */
+public interface TransactionPartitionService {
+    void maintain();
+}
@@ -1,5 +1,7 @@
 package com.BankApp.localbankapp.service;
 
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.BatchTransferResult;
 import com.BankApp.localbankapp.dto.TransactionDTO;
 import com.BankApp.localbankapp.model.Transaction;
 
@@ -10,4 +12,6 @@ public interface TransactionService {
     Transaction transfer(TransactionDTO dto);
     Transaction deposit(TransactionDTO dto);
     Transaction withdrawal(TransactionDTO dto);
+    BatchTransferResult transferBatch(BatchTransferRequest request);
+    Transaction complete(Long pendingTransactionId);
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.BankApp.localbankapp.service;
 
 import com.BankApp.localbankapp.model.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 import java.util.List;
@@ -9,7 +10,7 @@ import java.util.List;
 /**
  * @author Alexander Brazhkin
  */
-public interface UserService extends UserDetailsService {
+public interface UserService extends UserDetailsService, UserDetailsPasswordService {
     User getUserById(Long id);
     List<User> getAllUsers();
     User updateUser(Long id, User updatedUser);
@@ -1,19 +1,37 @@
 package com.BankApp.localbankapp.service.impl;
 
 import com.BankApp.localbankapp.dto.AccountDTO;
+import com.BankApp.localbankapp.dto.AccountResponse;
+import com.BankApp.localbankapp.dto.HistoryCursor;
+import com.BankApp.localbankapp.dto.TransactionHistoryItem;
+import com.BankApp.localbankapp.dto.TransactionPage;
 import com.BankApp.localbankapp.mapper.AccountMapper;
 import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.EntryDirection;
+import com.BankApp.localbankapp.model.TransactionStatus;
+import com.BankApp.localbankapp.model.TransactionType;
 import com.BankApp.localbankapp.model.User;
 import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.TransactionRepository;
 import com.BankApp.localbankapp.repository.UserRepository;
 import com.BankApp.localbankapp.service.AccountService;
+import com.BankApp.localbankapp.service.StripedBalanceService;
 import com.BankApp.localbankapp.util.AccountNumberGenerator;
+import com.BankApp.localbankapp.util.BalanceCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -22,8 +40,22 @@ import java.util.Objects;
 @Service
 @RequiredArgsConstructor
 public class AccountServiceImpl implements AccountService {
+    /** Bounds for history filters left open; both fit a PostgreSQL and an H2 timestamp. */
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final List<String> ALL_TYPES = Arrays.stream(TransactionType.values()).map(Enum::name).toList();
+
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final StripedBalanceService stripedBalanceService;
+    private final TransactionRepository transactionRepository;
+    private final BalanceCache balanceCache;
+
+    @Value("${app.accounts.history.defaultPageSize:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${app.accounts.history.maxPageSize:500}")
+    private int maxPageSize = 500;
 
     @Transactional
     public BankAccount createAccount(AccountDTO dto) {
@@ -39,16 +71,84 @@ public class AccountServiceImpl implements AccountService {
     }
 
     @Transactional(readOnly = true)
-    public BankAccount getAccountById(Long id) {
-        return accountRepository.findById(id)
+    public AccountResponse getAccountById(Long id) {
+        return accountRepository.findResponseById(id)
                 .orElseThrow(() -> new EmptyResultDataAccessException("Account not found with id: " + id, 1));
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Served from {@link BalanceCache} when possible, without a transaction or a connection; a miss costs one
+     * statement and no entity load, in a read-only transaction of its own. A balance read from a replica is
+     * returned but not cached.
+     */
     public BigDecimal getBalanceById(Long id) {
-        BankAccount account = accountRepository.findById(id)
+        return balanceCache.get(id, accountId -> accountRepository.findTotalBalanceById(accountId)
+                .orElseThrow(() -> new EmptyResultDataAccessException("Account not found with id: " + accountId, 1)));
+    }
+
+    /**
+     * Returns the account as {@code GET /api/accounts/{id}} does, read after the change has committed.
+     */
+    public AccountResponse setStripeCount(Long id, int stripes) {
+        stripedBalanceService.stripe(id, stripes);
+        return accountRepository.findResponseById(id)
                 .orElseThrow(() -> new EmptyResultDataAccessException("Account not found with id: " + id, 1));
-        return account.getBalance();
+    }
+
+    /**
+     * Transactions from and to the account, newest first, in pages of {@code limit}. {@code from} is inclusive,
+     * {@code to} exclusive; {@code type}, {@code from} and {@code to} may be {@code null}.
+     */
+    @Transactional(readOnly = true)
+    public TransactionPage getTransactions(Long accountId, String cursor, Integer limit, TransactionType type,
+                                           LocalDateTime from, LocalDateTime to) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + maxPageSize);
+        }
+        // the upper end of the range is just the position of the first page
+        HistoryCursor after = new HistoryCursor(to != null ? to : LATEST, to != null ? 0 : Long.MAX_VALUE);
+        if (cursor != null) {
+            HistoryCursor position = HistoryCursor.decode(cursor);
+            if (position.timestamp().isBefore(after.timestamp())) {
+                after = position;
+            }
+        }
+
+        // one extra row tells whether another page follows
+        List<TransactionRepository.HistoryView> rows = transactionRepository.findHistory(accountId,
+                type != null ? List.of(type.name()) : ALL_TYPES, from != null ? from : EARLIEST,
+                after.timestamp(), after.id(), pageSize + 1);
+        // only an empty page needs to tell an unknown account from one without matching transactions
+        if (rows.isEmpty() && !accountRepository.existsById(accountId)) {
+            throw new EmptyResultDataAccessException("Account not found with id: " + accountId, 1);
+        }
+        boolean more = rows.size() > pageSize;
+        List<TransactionHistoryItem> items = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (TransactionRepository.HistoryView row : rows.subList(0, Math.min(rows.size(), pageSize))) {
+            items.add(toHistoryItem(accountId, row));
+        }
+        String nextCursor = null;
+        if (more) {
+            TransactionHistoryItem last = items.get(items.size() - 1);
+            nextCursor = new HistoryCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        return new TransactionPage(items, nextCursor);
+    }
+
+    private static TransactionHistoryItem toHistoryItem(Long accountId, TransactionRepository.HistoryView row) {
+        boolean outgoing = accountId.equals(row.getFromAccountId());
+        return new TransactionHistoryItem(
+                row.getId(),
+                TransactionType.valueOf(row.getType()),
+                row.getStatus() != null ? TransactionStatus.valueOf(row.getStatus()) : TransactionStatus.COMPLETED,
+                outgoing ? EntryDirection.DEBIT : EntryDirection.CREDIT,
+                outgoing ? row.getToAccountId() : row.getFromAccountId(),
+                row.getAmount(),
+                row.getFromCurrency() != null ? Currency.valueOf(row.getFromCurrency()) : null,
+                row.getToCurrency() != null ? Currency.valueOf(row.getToCurrency()) : null,
+                row.getDescription(),
+                row.getTimestamp());
     }
 
     private String generateAccountNumber() {
@@ -0,0 +1,227 @@
+package com.BankApp.localbankapp.service.impl;
+
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.dto.TransactionStatusResponse;
+import com.BankApp.localbankapp.exception.SubmissionQueueFullException;
+import com.BankApp.localbankapp.mapper.TransactionMapper;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionStatus;
+import com.BankApp.localbankapp.model.TransactionType;
+import com.BankApp.localbankapp.repository.AccountInfoRepository;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.TransactionRepository;
+import com.BankApp.localbankapp.service.AsyncTransactionService;
+import com.BankApp.localbankapp.service.TransactionService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accepts transactions as {@code PENDING} rows and applies them on a fixed pool of workers, so request threads
+ * only pay for one insert. Each worker drains up to {@code batchSize} queued ids and completes them in one
+ * database transaction; if any of them fails, the batch is rolled back and replayed one transaction per item,
+ * so only the failing ones end up {@code FAILED}. Submissions beyond {@code queueCapacity} are refused with
+ * {@link SubmissionQueueFullException}. Rows still pending after a restart are queued again on startup.
+ *
+ * @author Alexander Brazhkin
+ */
+@Service
+@Slf4j
+public class AsyncTransactionServiceImpl implements AsyncTransactionService {
+    private static final int MAX_REASON_LENGTH = 255;
+
+    private final TransactionService transactionService;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final AccountInfoRepository accountInfoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int queueCapacity;
+    private final int workers;
+    private final int batchSize;
+    private final boolean ledgerEnabled;
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private ExecutorService pool;
+
+    public AsyncTransactionServiceImpl(TransactionService transactionService,
+                                       TransactionRepository transactionRepository,
+                                       AccountRepository accountRepository,
+                                       AccountInfoRepository accountInfoRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.transactions.async.queueCapacity:10000}") int queueCapacity,
+                                       @Value("${app.transactions.async.workers:2}") int workers,
+                                       @Value("${app.transactions.async.batchSize:50}") int batchSize,
+                                       @Value("${app.ledger.enabled:false}") boolean ledgerEnabled) {
+        this.transactionService = transactionService;
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.accountInfoRepository = accountInfoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queueCapacity = queueCapacity;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.ledgerEnabled = ledgerEnabled;
+    }
+
+    public TransactionStatusResponse submit(TransactionType type, TransactionDTO dto) {
+        if (ledgerEnabled) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Asynchronous submission is not supported by the ledger engine");
+        }
+        if (dto.getAmount() == null || dto.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be positive");
+        }
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            throw new SubmissionQueueFullException("Transaction queue is full, retry later");
+        }
+        try {
+            Transaction pending = transactionTemplate.execute(status -> transactionRepository.save(toPending(type, dto)));
+            // queued only after the insert has committed, so a worker always finds the row
+            queue.add(pending.getId());
+            return toResponse(pending);
+        } catch (RuntimeException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    public TransactionStatusResponse getStatus(Long transactionId) {
+        return transactionRepository.findStatusById(transactionId)
+                .orElseThrow(() -> new EmptyResultDataAccessException("Transaction not found with id: " + transactionId, 1));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<Long> recovered = transactionRepository.findIdsByStatus(TransactionStatus.PENDING);
+        if (!recovered.isEmpty()) {
+            log.info("Re-queueing {} pending transactions", recovered.size());
+            queued.addAndGet(recovered.size());
+            queue.addAll(recovered);
+        }
+        AtomicInteger threads = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "tx-worker-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            pool.execute(this::work);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (pool != null) {
+            // an interrupted batch rolls back and stays PENDING until the next start
+            pool.shutdownNow();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void work() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                log.warn("Failed to process {} queued transactions: {}", batch.size(), e.getMessage());
+            } finally {
+                queued.addAndGet(-batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    void process(List<Long> batch) {
+        if (batch.size() > 1) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(transactionService::complete));
+                return;
+            } catch (RuntimeException e) {
+                log.debug("Batch of {} transactions rolled back, retrying one by one: {}", batch.size(), e.getMessage());
+            }
+        }
+        for (Long id : batch) {
+            processOne(id);
+        }
+    }
+
+    private void processOne(Long id) {
+        try {
+            // complete() opens its own transaction, so version conflicts are retried in OPTIMISTIC mode
+            transactionService.complete(id);
+        } catch (RuntimeException e) {
+            String reason = failureReason(e);
+            try {
+                transactionTemplate.executeWithoutResult(status -> transactionRepository.updateStatus(
+                        id, TransactionStatus.PENDING, TransactionStatus.FAILED, reason));
+            } catch (RuntimeException f) {
+                log.warn("Failed to mark transaction {} as failed, it stays pending: {}", id, f.getMessage());
+            }
+        }
+    }
+
+    private Transaction toPending(TransactionType type, TransactionDTO dto) {
+        BankAccount from = null;
+        BankAccount to = null;
+        if (type != TransactionType.DEPOSIT) {
+            from = reference(dto.getFromAccountId(), "Source account not found");
+        }
+        if (type != TransactionType.WITHDRAWAL) {
+            to = reference(dto.getToAccountId(), "Target account not found");
+        }
+        Transaction tx = TransactionMapper.toEntity(dto, from, to, type, "Pending");
+        tx.setFromCurrency(dto.getFromCurrency());
+        tx.setToCurrency(dto.getToCurrency());
+        tx.setStatus(TransactionStatus.PENDING);
+        return tx;
+    }
+
+    private BankAccount reference(Long id, String notFoundMessage) {
+        if (id == null || accountInfoRepository.findById(id).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, notFoundMessage);
+        }
+        return accountRepository.getReferenceById(id);
+    }
+
+    private static TransactionStatusResponse toResponse(Transaction tx) {
+        TransactionStatus status = tx.getStatus() != null ? tx.getStatus() : TransactionStatus.COMPLETED;
+        return new TransactionStatusResponse(tx.getId(), tx.getType(), status, tx.getFailureReason());
+    }
+
+    private static String failureReason(RuntimeException e) {
+        String reason = e instanceof ResponseStatusException status && status.getReason() != null
+                ? status.getReason()
+                : e.getMessage();
+        if (reason == null) {
+            reason = e.getClass().getSimpleName();
+        }
+        return reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason;
+    }
+}
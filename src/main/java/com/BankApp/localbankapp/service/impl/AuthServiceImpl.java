@@ -6,6 +6,7 @@ import com.BankApp.localbankapp.mapper.UserMapper;
 import com.BankApp.localbankapp.model.User;
 import com.BankApp.localbankapp.repository.UserRepository;
 import com.BankApp.localbankapp.security.JwtTokenProvider;
+import com.BankApp.localbankapp.security.LoginExecutor;
 import com.BankApp.localbankapp.service.AuthService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -28,6 +29,7 @@ public class AuthServiceImpl implements AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
+    private final LoginExecutor loginExecutor;
 
     @Transactional
     public User registerUser(AuthRequest request) {
@@ -49,12 +51,13 @@ public class AuthServiceImpl implements AuthService {
     }
 
     public String authenticateUser(AuthRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
+        // BCrypt, and the rehash of an outdated hash, run on the login pool rather than on this request thread
+        Authentication authentication = loginExecutor.call(() -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getUsername(),
                         request.getPassword()
                 )
-        );
+        ));
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         return tokenProvider.generateToken(authentication);
@@ -0,0 +1,224 @@
+package com.BankApp.localbankapp.service.impl;
+
+import com.BankApp.localbankapp.dto.BalanceReport;
+import com.BankApp.localbankapp.service.BalanceRebuildService;
+import com.BankApp.localbankapp.util.BalanceCache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Walks {@code bank_accounts} in id-ordered chunks and, for each chunk, sums the account's ledger entries in one
+ * statement and compares the result with the cached balance. Chunks run on a fixed pool with at most
+ * {@code parallelism} of them in flight, so memory stays bounded by {@code parallelism * chunkSize} rows whatever
+ * the table size.
+ *
+ * <p>Each chunk is read by a single statement, so the cached balance and the entries come from the same snapshot.
+ * Repairs apply the difference rather than the recomputed value, which keeps them correct while transactions
+ * commit in between. With the ledger engine enabled its next flush would overwrite repaired balances with its
+ * own, so repairs are rejected then; reports are still served.
+ *
+ * @author Alexander Brazhkin
+ */
+@Service
+@Slf4j
+public class BalanceRebuildServiceImpl implements BalanceRebuildService {
+    private static final String NEXT_CHUNK = "select id from bank_accounts where id > ? order by id limit ?";
+    private static final String COMPARE_CHUNK = """
+            select a.id,
+                   a.balance + coalesce(s.total, 0) as cached,
+                   coalesce(e.total, 0) as ledger
+            from bank_accounts a
+            left join (select account_id, sum(balance) as total
+                       from account_stripes
+                       where account_id between ? and ?
+                       group by account_id) s on s.account_id = a.id
+            left join (select account_id,
+                              sum(case when direction = 'CREDIT' then amount else -amount end) as total
+                       from ledger_entries
+                       where account_id between ? and ?
+                       group by account_id) e on e.account_id = a.id
+            where a.id between ? and ?""";
+    private static final String REPAIR = "update bank_accounts set balance = balance + ?, version = version + 1 where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceCache balanceCache;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int maxReportedDrifts;
+    private final boolean ledgerEnabled;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BalanceRebuildServiceImpl(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     BalanceCache balanceCache,
+                                     @Value("${app.balances.rebuild.parallelism:4}") int parallelism,
+                                     @Value("${app.balances.rebuild.chunkSize:1000}") int chunkSize,
+                                     @Value("${app.balances.rebuild.maxReportedDrifts:100}") int maxReportedDrifts,
+                                     @Value("${app.ledger.enabled:false}") boolean ledgerEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.balanceCache = balanceCache;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.maxReportedDrifts = maxReportedDrifts;
+        this.ledgerEnabled = ledgerEnabled;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "balance-rebuild-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reports accounts whose cached balance differs from their ledger entries without changing anything.
+     */
+    public BalanceReport verify() {
+        return run(false);
+    }
+
+    /**
+     * Reports drifting accounts and sets their cached balance to the sum of their ledger entries.
+     */
+    public BalanceReport rebuild() {
+        if (ledgerEnabled) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Balances cannot be repaired while the ledger engine owns them");
+        }
+        return run(true);
+    }
+
+    @Scheduled(cron = "${app.balances.verifyCron:-}")
+    public void scheduledVerify() {
+        try {
+            verify();
+        } catch (ResponseStatusException e) {
+            log.debug("Skipping scheduled balance verification: {}", e.getReason());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private BalanceReport run(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Balance recomputation is already running");
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Tally tally = new Tally();
+            Semaphore inFlight = new Semaphore(parallelism);
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            long after = 0;
+            while (true) {
+                List<Long> ids = jdbcTemplate.queryForList(NEXT_CHUNK, Long.class, after, chunkSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long from = ids.get(0);
+                long to = ids.get(ids.size() - 1);
+                after = to;
+                inFlight.acquireUninterruptibly();
+                chunks.add(CompletableFuture.runAsync(() -> compare(from, to, repair, tally), executor)
+                                            .whenComplete((ignored, e) -> inFlight.release()));
+                chunks.removeIf(CompletableFuture::isDone);
+            }
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+
+            BalanceReport report = tally.report(System.currentTimeMillis() - started);
+            if (report.getDriftCount() > 0) {
+                log.warn("Balance {} found {} of {} accounts drifting from their ledger entries, repaired {}",
+                        repair ? "rebuild" : "verification", report.getDriftCount(), report.getAccountsChecked(),
+                        report.getRepaired());
+            } else {
+                log.info("Balance {} checked {} accounts in {} ms, no drift",
+                        repair ? "rebuild" : "verification", report.getAccountsChecked(), report.getDurationMs());
+            }
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void compare(long from, long to, boolean repair, Tally tally) {
+        List<BalanceReport.Drift> drifts = new ArrayList<>();
+        jdbcTemplate.query(COMPARE_CHUNK, rs -> {
+            tally.checked.incrementAndGet();
+            BigDecimal cached = rs.getBigDecimal("cached");
+            BigDecimal ledger = rs.getBigDecimal("ledger");
+            if (cached.compareTo(ledger) != 0) {
+                drifts.add(new BalanceReport.Drift(rs.getLong("id"), cached, ledger));
+            }
+        }, from, to, from, to, from, to);
+        if (drifts.isEmpty()) {
+            return;
+        }
+        tally.drifted(drifts, maxReportedDrifts);
+        if (repair) {
+            List<Object[]> rows = new ArrayList<>(drifts.size());
+            List<Long> accountIds = new ArrayList<>(drifts.size());
+            for (BalanceReport.Drift drift : drifts) {
+                rows.add(new Object[]{drift.getLedger().subtract(drift.getCached()), drift.getAccountId()});
+                accountIds.add(drift.getAccountId());
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(REPAIR, rows);
+                balanceCache.evictAfterCommit(accountIds);
+            });
+            tally.repaired.addAndGet(rows.size());
+        }
+    }
+
+    private static final class Tally {
+        final AtomicLong checked = new AtomicLong();
+        final AtomicLong drifted = new AtomicLong();
+        final AtomicLong repaired = new AtomicLong();
+        final List<BalanceReport.Drift> reported = Collections.synchronizedList(new ArrayList<>());
+
+        void drifted(List<BalanceReport.Drift> drifts, int maxReported) {
+            drifted.addAndGet(drifts.size());
+            for (BalanceReport.Drift drift : drifts) {
+                log.warn("Account {} caches balance {} but its ledger entries sum to {}",
+                        drift.getAccountId(), drift.getCached(), drift.getLedger());
+            }
+            synchronized (reported) {
+                for (BalanceReport.Drift drift : drifts) {
+                    if (reported.size() >= maxReported) {
+                        return;
+                    }
+                    reported.add(drift);
+                }
+            }
+        }
+
+        BalanceReport report(long durationMs) {
+            List<BalanceReport.Drift> drifts = new ArrayList<>(reported);
+            drifts.sort((a, b) -> Long.compare(a.getAccountId(), b.getAccountId()));
+            return new BalanceReport(checked.get(), drifted.get(), repaired.get(), durationMs, drifts);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.BankApp.localbankapp.service.impl;
+
+import com.BankApp.localbankapp.service.LockingMode;
+import com.BankApp.localbankapp.service.RetryOnConflict;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Re-runs {@link RetryOnConflict} operations that lose a version check. Ordered outside the transaction advice,
+ * because the check fails at flush, i.e. when the operation's transaction commits; each retry therefore starts a
+ * fresh transaction. Calls made inside a caller's transaction are not retried, the caller's commit decides.
+ * <p>
+ * Every mode publishes {@code bank.transactions.attempts} and {@code bank.transactions.conflicts} per operation,
+ * so the conflict rate of a workload can be read off before switching to {@link LockingMode#OPTIMISTIC}; retries
+ * happen only in that mode. Backoff is "full jitter": a random delay up to {@code baseBackoffMs * 2^(attempt-1)},
+ * capped at {@code maxBackoffMs}.
+ *
+ * @author Alexander Brazhkin
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@Slf4j
+public class ConflictRetryAspect {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.transactions.locking:NONE}")
+    private LockingMode lockingMode = LockingMode.NONE;
+
+    @Value("${app.transactions.optimistic.maxAttempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${app.transactions.optimistic.baseBackoffMs:5}")
+    private long baseBackoffMs = 5;
+
+    @Value("${app.transactions.optimistic.maxBackoffMs:100}")
+    private long maxBackoffMs = 100;
+
+    public ConflictRetryAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(com.BankApp.localbankapp.service.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        String operation = joinPoint.getSignature().getName();
+        int attempts = lockingMode == LockingMode.OPTIMISTIC ? Math.max(1, maxAttempts) : 1;
+        for (int attempt = 1; ; attempt++) {
+            counter("bank.transactions.attempts", operation).increment();
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                counter("bank.transactions.conflicts", operation).increment();
+                if (attempt >= attempts) {
+                    if (attempts > 1) {
+                        counter("bank.transactions.retries.exhausted", operation).increment();
+                        log.warn("{} still conflicting after {} attempts", operation, attempt);
+                    }
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Account was modified concurrently");
+                }
+                counter("bank.transactions.retries", operation).increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        if (ceiling > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
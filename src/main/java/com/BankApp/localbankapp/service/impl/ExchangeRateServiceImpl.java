@@ -0,0 +1,146 @@
+package com.BankApp.localbankapp.service.impl;
+
+import com.BankApp.localbankapp.currency.RateSnapshot;
+import com.BankApp.localbankapp.currency.RatesRefreshedEvent;
+import com.BankApp.localbankapp.exception.RatesUnavailableException;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.ExchangeRate;
+import com.BankApp.localbankapp.model.ExchangeRateId;
+import com.BankApp.localbankapp.repository.ExchangeRateRepository;
+import com.BankApp.localbankapp.service.ExchangeRateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Persists every snapshot the converter installs into {@code exchange_rates} and answers point-in-time
+ * lookups. The last {@code indexDays} feed dates are served from memory; older dates fall back to the table.
+ *
+ * @author Alexander Brazhkin
+ */
+@Service
+@Slf4j
+public class ExchangeRateServiceImpl implements ExchangeRateService {
+    private static final int CURRENCY_COUNT = Currency.values().length;
+
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ZoneId zone;
+    private final int indexDays;
+    private final ConcurrentSkipListMap<LocalDate, RateSnapshot> index = new ConcurrentSkipListMap<>();
+
+    public ExchangeRateServiceImpl(ExchangeRateRepository exchangeRateRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.rates.zone:Europe/Moscow}") String zone,
+                                   @Value("${app.rates.history.indexDays:31}") int indexDays) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.zone = ZoneId.of(zone);
+        this.indexDays = indexDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadIndex() {
+        LocalDate since = LocalDate.now(zone).minusDays(indexDays);
+        NavigableMap<LocalDate, List<ExchangeRate>> byDate = new TreeMap<>();
+        for (ExchangeRate rate : exchangeRateRepository.findByIdRateDateGreaterThanEqual(since)) {
+            byDate.computeIfAbsent(rate.getId().getRateDate(), d -> new ArrayList<>()).add(rate);
+        }
+        byDate.forEach((date, rates) -> remember(toSnapshot(date, rates)));
+        log.info("Indexed exchange rates for {} dates since {}", byDate.size(), since);
+    }
+
+    @EventListener
+    public void onRatesRefreshed(RatesRefreshedEvent event) {
+        try {
+            record(event.snapshot());
+        } catch (DataAccessException e) {
+            log.warn("Failed to persist exchange rates for {}: {}", event.snapshot().getRateDate(), e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the snapshot's rates in one transaction and indexes the snapshot once they have committed. The
+     * transaction is programmatic because {@link #onRatesRefreshed} calls this past the proxy.
+     */
+    public void record(RateSnapshot snapshot) {
+        LocalDate rateDate = snapshot.getRateDate();
+        if (rateDate == null) {
+            log.warn("Skipping exchange rate snapshot without a feed date");
+            return;
+        }
+        RateSnapshot known = index.get(rateDate);
+        if (known != null && known.getRates().equals(snapshot.getRates())) {
+            return;
+        }
+
+        List<ExchangeRate> rows = new ArrayList<>(snapshot.getRates().size());
+        for (Entry<String, BigDecimal> rate : snapshot.getRates().entrySet()) {
+            rows.add(new ExchangeRate(new ExchangeRateId(rateDate, Currency.valueOf(rate.getKey())),
+                    rate.getValue(), snapshot.getFetchedAt()));
+        }
+        transactionTemplate.executeWithoutResult(status -> exchangeRateRepository.saveAll(rows));
+        remember(snapshot);
+    }
+
+    /**
+     * Rates in effect on {@code rateDate}: the snapshot of the latest feed date on or before it.
+     */
+    @Transactional(readOnly = true)
+    public RateSnapshot snapshotOn(LocalDate rateDate) {
+        if (!index.isEmpty() && !rateDate.isBefore(index.firstKey())) {
+            return index.floorEntry(rateDate).getValue();
+        }
+        LocalDate effective = exchangeRateRepository.findLatestRateDateOnOrBefore(rateDate)
+                .orElseThrow(() -> new RatesUnavailableException("No exchange rates recorded on or before " + rateDate));
+        return toSnapshot(effective, exchangeRateRepository.findByIdRateDate(effective));
+    }
+
+    public RateSnapshot snapshotAt(Instant instant) {
+        return snapshotOn(LocalDate.ofInstant(instant, zone));
+    }
+
+    public BigDecimal convertAt(BigDecimal amount, Currency fromCurrency, Currency toCurrency, Instant instant) {
+        if (fromCurrency == toCurrency) {
+            return amount.setScale(2, RoundingMode.HALF_UP);
+        }
+        return snapshotAt(instant).convert(amount, fromCurrency, toCurrency);
+    }
+
+    private void remember(RateSnapshot snapshot) {
+        index.put(snapshot.getRateDate(), snapshot);
+        index.headMap(index.lastKey().minusDays(indexDays)).clear();
+    }
+
+    private static RateSnapshot toSnapshot(LocalDate rateDate, List<ExchangeRate> rates) {
+        BigDecimal[] rubPerUnit = new BigDecimal[CURRENCY_COUNT];
+        for (ExchangeRate rate : rates) {
+            rubPerUnit[rate.getId().getCurrency().ordinal()] = rate.getRubPerUnit();
+        }
+        Instant fetchedAt = rates.stream()
+                                 .map(ExchangeRate::getFetchedAt)
+                                 .max(Comparator.naturalOrder())
+                                 .orElse(null);
+        return new RateSnapshot(rateDate, fetchedAt, rubPerUnit);
+    }
+}
@@ -0,0 +1,187 @@
+package com.BankApp.localbankapp.service.impl;
+
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.IdempotencyKey;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionType;
+import com.BankApp.localbankapp.repository.IdempotencyKeyRepository;
+import com.BankApp.localbankapp.repository.TransactionRepository;
+import com.BankApp.localbankapp.service.IdempotencyService;
+import com.BankApp.localbankapp.service.RetryOnConflict;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs a money-moving operation at most once per {@code Idempotency-Key}. The {@code idempotency_keys} row is
+ * written in the same database transaction as the operation and is the source of truth; a bounded LRU of
+ * recently completed keys answers most retries without touching that table. Duplicates arriving while the
+ * first request is still running wait for it instead of racing it.
+ *
+ * <p>Keys are scoped to the authenticated user, and a key replayed with a different request is rejected.
+ *
+ * <p>The ledger engine commits in its journal before any database transaction, so the key row could not be
+ * written atomically with the operation; with the ledger enabled, keyed requests are rejected. A key row always
+ * commits with its transaction, so a key whose transaction is gone points at one archived by partition
+ * maintenance, and its replay answers 410 for good.
+ *
+ * @author Alexander Brazhkin
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Completed> recent;
+    private final ConcurrentHashMap<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+    private final boolean ledgerEnabled;
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepository idempotencyKeyRepository,
+                                  TransactionRepository transactionRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.idempotency.cacheSize:10000}") int cacheSize,
+                                  @Value("${app.ledger.enabled:false}") boolean ledgerEnabled) {
+        this.ledgerEnabled = ledgerEnabled;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    @RetryOnConflict
+    public Transaction execute(String idempotencyKey, TransactionType operation, TransactionDTO dto, Supplier<Transaction> action) {
+        if (ledgerEnabled) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key is not supported by the ledger engine");
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters long");
+        }
+        String key = currentScope() + ':' + idempotencyKey;
+        String requestHash = requestHash(operation, dto);
+
+        while (true) {
+            Completed completed;
+            synchronized (recent) {
+                completed = recent.get(key);
+            }
+            if (completed != null) {
+                return replay(completed, requestHash);
+            }
+
+            CompletableFuture<Completed> mine = new CompletableFuture<>();
+            CompletableFuture<Completed> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                try {
+                    return replay(running.join(), requestHash);
+                } catch (CompletionException e) {
+                    // the first attempt failed and recorded nothing, so this one is free to run the operation
+                    continue;
+                }
+            }
+
+            try {
+                Transaction transaction = executeOnce(key, operation, requestHash, action);
+                mine.complete(remember(key, transaction.getId(), requestHash));
+                return transaction;
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+    }
+
+    private Transaction executeOnce(String key, TransactionType operation, String requestHash, Supplier<Transaction> action) {
+        try {
+            return transactionTemplate.execute(status -> {
+                IdempotencyKey known = idempotencyKeyRepository.findById(key).orElse(null);
+                if (known != null) {
+                    return replay(new Completed(known.getTransactionId(), known.getRequestHash()), requestHash);
+                }
+                Transaction transaction = action.get();
+                idempotencyKeyRepository.saveAndFlush(
+                        new IdempotencyKey(key, operation, requestHash, transaction.getId()));
+                return transaction;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // another node committed the same key between our lookup and insert; our operation ran in the same
+            // database transaction as the insert and was rolled back with it
+            log.info("Idempotency key {} was completed concurrently, replaying", key);
+            IdempotencyKey known = idempotencyKeyRepository.findById(key).orElseThrow(() -> e);
+            return replay(new Completed(known.getTransactionId(), known.getRequestHash()), requestHash);
+        }
+    }
+
+    private Transaction replay(Completed completed, String requestHash) {
+        if (!completed.requestHash().equals(requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+        return transactionRepository.findById(completed.transactionId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.GONE,
+                        "Transaction " + completed.transactionId() + " recorded for this Idempotency-Key was applied "
+                                + "and has since been archived; do not retry"));
+    }
+
+    private Completed remember(String key, Long transactionId, String requestHash) {
+        Completed completed = new Completed(transactionId, requestHash);
+        synchronized (recent) {
+            recent.put(key, completed);
+        }
+        return completed;
+    }
+
+    private static String currentScope() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    static String requestHash(TransactionType operation, TransactionDTO dto) {
+        String canonical = String.join("|", operation.name(),
+                Objects.toString(dto.getFromAccountId()),
+                Objects.toString(dto.getToAccountId()),
+                dto.getAmount() == null ? "null" : dto.getAmount().stripTrailingZeros().toPlainString(),
+                Objects.toString(dto.getFromCurrency()),
+                Objects.toString(dto.getToCurrency()));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Completed(Long transactionId, String requestHash) {
+    }
+}
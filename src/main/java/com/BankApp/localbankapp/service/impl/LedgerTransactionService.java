@@ -0,0 +1,142 @@
+package com.BankApp.localbankapp.service.impl;
+
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.BatchTransferResult;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.exception.LedgerUnavailableException;
+import com.BankApp.localbankapp.ledger.LedgerEngine;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionStatus;
+import com.BankApp.localbankapp.service.TransactionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link TransactionService} backed by the in-memory {@link LedgerEngine}: no database work on the request path.
+ * Replaces {@link TransactionServiceImpl} when {@code app.ledger.enabled} is set.
+ *
+ * @author Alexander Brazhkin
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.ledger.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class LedgerTransactionService implements TransactionService {
+    private final LedgerEngine ledgerEngine;
+
+    @Value("${app.ledger.timeoutMs:5000}")
+    private long timeoutMs = 5000;
+
+    @Value("${app.transactions.batch.maxSize:500}")
+    private int maxBatchSize = 500;
+
+    public Transaction transfer(TransactionDTO dto) {
+        requirePositive(dto);
+        return await(ledgerEngine.transfer(dto, ledgerEngine.pinRates()));
+    }
+
+    public Transaction deposit(TransactionDTO dto) {
+        requirePositive(dto);
+        return await(ledgerEngine.deposit(dto, ledgerEngine.pinRates()));
+    }
+
+    public Transaction withdrawal(TransactionDTO dto) {
+        requirePositive(dto);
+        return await(ledgerEngine.withdrawal(dto, ledgerEngine.pinRates()));
+    }
+
+    /**
+     * Shards cannot roll back each other, so only {@code PARTIAL} batches are supported. Items are submitted
+     * together and complete independently.
+     */
+    public BatchTransferResult transferBatch(BatchTransferRequest request) {
+        List<TransactionDTO> transfers = request.getTransfers();
+        if (transfers == null || transfers.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch is empty");
+        }
+        if (transfers.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch size exceeds " + maxBatchSize);
+        }
+        // TransactionServiceImpl runs a missing mode as ALL_OR_NOTHING, which needs a rollback the journal cannot do
+        BatchTransferRequest.Mode mode = request.getMode();
+        if (mode != BatchTransferRequest.Mode.PARTIAL) {
+            String sent = mode != null ? mode.name() : "null (ALL_OR_NOTHING by default)";
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch mode " + sent + " is not supported by the ledger engine; send mode PARTIAL");
+        }
+
+        List<CompletableFuture<Transaction>> submitted = new ArrayList<>(transfers.size());
+        for (TransactionDTO dto : transfers) {
+            try {
+                requirePositive(dto);
+                submitted.add(ledgerEngine.transfer(dto, ledgerEngine.pinRates()));
+            } catch (RuntimeException e) {
+                submitted.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        List<BatchTransferResult.Item> items = new ArrayList<>(transfers.size());
+        int failed = 0;
+        for (int i = 0; i < submitted.size(); i++) {
+            try {
+                Transaction tx = await(submitted.get(i));
+                items.add(new BatchTransferResult.Item(i, TransactionStatus.COMPLETED, tx.getId(), null));
+            } catch (RuntimeException e) {
+                items.add(new BatchTransferResult.Item(i, TransactionStatus.FAILED, null, failureReason(e)));
+                failed++;
+            }
+        }
+        return new BatchTransferResult(BatchTransferRequest.Mode.PARTIAL, items.size() - failed, failed, items);
+    }
+
+    /**
+     * The engine assigns its own transaction ids and writes rows behind the request, so it cannot adopt a
+     * pending row; with the ledger enabled, submissions are rejected before they are queued.
+     */
+    public Transaction complete(Long pendingTransactionId) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Asynchronous submission is not supported by the ledger engine");
+    }
+
+    private static void requirePositive(TransactionDTO dto) {
+        if (dto.getAmount() == null || dto.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be positive");
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new LedgerUnavailableException("Ledger operation failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new LedgerUnavailableException("Ledger did not confirm the operation within " + timeoutMs
+                    + " ms; its outcome is unknown, check the account's history or balance before retrying");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LedgerUnavailableException("Interrupted while waiting for the ledger", e);
+        }
+    }
+
+    private static String failureReason(RuntimeException e) {
+        return e instanceof ResponseStatusException status && status.getReason() != null
+                ? status.getReason()
+                : e.getMessage();
+    }
+}
@@ -0,0 +1,174 @@
+package com.BankApp.localbankapp.service.impl;
+
+import com.BankApp.localbankapp.dto.StatementFormat;
+import com.BankApp.localbankapp.dto.StatementLine;
+import com.BankApp.localbankapp.model.LedgerEntry;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.repository.AccountInfoRepository;
+import com.BankApp.localbankapp.repository.LedgerEntryRepository;
+import com.BankApp.localbankapp.service.StatementService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Statements are built from the account's ledger entries rather than its transactions: entries are already in the
+ * account's currency, so the running balance is a plain sum, and opening balances are included.
+ *
+ * <p>Entries are read through a database cursor and each one is detached, with its transaction, as soon as its
+ * line is written, so memory use does not grow with the statement. Lines go out through a buffered writer that is
+ * only flushed by filling up, never per line.
+ *
+ * @author Alexander Brazhkin
+ */
+@Service
+public class StatementServiceImpl implements StatementService {
+    private static final String CSV_HEADER = "entry_id,timestamp,transaction_id,type,direction,counterparty_account_id,"
+            + "amount,currency,rate,description,balance";
+
+    private final AccountInfoRepository accountInfoRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter lineWriter;
+
+    public StatementServiceImpl(AccountInfoRepository accountInfoRepository,
+                                LedgerEntryRepository ledgerEntryRepository,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper) {
+        this.accountInfoRepository = accountInfoRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.lineWriter = objectMapper.writerFor(StatementLine.class)
+                                      .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                                      .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public StreamingResponseBody export(Long accountId, StatementFormat format) {
+        if (accountInfoRepository.findById(accountId).isEmpty()) {
+            throw new EmptyResultDataAccessException("Account not found with id: " + accountId, 1);
+        }
+        return out -> transactionTemplate.executeWithoutResult(status -> write(accountId, format, out));
+    }
+
+    private void write(Long accountId, StatementFormat format, OutputStream out) {
+        try (Stream<LedgerEntry> entries = ledgerEntryRepository.streamByAccountId(accountId)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            JsonGenerator generator = null;
+            if (format == StatementFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            } else {
+                generator = lineWriter.createGenerator(writer);
+            }
+            BigDecimal balance = BigDecimal.ZERO;
+            for (Iterator<LedgerEntry> it = entries.iterator(); it.hasNext(); ) {
+                LedgerEntry entry = it.next();
+                balance = balance.add(entry.signedAmount());
+                StatementLine line = toLine(entry, balance);
+                if (generator != null) {
+                    lineWriter.writeValue(generator, line);
+                    generator.writeRaw('\n');
+                } else {
+                    writeCsv(writer, line);
+                }
+                detach(entry);
+            }
+            if (generator != null) {
+                generator.flush();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void detach(LedgerEntry entry) {
+        entityManager.detach(entry);
+        if (entry.getTransaction() != null) {
+            entityManager.detach(entry.getTransaction());
+        }
+    }
+
+    private static StatementLine toLine(LedgerEntry entry, BigDecimal balance) {
+        Transaction transaction = entry.getTransaction();
+        Long counterparty = null;
+        if (transaction != null) {
+            Long fromId = transaction.getFromAccount() != null ? transaction.getFromAccount().getId() : null;
+            Long toId = transaction.getToAccount() != null ? transaction.getToAccount().getId() : null;
+            counterparty = entry.getAccountId().equals(fromId) ? toId : fromId;
+        }
+        return new StatementLine(
+                entry.getId(),
+                entry.getCreatedAt(),
+                transaction != null ? transaction.getId() : null,
+                transaction != null ? transaction.getType() : null,
+                entry.getDirection(),
+                counterparty,
+                entry.getAmount(),
+                entry.getCurrency(),
+                entry.getRate(),
+                transaction != null ? transaction.getDescription() : null,
+                balance);
+    }
+
+    private static void writeCsv(Writer writer, StatementLine line) throws IOException {
+        writer.write(String.valueOf(line.getEntryId()));
+        writer.write(',');
+        writer.write(line.getTimestamp().toString());
+        writer.write(',');
+        writer.write(csv(line.getTransactionId()));
+        writer.write(',');
+        writer.write(csv(line.getType()));
+        writer.write(',');
+        writer.write(line.getDirection().name());
+        writer.write(',');
+        writer.write(csv(line.getCounterpartyAccountId()));
+        writer.write(',');
+        writer.write(line.getAmount().toPlainString());
+        writer.write(',');
+        writer.write(line.getCurrency().name());
+        writer.write(',');
+        writer.write(line.getRate() != null ? line.getRate().toPlainString() : "");
+        writer.write(',');
+        writer.write(csv(line.getDescription()));
+        writer.write(',');
+        writer.write(line.getBalance().toPlainString());
+        writer.write('\n');
+    }
+
+    /**
+     * RFC 4180 field: quoted, with quotes doubled, when it contains a separator, a quote or a line break.
+     */
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
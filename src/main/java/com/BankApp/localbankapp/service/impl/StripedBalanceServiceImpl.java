@@ -0,0 +1,196 @@
+package com.BankApp.localbankapp.service.impl;
+
+import com.BankApp.localbankapp.model.AccountStripe;
+import com.BankApp.localbankapp.model.AccountStripeId;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.AccountStripeRepository;
+import com.BankApp.localbankapp.service.StripedBalanceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps a hot account's balance split across {@code K} stripe rows so that concurrent operations rarely touch the
+ * same row. Credits go to a random stripe. Debits try single stripes starting at a random one and, only if none
+ * can cover the amount alone, lock all stripes in order and draw from several. A scheduled pass evens the
+ * stripes out again so that fast-path debits keep succeeding.
+ *
+ * @author Alexander Brazhkin
+ */
+@Service
+@Slf4j
+public class StripedBalanceServiceImpl implements StripedBalanceService {
+    private final AccountRepository accountRepository;
+    private final AccountStripeRepository accountStripeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxStripes;
+    private final boolean ledgerEnabled;
+
+    public StripedBalanceServiceImpl(AccountRepository accountRepository,
+                                     AccountStripeRepository accountStripeRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.accounts.stripes.max:64}") int maxStripes,
+                                     @Value("${app.ledger.enabled:false}") boolean ledgerEnabled) {
+        this.accountRepository = accountRepository;
+        this.accountStripeRepository = accountStripeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxStripes = maxStripes;
+        this.ledgerEnabled = ledgerEnabled;
+    }
+
+    /**
+     * Spreads the account's balance over {@code stripes} rows, or folds it back into the account when
+     * {@code stripes} is 1 or less. Rejected with the ledger enabled: the engine keeps loaded balances in memory
+     * and would write the whole balance back to the account over the stripes.
+     */
+    @Transactional
+    public BankAccount stripe(Long accountId, int stripes) {
+        if (ledgerEnabled) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Striping is not supported by the ledger engine");
+        }
+        if (stripes > maxStripes) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stripe count exceeds " + maxStripes);
+        }
+        BankAccount account = accountRepository.lockById(accountId)
+                .orElseThrow(() -> new EmptyResultDataAccessException("Account not found with id: " + accountId, 1));
+        BigDecimal total = account.getBalance();
+        if (account.isStriped()) {
+            for (AccountStripeRepository.StripeView stripe : accountStripeRepository.lockStripes(accountId)) {
+                total = total.add(stripe.getBalance());
+            }
+            accountStripeRepository.deleteByAccountId(accountId);
+            // the bulk delete must reach the database before stripes with the same ids are inserted
+            accountStripeRepository.flush();
+        }
+
+        if (!BankAccount.isStriped(stripes)) {
+            account.setBalance(total);
+            account.setStripeCount(null);
+            return account;
+        }
+        List<AccountStripe> rows = new ArrayList<>(stripes);
+        BigDecimal[] shares = split(total, stripes);
+        for (int i = 0; i < stripes; i++) {
+            rows.add(new AccountStripe(new AccountStripeId(accountId, i), shares[i]));
+        }
+        accountStripeRepository.saveAll(rows);
+        account.setBalance(BigDecimal.ZERO.setScale(total.scale()));
+        account.setStripeCount(stripes);
+        log.info("Account {} striped across {} rows", accountId, stripes);
+        return account;
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal balance(Long accountId) {
+        BankAccount account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new EmptyResultDataAccessException("Account not found with id: " + accountId, 1));
+        return account.getBalance().add(accountStripeRepository.sumBalance(accountId));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void credit(Long accountId, BigDecimal amount) {
+        int stripes = stripeCount(accountId);
+        if (accountStripeRepository.credit(accountId, ThreadLocalRandom.current().nextInt(stripes), amount) != 1) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Account was modified concurrently");
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void debit(Long accountId, BigDecimal amount) {
+        int stripes = stripeCount(accountId);
+        int first = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            if (accountStripeRepository.debit(accountId, (first + i) % stripes, amount) == 1) {
+                return;
+            }
+        }
+
+        // no single stripe covers the amount: take the whole account and draw from several
+        List<AccountStripeRepository.StripeView> locked = accountStripeRepository.lockStripes(accountId);
+        BigDecimal available = locked.stream().map(AccountStripeRepository.StripeView::getBalance)
+                                     .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (available.compareTo(amount) < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient funds");
+        }
+        BigDecimal remaining = amount;
+        for (AccountStripeRepository.StripeView stripe : locked) {
+            BigDecimal taken = stripe.getBalance().min(remaining);
+            if (taken.signum() > 0) {
+                accountStripeRepository.setBalance(accountId, stripe.getStripe(), stripe.getBalance().subtract(taken));
+                remaining = remaining.subtract(taken);
+            }
+            if (remaining.signum() == 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Evens out the stripes of one account under a lock on all of them.
+     */
+    @Transactional
+    public void rebalance(Long accountId) {
+        List<AccountStripeRepository.StripeView> locked = accountStripeRepository.lockStripes(accountId);
+        if (locked.size() < 2) {
+            return;
+        }
+        BigDecimal total = locked.stream().map(AccountStripeRepository.StripeView::getBalance)
+                                 .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal[] shares = split(total, locked.size());
+        for (AccountStripeRepository.StripeView stripe : locked) {
+            if (stripe.getBalance().compareTo(shares[stripe.getStripe()]) != 0) {
+                accountStripeRepository.setBalance(accountId, stripe.getStripe(), shares[stripe.getStripe()]);
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.accounts.stripes.rebalanceIntervalMs:60000}",
+            fixedDelayString = "${app.accounts.stripes.rebalanceIntervalMs:60000}")
+    public void rebalanceAll() {
+        for (Long accountId : accountRepository.findStripedAccountIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebalance(accountId));
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebalance stripes of account {}: {}", accountId, e.getMessage());
+            }
+        }
+    }
+
+    private int stripeCount(Long accountId) {
+        Integer stripes = accountRepository.findStripeCountById(accountId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Account not found"));
+        if (!BankAccount.isStriped(stripes)) {
+            throw new IllegalStateException("Account " + accountId + " is not striped");
+        }
+        return stripes;
+    }
+
+    /**
+     * Splits {@code total} into {@code parts} equal shares in minor units; the remainder goes to the first share.
+     */
+    private static BigDecimal[] split(BigDecimal total, int parts) {
+        int scale = Math.max(2, total.scale());
+        BigDecimal share = total.divide(BigDecimal.valueOf(parts), scale, RoundingMode.DOWN);
+        BigDecimal[] shares = new BigDecimal[parts];
+        Arrays.fill(shares, share);
+        shares[0] = total.subtract(share.multiply(BigDecimal.valueOf(parts - 1L))).setScale(scale, RoundingMode.UNNECESSARY);
+        return shares;
+    }
+}
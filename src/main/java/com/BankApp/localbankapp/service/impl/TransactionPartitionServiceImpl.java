@@ -0,0 +1,131 @@
+package com.BankApp.localbankapp.service.impl;
+
+import com.BankApp.localbankapp.service.TransactionPartitionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions {@code transactions_YYYY_MM} of {@code transactions} (see
+ * {@code init-scripts/create_db.sql}): creates the current month and the next {@code monthsAhead} through
+ * {@code create_transactions_partition}, and detaches months older than {@code retentionMonths} into
+ * {@code archiveSchema}, where they stay queryable but no longer weigh on the table's indexes. Runs at startup and
+ * on {@code cron}; a table that has not been partitioned yet is left alone.
+ *
+ * <p>Archived transactions drop out of history pages and status lookups, and ledger entries that point at them
+ * are exported without a transaction, so the retention window has to outlast anything that reads them back;
+ * an {@code Idempotency-Key} replayed after its transaction was archived gets 410.
+ *
+ * @author Alexander Brazhkin
+ */
+@Service
+@Slf4j
+public class TransactionPartitionServiceImpl implements TransactionPartitionService {
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_(\\d{4})_(\\d{2})");
+    private static final Pattern SCHEMA_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final String IS_PARTITIONED =
+            "select count(*) from pg_partitioned_table where partrelid = to_regclass('transactions')";
+    private static final String CREATE_PARTITION = "select create_transactions_partition(?)";
+    private static final String PARTITIONS = """
+            select c.relname
+            from pg_inherits i
+            join pg_class c on c.oid = i.inhrelid
+            where i.inhparent = to_regclass('transactions')
+            order by c.relname""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final String archiveSchema;
+
+    public TransactionPartitionServiceImpl(JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${app.transactions.partitions.enabled:false}") boolean enabled,
+                                           @Value("${app.transactions.partitions.monthsAhead:3}") int monthsAhead,
+                                           @Value("${app.transactions.partitions.retentionMonths:24}") int retentionMonths,
+                                           @Value("${app.transactions.partitions.archiveSchema:archive}") String archiveSchema) {
+        if (!SCHEMA_NAME.matcher(archiveSchema).matches()) {
+            throw new IllegalArgumentException("Invalid archive schema name: " + archiveSchema);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveSchema = archiveSchema;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.transactions.partitions.cron:0 0 3 * * *}")
+    public void scheduledMaintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            maintain();
+        } catch (DataAccessException e) {
+            log.error("Partition maintenance of transactions failed: {}", e.getMessage());
+        }
+    }
+
+    public void maintain() {
+        maintain(YearMonth.now());
+    }
+
+    /**
+     * Maintenance as of {@code current}. Transaction timestamps are local times of this JVM, and so are the
+     * partition bounds.
+     */
+    public void maintain(YearMonth current) {
+        Integer partitioned = jdbcTemplate.queryForObject(IS_PARTITIONED, Integer.class);
+        if (partitioned == null || partitioned == 0) {
+            log.warn("transactions is not partitioned, skipping partition maintenance; "
+                    + "see init-scripts/migrate_partition_transactions.sql");
+            return;
+        }
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate month = current.plusMonths(i).atDay(1);
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(CREATE_PARTITION, Boolean.class, month))) {
+                log.info("Created partition of transactions for {}", current.plusMonths(i));
+            }
+        }
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String partition : jdbcTemplate.queryForList(PARTITIONS, String.class)) {
+            Matcher name = PARTITION_NAME.matcher(partition);
+            if (name.matches()
+                    && YearMonth.of(Integer.parseInt(name.group(1)), Integer.parseInt(name.group(2))).isBefore(oldestKept)) {
+                archive(partition);
+            }
+        }
+    }
+
+    /**
+     * Detaches the partition and moves it into the archive schema in one transaction, so a failure leaves it
+     * attached. The partition name matched {@link #PARTITION_NAME} and the schema {@link #SCHEMA_NAME}, which
+     * makes them safe to inline.
+     */
+    private void archive(String partition) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("alter table transactions detach partition " + partition);
+            jdbcTemplate.execute("alter table " + partition + " set schema " + archiveSchema);
+        });
+        log.info("Archived partition {} of transactions into schema {}", partition, archiveSchema);
+    }
+}
@@ -1,22 +1,48 @@
 package com.BankApp.localbankapp.service.impl;
 
+import com.BankApp.localbankapp.currency.PinnedRates;
+import com.BankApp.localbankapp.currency.RateSnapshot;
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.BatchTransferResult;
 import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.exception.RatesUnavailableException;
 import com.BankApp.localbankapp.mapper.TransactionMapper;
+import com.BankApp.localbankapp.model.AccountInfo;
 import com.BankApp.localbankapp.model.BankAccount;
 import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.EntryDirection;
+import com.BankApp.localbankapp.model.LedgerEntry;
 import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionStatus;
 import com.BankApp.localbankapp.model.TransactionType;
+import com.BankApp.localbankapp.repository.AccountInfoRepository;
 import com.BankApp.localbankapp.repository.AccountRepository;
 import com.BankApp.localbankapp.repository.TransactionRepository;
+import com.BankApp.localbankapp.service.LockingMode;
+import com.BankApp.localbankapp.service.RetryOnConflict;
+import com.BankApp.localbankapp.service.StripedBalanceService;
 import com.BankApp.localbankapp.service.TransactionService;
+import com.BankApp.localbankapp.util.BalanceCache;
 import com.BankApp.localbankapp.util.CurrencyConverter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @author Alexander Brazhkin
@@ -25,49 +51,273 @@ import java.math.BigDecimal;
 @RequiredArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
     private final AccountRepository accountRepository;
+    private final AccountInfoRepository accountInfoRepository;
     private final TransactionRepository transactionRepository;
     private final CurrencyConverter currencyConverter;
+    private final StripedBalanceService stripedBalanceService;
+    private final BalanceCache balanceCache;
 
+    @Value("${app.transactions.locking:NONE}")
+    private LockingMode lockingMode = LockingMode.NONE;
+
+    @Value("${app.transactions.batch.maxSize:500}")
+    private int maxBatchSize = 500;
+
+    @RetryOnConflict
     @Transactional
     public Transaction transfer(TransactionDTO dto) {
+        return evictBalances(transactionRepository.save(executeTransfer(dto)));
+    }
+
+    @RetryOnConflict
+    @Transactional
+    public Transaction deposit(TransactionDTO dto) {
+        return evictBalances(transactionRepository.save(executeDeposit(dto)));
+    }
+
+    @RetryOnConflict
+    @Transactional
+    public Transaction withdrawal(TransactionDTO dto) {
+        return evictBalances(transactionRepository.save(executeWithdrawal(dto)));
+    }
+
+    /**
+     * Applies a {@code PENDING} transaction and marks it {@code COMPLETED}. Returns {@code null} if it is no longer
+     * pending, e.g. because another worker got to it first.
+     */
+    @RetryOnConflict
+    @Transactional
+    public Transaction complete(Long id) {
+        if (transactionRepository.updateStatus(id, TransactionStatus.PENDING, TransactionStatus.COMPLETED, null) == 0) {
+            return null;
+        }
+        Transaction pending = transactionRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Transaction not found"));
+        TransactionDTO dto = TransactionMapper.toDto(pending);
+        Transaction applied = switch (pending.getType()) {
+            case TRANSFER -> executeTransfer(dto);
+            case DEPOSIT -> executeDeposit(dto);
+            case WITHDRAWAL -> executeWithdrawal(dto);
+        };
+        pending.setFromCurrency(applied.getFromCurrency());
+        pending.setToCurrency(applied.getToCurrency());
+        pending.setRateDate(applied.getRateDate());
+        pending.setDescription(applied.getDescription());
+        pending.setStatus(TransactionStatus.COMPLETED);
+        for (LedgerEntry entry : applied.getEntries()) {
+            entry.setTransaction(pending);
+            pending.getEntries().add(entry);
+        }
+        return evictBalances(pending);
+    }
+
+    /**
+     * Drops the cached balances of the accounts the transaction has entries for once it commits.
+     */
+    private Transaction evictBalances(Transaction tx) {
+        balanceCache.evictAfterCommit(tx.getEntries().stream().map(LedgerEntry::getAccountId).distinct().toList());
+        return tx;
+    }
+
+    private Transaction executeTransfer(TransactionDTO dto) {
         if (dto.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
         }
+        if (lockingMode == LockingMode.CONDITIONAL_UPDATE) {
+            return transferConditionally(dto);
+        }
         long fromId = dto.getFromAccountId();
         long toId = dto.getToAccountId();
-        BankAccount fromAccount = accountRepository.findById(fromId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Source account not found"));
-        BankAccount toAccount = accountRepository.findById(toId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Target account not found"));
+        BankAccount fromAccount;
+        BankAccount toAccount;
+        if (lockingMode == LockingMode.PESSIMISTIC) {
+            Map<Long, BankAccount> locked = lockAccounts(fromId, toId);
+            fromAccount = Optional.ofNullable(locked.get(fromId))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Source account not found"));
+            toAccount = Optional.ofNullable(locked.get(toId))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Target account not found"));
+        } else {
+            fromAccount = accountRepository.findById(fromId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Source account not found"));
+            toAccount = accountRepository.findById(toId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Target account not found"));
+        }
 
-        Currency fromCurrency = dto.getFromCurrency() != null ? dto.getFromCurrency() : fromAccount.getCurrency();
-        Currency toCurrency = dto.getToCurrency() != null ? dto.getToCurrency() : toAccount.getCurrency();
+        return applyTransfer(dto, fromAccount, toAccount, pinRates());
+    }
 
-        BigDecimal amountToTransfer = dto.getAmount();
-        if (!fromCurrency.equals(fromAccount.getCurrency())) {
-            amountToTransfer = currencyConverter.convert(
-                    amountToTransfer, fromCurrency.toString(), fromAccount.getCurrency().toString()
-            );
+    private Transaction executeDeposit(TransactionDTO dto) {
+        if (lockingMode == LockingMode.CONDITIONAL_UPDATE) {
+            return depositConditionally(dto);
         }
+        long toId = dto.getToAccountId();
+        BigDecimal amount = dto.getAmount();
+        BankAccount depositAccount = findAccount(toId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Deposit account is not found"));
+        requireActive(depositAccount);
+        Currency toCurrency = dto.getToCurrency() != null ? dto.getToCurrency() : depositAccount.getCurrency();
 
-        if (fromAccount.getBalance().compareTo(amountToTransfer) < 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient funds");
+        RateSnapshot rates = null;
+        if (!toCurrency.equals(depositAccount.getCurrency())) {
+            rates = currencyConverter.currentSnapshot();
+            amount = rates.convert(amount, toCurrency, depositAccount.getCurrency());
+        }
+
+        credit(depositAccount, amount);
+        Transaction tx = TransactionMapper.toEntity(
+                dto,
+                null,
+                depositAccount,
+                TransactionType.DEPOSIT,
+                "Deposit"
+        );
+        tx.setFromCurrency(null);
+        tx.setToCurrency(toCurrency);
+        tx.setRateDate(rateDate(rates));
+        tx.addEntry(toId, EntryDirection.CREDIT, amount, depositAccount.getCurrency(), dto.getAmount(), toCurrency);
+        return tx;
+    }
+
+    private Transaction executeWithdrawal(TransactionDTO dto) {
+        if (lockingMode == LockingMode.CONDITIONAL_UPDATE) {
+            return withdrawConditionally(dto);
+        }
+        long fromId = dto.getFromAccountId();
+        BigDecimal amount = dto.getAmount();
+        BankAccount withdrawalAccount = findAccount(fromId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Withdrawal account is not found"));
+        requireActive(withdrawalAccount);
+
+        Currency fromCurrency = dto.getFromCurrency() != null ? dto.getFromCurrency() : withdrawalAccount.getCurrency();
+        RateSnapshot rates = null;
+        if (!fromCurrency.equals(withdrawalAccount.getCurrency())) {
+            rates = currencyConverter.currentSnapshot();
+            amount = rates.convert(amount, fromCurrency, withdrawalAccount.getCurrency());
+        }
+        debit(withdrawalAccount, amount);
+
+        Transaction tx = TransactionMapper.toEntity(
+                dto,
+                withdrawalAccount,
+                null,
+                TransactionType.WITHDRAWAL,
+                "Withdrawal"
+        );
+        tx.setFromCurrency(fromCurrency);
+        tx.setToCurrency(null);
+        tx.setRateDate(rateDate(rates));
+        tx.addEntry(fromId, EntryDirection.DEBIT, amount, withdrawalAccount.getCurrency(), dto.getAmount(), fromCurrency);
+        return tx;
+    }
+
+    @RetryOnConflict
+    @Transactional
+    public BatchTransferResult transferBatch(BatchTransferRequest request) {
+        List<TransactionDTO> transfers = request.getTransfers();
+        if (transfers == null || transfers.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch is empty");
+        }
+        if (transfers.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch size exceeds " + maxBatchSize);
         }
+        BatchTransferRequest.Mode mode = request.getMode() != null ? request.getMode() : BatchTransferRequest.Mode.ALL_OR_NOTHING;
 
-        BigDecimal amountToReceive = dto.getAmount();
-        if (!fromCurrency.equals(toCurrency)) {
-            amountToReceive = currencyConverter.convert(
-                    amountToReceive, fromCurrency.toString(), toCurrency.toString()
-            );
+        Map<Long, BankAccount> accounts = loadBatchAccounts(transfers);
+        PinnedRates rates = pinRates();
+        List<BatchTransferResult.Item> items = new ArrayList<>(transfers.size());
+        List<Transaction> applied = new ArrayList<>(transfers.size());
+        int failed = 0;
+        for (int i = 0; i < transfers.size(); i++) {
+            try {
+                applied.add(applyBatchItem(transfers.get(i), accounts, rates));
+                items.add(new BatchTransferResult.Item(i, TransactionStatus.COMPLETED, null, null));
+            } catch (ResponseStatusException | RatesUnavailableException | IllegalArgumentException e) {
+                items.add(new BatchTransferResult.Item(i, TransactionStatus.FAILED, null, failureReason(e)));
+                failed++;
+                if (mode == BatchTransferRequest.Mode.ALL_OR_NOTHING) {
+                    break;
+                }
+            }
         }
-        if (!toCurrency.equals(toAccount.getCurrency())) {
-            amountToReceive = currencyConverter.convert(
-                    amountToReceive, toCurrency.toString(), toAccount.getCurrency().toString()
-            );
+
+        if (failed > 0 && mode == BatchTransferRequest.Mode.ALL_OR_NOTHING) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            for (int i = 0; i < transfers.size(); i++) {
+                if (i >= items.size()) {
+                    items.add(new BatchTransferResult.Item(i, TransactionStatus.CANCELLED, null, null));
+                } else if (items.get(i).getStatus() == TransactionStatus.COMPLETED) {
+                    items.get(i).setStatus(TransactionStatus.CANCELLED);
+                }
+            }
+            return new BatchTransferResult(mode, 0, failed, items);
+        }
+
+        // ids are assigned here; inserts and balance updates go out as JDBC batches at flush
+        transactionRepository.saveAll(applied);
+        applied.forEach(this::evictBalances);
+        Iterator<Transaction> saved = applied.iterator();
+        for (BatchTransferResult.Item item : items) {
+            if (item.getStatus() == TransactionStatus.COMPLETED) {
+                item.setTransactionId(saved.next().getId());
+            }
+        }
+        return new BatchTransferResult(mode, applied.size(), failed, items);
+    }
+
+    private Transaction applyBatchItem(TransactionDTO dto, Map<Long, BankAccount> accounts, PinnedRates rates) {
+        if (dto.getAmount() == null || dto.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be positive");
+        }
+        BankAccount fromAccount = Optional.ofNullable(dto.getFromAccountId()).map(accounts::get)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Source account not found"));
+        BankAccount toAccount = Optional.ofNullable(dto.getToAccountId()).map(accounts::get)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Target account not found"));
+        return applyTransfer(dto, fromAccount, toAccount, rates);
+    }
+
+    private Map<Long, BankAccount> loadBatchAccounts(List<TransactionDTO> transfers) {
+        long[] ids = transfers.stream()
+                              .flatMap(dto -> Stream.of(dto.getFromAccountId(), dto.getToAccountId()))
+                              .filter(Objects::nonNull)
+                              .mapToLong(Long::longValue)
+                              .distinct()
+                              .toArray();
+        if (lockingMode == LockingMode.NONE || lockingMode == LockingMode.OPTIMISTIC) {
+            Map<Long, BankAccount> accounts = new HashMap<>(ids.length * 2);
+            for (BankAccount account : accountRepository.findAllById(Arrays.stream(ids).boxed().toList())) {
+                accounts.put(account.getId(), account);
+            }
+            return accounts;
         }
+        return lockAccounts(ids);
+    }
+
+    private static String failureReason(RuntimeException e) {
+        return e instanceof ResponseStatusException status && status.getReason() != null
+                ? status.getReason()
+                : e.getMessage();
+    }
 
-        fromAccount.setBalance(fromAccount.getBalance().subtract(amountToTransfer));
-        toAccount.setBalance(toAccount.getBalance().add(amountToReceive));
+    /**
+     * Moves {@code dto.amount} between two loaded accounts in memory; the changes are written by dirty checking.
+     * Striped accounts are updated in the database straight away, so everything that can fail runs before them.
+     */
+    private Transaction applyTransfer(TransactionDTO dto, BankAccount fromAccount, BankAccount toAccount,
+                                      PinnedRates rates) {
+        requireActive(fromAccount);
+        requireActive(toAccount);
+        Currency fromCurrency = dto.getFromCurrency() != null ? dto.getFromCurrency() : fromAccount.getCurrency();
+        Currency toCurrency = dto.getToCurrency() != null ? dto.getToCurrency() : toAccount.getCurrency();
+        boolean converted = !fromCurrency.equals(fromAccount.getCurrency())
+                || !fromCurrency.equals(toCurrency)
+                || !toCurrency.equals(toAccount.getCurrency());
+
+        BigDecimal amountToTransfer = rates.convert(dto.getAmount(), fromCurrency, fromAccount.getCurrency());
+        BigDecimal amountToReceive = rates.convert(dto.getAmount(), fromCurrency, toCurrency);
+        amountToReceive = rates.convert(amountToReceive, toCurrency, toAccount.getCurrency());
+
+        debit(fromAccount, amountToTransfer);
+        credit(toAccount, amountToReceive);
 
         Transaction tx = TransactionMapper.toEntity(
                 dto,
@@ -78,63 +328,206 @@ public class TransactionServiceImpl implements TransactionService {
         );
         tx.setFromCurrency(fromCurrency);
         tx.setToCurrency(toCurrency);
-
-        return transactionRepository.save(tx);
+        tx.setRateDate(converted ? rates.rateDate() : null);
+        tx.addEntry(fromAccount.getId(), EntryDirection.DEBIT, amountToTransfer, fromAccount.getCurrency(),
+                dto.getAmount(), fromCurrency);
+        tx.addEntry(toAccount.getId(), EntryDirection.CREDIT, amountToReceive, toAccount.getCurrency(),
+                dto.getAmount(), fromCurrency);
+        return tx;
     }
 
-    @Transactional
-    public Transaction deposit(TransactionDTO dto) {
+    private Transaction transferConditionally(TransactionDTO dto) {
+        long fromId = dto.getFromAccountId();
         long toId = dto.getToAccountId();
-        BigDecimal amount = dto.getAmount();
-        BankAccount depositAccount = accountRepository.findById(toId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Deposit account is not found"));
-        Currency toCurrency = dto.getToCurrency() != null ? dto.getToCurrency() : depositAccount.getCurrency();
+        PinnedRates rates = pinRates();
 
-        if (!toCurrency.equals(depositAccount.getCurrency())) {
-            amount = currencyConverter.convert(amount, toCurrency.toString(), depositAccount.getCurrency().toString());
+        Currency fromCurrency = dto.getFromCurrency() != null ? dto.getFromCurrency() : accountInfoRepository
+                .findById(fromId).map(AccountInfo::getCurrency)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Source account not found"));
+        // without an explicit target currency the amount is credited as if the target held the source currency
+        Currency creditCurrency = dto.getToCurrency() != null ? dto.getToCurrency() : fromCurrency;
+        BigDecimal creditAmount = rates.convert(dto.getAmount(), fromCurrency, creditCurrency);
+
+        // row locks taken by the updates are held until commit: apply the legs in ascending id order
+        Leg debit;
+        Leg credit;
+        if (fromId <= toId) {
+            debit = applyLeg(fromId, dto.getAmount(), fromCurrency, true, rates, "Source account not found");
+            credit = applyLeg(toId, creditAmount, creditCurrency, false, rates, "Target account not found");
+        } else {
+            credit = applyLeg(toId, creditAmount, creditCurrency, false, rates, "Target account not found");
+            debit = applyLeg(fromId, dto.getAmount(), fromCurrency, true, rates, "Source account not found");
         }
 
-        depositAccount.setBalance(depositAccount.getBalance().add(amount));
+        Transaction tx = TransactionMapper.toEntity(
+                dto,
+                accountRepository.getReferenceById(fromId),
+                accountRepository.getReferenceById(toId),
+                TransactionType.TRANSFER,
+                "Transfer"
+        );
+        tx.setFromCurrency(fromCurrency);
+        tx.setToCurrency(dto.getToCurrency() != null ? dto.getToCurrency() : credit.currency());
+        tx.setRateDate(rates.rateDate());
+        tx.addEntry(fromId, EntryDirection.DEBIT, debit.amount(), debit.currency(), dto.getAmount(), fromCurrency);
+        tx.addEntry(toId, EntryDirection.CREDIT, credit.amount(), credit.currency(), dto.getAmount(), fromCurrency);
+        return tx;
+    }
+
+    private Transaction depositConditionally(TransactionDTO dto) {
+        long toId = dto.getToAccountId();
+        PinnedRates rates = pinRates();
+        Currency toCurrency = dto.getToCurrency() != null ? dto.getToCurrency() : accountInfoRepository
+                .findById(toId).map(AccountInfo::getCurrency)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Deposit account is not found"));
+        Leg credit = applyLeg(toId, dto.getAmount(), toCurrency, false, rates, "Deposit account is not found");
+
         Transaction tx = TransactionMapper.toEntity(
                 dto,
                 null,
-                depositAccount,
+                accountRepository.getReferenceById(toId),
                 TransactionType.DEPOSIT,
                 "Deposit"
         );
         tx.setFromCurrency(null);
         tx.setToCurrency(toCurrency);
-
-        return transactionRepository.save(tx);
+        tx.setRateDate(rates.rateDate());
+        tx.addEntry(toId, EntryDirection.CREDIT, credit.amount(), credit.currency(), dto.getAmount(), toCurrency);
+        return tx;
     }
 
-    @Transactional
-    public Transaction withdrawal(TransactionDTO dto) {
+    private Transaction withdrawConditionally(TransactionDTO dto) {
         long fromId = dto.getFromAccountId();
-        BigDecimal amount = dto.getAmount();
-        BankAccount withdrawalAccount = accountRepository.findById(fromId)
+        PinnedRates rates = pinRates();
+        Currency fromCurrency = dto.getFromCurrency() != null ? dto.getFromCurrency() : accountInfoRepository
+                .findById(fromId).map(AccountInfo::getCurrency)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Withdrawal account is not found"));
-
-        Currency fromCurrency = dto.getFromCurrency() != null ? dto.getFromCurrency() : withdrawalAccount.getCurrency();
-        if (!fromCurrency.equals(withdrawalAccount.getCurrency())) {
-            amount = currencyConverter.convert(amount, fromCurrency.toString(), withdrawalAccount.getCurrency().toString());
-        }
-        if (withdrawalAccount.getBalance().compareTo(amount) < 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient funds");
-        }
-
-        withdrawalAccount.setBalance(withdrawalAccount.getBalance().subtract(amount));
+        Leg debit = applyLeg(fromId, dto.getAmount(), fromCurrency, true, rates, "Withdrawal account is not found");
 
         Transaction tx = TransactionMapper.toEntity(
                 dto,
-                withdrawalAccount,
+                accountRepository.getReferenceById(fromId),
                 null,
                 TransactionType.WITHDRAWAL,
                 "Withdrawal"
         );
         tx.setFromCurrency(fromCurrency);
         tx.setToCurrency(null);
+        tx.setRateDate(rates.rateDate());
+        tx.addEntry(fromId, EntryDirection.DEBIT, debit.amount(), debit.currency(), dto.getAmount(), fromCurrency);
+        return tx;
+    }
+
+    /**
+     * Applies one balance change as a single conditional UPDATE, assuming the account is held in {@code currency}.
+     * Only a rejected update reads the account, to tell a missing or inactive account, a currency mismatch
+     * (converted and retried once) and insufficient funds apart.
+     *
+     * @return the amount applied, in the currency of the account
+     */
+    private Leg applyLeg(long id, BigDecimal amount, Currency currency, boolean debit,
+                         PinnedRates rates, String notFoundMessage) {
+        if (update(id, amount, currency, debit) == 1) {
+            return new Leg(amount, currency);
+        }
+        AccountRepository.BalanceView account = accountRepository.findBalanceViewById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, notFoundMessage));
+        if (Boolean.FALSE.equals(account.getActive())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Account is not active");
+        }
+        if (BankAccount.isStriped(account.getStripeCount())) {
+            BigDecimal converted = rates.convert(amount, currency, account.getCurrency());
+            if (debit) {
+                stripedBalanceService.debit(id, converted);
+            } else {
+                stripedBalanceService.credit(id, converted);
+            }
+            return new Leg(converted, account.getCurrency());
+        }
+        if (account.getCurrency() != currency) {
+            BigDecimal converted = rates.convert(amount, currency, account.getCurrency());
+            if (update(id, converted, account.getCurrency(), debit) == 1) {
+                return new Leg(converted, account.getCurrency());
+            }
+        }
+        if (debit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient funds");
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Account was modified concurrently");
+    }
+
+    private record Leg(BigDecimal amount, Currency currency) {
+    }
+
+    private int update(long id, BigDecimal amount, Currency currency, boolean debit) {
+        return debit
+                ? accountRepository.debit(id, amount, currency)
+                : accountRepository.credit(id, amount, currency);
+    }
+
+    /**
+     * The rule {@code AccountRepository.debit}/{@code credit} and the ledger engine apply, for the locking modes
+     * that change loaded entities.
+     */
+    private static void requireActive(BankAccount account) {
+        if (Boolean.FALSE.equals(account.getActive())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Account is not active");
+        }
+    }
+
+    private void debit(BankAccount account, BigDecimal amount) {
+        if (account.isStriped()) {
+            stripedBalanceService.debit(account.getId(), amount);
+            return;
+        }
+        if (account.getBalance().compareTo(amount) < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient funds");
+        }
+        account.setBalance(account.getBalance().subtract(amount));
+    }
+
+    private void credit(BankAccount account, BigDecimal amount) {
+        if (account.isStriped()) {
+            stripedBalanceService.credit(account.getId(), amount);
+            return;
+        }
+        account.setBalance(account.getBalance().add(amount));
+    }
+
+    private Optional<BankAccount> findAccount(long id) {
+        if (lockingMode != LockingMode.PESSIMISTIC) {
+            return accountRepository.findById(id);
+        }
+        return accountRepository.findByIdForUpdate(id)
+                .or(() -> accountRepository.findById(id).filter(BankAccount::isStriped));
+    }
+
+    /**
+     * Locks the unstriped accounts among {@code ids}; striped ones are loaded without a lock, their stripes are
+     * locked row by row as they are updated.
+     */
+    private Map<Long, BankAccount> lockAccounts(long... ids) {
+        List<Long> sorted = Arrays.stream(ids).sorted().distinct().boxed().toList();
+        Map<Long, BankAccount> locked = new HashMap<>(sorted.size() * 2);
+        for (BankAccount account : accountRepository.findAllByIdForUpdate(sorted)) {
+            locked.put(account.getId(), account);
+        }
+        if (locked.size() < sorted.size()) {
+            List<Long> missing = sorted.stream().filter(id -> !locked.containsKey(id)).toList();
+            for (BankAccount account : accountRepository.findAllById(missing)) {
+                if (account.isStriped()) {
+                    locked.put(account.getId(), account);
+                }
+            }
+        }
+        return locked;
+    }
+
+    private static LocalDate rateDate(RateSnapshot rates) {
+        return rates != null ? rates.getRateDate() : null;
+    }
 
-        return transactionRepository.save(tx);
+    private PinnedRates pinRates() {
+        return new PinnedRates(currencyConverter::currentSnapshot);
     }
-}
\ No newline at end of file
+}
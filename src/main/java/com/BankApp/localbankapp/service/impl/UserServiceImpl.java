@@ -2,11 +2,10 @@ package com.BankApp.localbankapp.service.impl;
 
 import com.BankApp.localbankapp.model.User;
 import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.security.TokenVersionCache;
 import com.BankApp.localbankapp.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -14,7 +13,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * @author Alexander Brazhkin
@@ -23,6 +21,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final TokenVersionCache tokenVersionCache;
 
     @Transactional(readOnly = true)
     public User getUserById(Long id) {
@@ -41,22 +40,29 @@ public class UserServiceImpl implements UserService {
         existing.setUsername(updatedUser.getUsername());
         existing.setPassword(updatedUser.getPassword());
         existing.setEmail(updatedUser.getEmail());
-        return userRepository.save(existing);
+        User saved = userRepository.save(existing);
+        // tokens carry the username, so the ones issued so far are revoked
+        userRepository.bumpTokenVersion(id);
+        tokenVersionCache.evictAfterCommit(id);
+        return saved;
+    }
+
+    /**
+     * Stores the rehash of a password whose hash was outdated, made on the user's login. The password itself is
+     * unchanged, so the user's tokens stay valid.
+     */
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User existing = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + user.getUsername()));
+        existing.setPassword(newPassword);
+        return new UserDetailsImpl(existing);
     }
 
     public UserDetails loadUserByUsername(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Username is already taken"));
 
-        List<GrantedAuthority> authorities = user.getRoles()
-                                                 .stream()
-                                                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
-                                                 .collect(Collectors.toList());
-
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                authorities
-        );
+        return new UserDetailsImpl(user);
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.BankApp.localbankapp.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU of account balances for {@code GET /api/accounts/{id}/balance}, which clients poll far more often
+ * than balances change. Entries expire after {@code ttlMs}, which also bounds staleness from writers this instance
+ * does not see (other instances, manual SQL).
+ *
+ * <p>Writers evict the accounts they touched once their transaction commits, never before, so a rolled back
+ * change is never observed. A load that overlaps an eviction is returned but not cached, since it may have read
+ * the balance from before the commit. Neither is a load served by a read replica: it may predate a commit whose
+ * eviction has already run.
+ *
+ * <p>Published under {@code /actuator/metrics} as {@code cache.gets} (tag {@code result}: hit, miss),
+ * {@code cache.evictions} (tag {@code cause}: size, expired), {@code cache.invalidations}, {@code cache.size} and
+ * {@code cache.hit.ratio}, all tagged {@code cache=balances}.
+ *
+ * @author Alexander Brazhkin
+ */
+@Component
+public class BalanceCache {
+    private static final String NAME = "balances";
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, Cached> entries;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter invalidated;
+
+    public BalanceCache(@Value("${app.accounts.balanceCache.maxSize:10000}") int maxSize,
+                        @Value("${app.accounts.balanceCache.ttlMs:5000}") long ttlMs,
+                        MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+                if (size() > maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        MeterRegistry registry = meterRegistry != null ? meterRegistry : new SimpleMeterRegistry();
+        this.hits = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "miss").register(registry);
+        this.sizeEvictions = Counter.builder("cache.evictions").tag("cache", NAME).tag("cause", "size").register(registry);
+        this.expiredEvictions = Counter.builder("cache.evictions").tag("cache", NAME).tag("cause", "expired")
+                                       .register(registry);
+        this.invalidated = Counter.builder("cache.invalidations").tag("cache", NAME).register(registry);
+        Gauge.builder("cache.size", this, BalanceCache::size).tag("cache", NAME).register(registry);
+        Gauge.builder("cache.hit.ratio", this, BalanceCache::hitRatio).tag("cache", NAME).register(registry);
+    }
+
+    /**
+     * The cached balance of the account, or the one {@code loader} returns, which is cached unless the account
+     * was evicted meanwhile or a replica served it. A cache of size 0 always loads.
+     */
+    public BigDecimal get(Long accountId, Function<Long, BigDecimal> loader) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Cached cached = entries.get(accountId);
+            if (cached != null) {
+                if (now - cached.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return cached.balance;
+                }
+                entries.remove(accountId);
+                expiredEvictions.increment();
+            }
+        }
+        misses.increment();
+        long seen = invalidations.get();
+        // forget replica reads made on this thread before the load
+        ReplicaRoutingDataSource.takeReplicaRead();
+        BigDecimal balance = loader.apply(accountId);
+        boolean replicaRead = ReplicaRoutingDataSource.takeReplicaRead();
+        synchronized (entries) {
+            if (maxSize > 0 && invalidations.get() == seen && !replicaRead) {
+                entries.put(accountId, new Cached(balance, now));
+            }
+        }
+        return balance;
+    }
+
+    /**
+     * Evicts the accounts once the current transaction commits, or right away outside a transaction.
+     */
+    public void evictAfterCommit(Collection<Long> accountIds) {
+        if (accountIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(accountIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(accountIds);
+            }
+        });
+    }
+
+    public void evictAfterCommit(Long accountId) {
+        evictAfterCommit(List.of(accountId));
+    }
+
+    public void evict(Collection<Long> accountIds) {
+        invalidations.incrementAndGet();
+        synchronized (entries) {
+            for (Long accountId : accountIds) {
+                if (entries.remove(accountId) != null) {
+                    invalidated.increment();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private record Cached(BigDecimal balance, long loadedAt) {
+    }
+}
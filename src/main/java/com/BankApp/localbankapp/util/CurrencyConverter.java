@@ -1,70 +1,148 @@
 package com.BankApp.localbankapp.util;
 
+import com.BankApp.localbankapp.currency.RateFetcher;
+import com.BankApp.localbankapp.currency.RateSnapshot;
+import com.BankApp.localbankapp.currency.RatesRefreshedEvent;
+import com.BankApp.localbankapp.currency.RateSource;
+import com.BankApp.localbankapp.exception.RatesUnavailableException;
+import com.BankApp.localbankapp.model.Currency;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.w3c.dom.*;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Converts amounts using an in-memory snapshot of CBR rates. The snapshot is replaced as a whole
+ * by {@link #refresh()}, so conversions never touch the network; a missing or stale snapshot fails the
+ * conversion immediately and only kicks off a background fetch.
+ */
 @Component
 @Slf4j
-public class CurrencyConverter {
-    private static final String CBR_URL = "http://www.cbr.ru/scripts/XML_daily.asp";
-    private final RestTemplate restTemplate = new RestTemplate();
+public class CurrencyConverter implements ApplicationEventPublisherAware {
+    private final RateFetcher rateFetcher;
+    private final long maxStalenessMs;
+    private final AtomicReference<RateSnapshot> snapshot = new AtomicReference<>();
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public CurrencyConverter(RateFetcher rateFetcher,
+                             @Value("${app.rates.maxStalenessMs:86400000}") long maxStalenessMs) {
+        this.rateFetcher = rateFetcher;
+        this.maxStalenessMs = maxStalenessMs;
+    }
+
+    public CurrencyConverter(RateSource rateSource, long maxStalenessMs) {
+        this(RateFetcher.direct(rateSource), maxStalenessMs);
+    }
 
     public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency) {
-        if (fromCurrency.equalsIgnoreCase(toCurrency)) {
+        return convert(amount, parseCurrency(fromCurrency), parseCurrency(toCurrency));
+    }
+
+    public BigDecimal convert(BigDecimal amount, Currency fromCurrency, Currency toCurrency) {
+        if (fromCurrency == toCurrency) {
             return amount.setScale(2, RoundingMode.HALF_UP);
         }
+        return currentSnapshot().convert(amount, fromCurrency, toCurrency);
+    }
+
+    /**
+     * @see RateSnapshot#convertMinor(long, Currency, Currency)
+     */
+    public long convertMinor(long amountMinor, Currency fromCurrency, Currency toCurrency) {
+        if (fromCurrency == toCurrency) {
+            return amountMinor;
+        }
+        return currentSnapshot().convertMinor(amountMinor, fromCurrency, toCurrency);
+    }
 
+    private static Currency parseCurrency(String code) {
         try {
-            String xml = restTemplate.getForObject(CBR_URL, String.class);
-            assert xml != null;
-            Map<String, BigDecimal> rates = parseXmlRates(xml);
+            return Currency.valueOf(code.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported currency: " + code);
+        }
+    }
 
-            BigDecimal rubToFrom = fromCurrency.equalsIgnoreCase("RUB") ? BigDecimal.ONE : rates.get(fromCurrency.toUpperCase());
-            BigDecimal rubToTo = toCurrency.equalsIgnoreCase("RUB") ? BigDecimal.ONE : rates.get(toCurrency.toUpperCase());
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.rates.refreshIntervalMs:3600000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RatesUnavailableException e) {
+            log.warn("Exchange rate refresh failed, keeping previous snapshot: {}", e.getMessage());
+        }
+    }
 
-            if (rubToFrom == null || rubToTo == null) {
-                throw new IllegalArgumentException("Unsupported currency: " + fromCurrency + " or " + toCurrency);
+    /**
+     * Fetches a new snapshot (joining a fetch already in progress) and waits for it.
+     */
+    public RateSnapshot refresh() {
+        try {
+            return install(rateFetcher.fetch().join());
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RatesUnavailableException unavailable) {
+                throw unavailable;
             }
+            throw new RatesUnavailableException("Failed to fetch exchange rates from " + rateFetcher.describe(), cause);
+        }
+    }
 
-            BigDecimal inRubles = fromCurrency.equalsIgnoreCase("RUB") ? amount : amount.multiply(rubToFrom);
-            BigDecimal result = toCurrency.equalsIgnoreCase("RUB") ? inRubles : inRubles.divide(rubToTo, 2, RoundingMode.HALF_UP);
-            return result.setScale(3, RoundingMode.HALF_UP);
-
-        } catch (Exception e) {
-            log.error("Currency conversion failed: {}", e.getMessage());
-            throw new RuntimeException("Failed to fetch exchange rates", e);
+    private RateSnapshot install(RateSnapshot fresh) {
+        if (snapshot.getAndSet(fresh) != fresh) {
+            log.info("Loaded {} exchange rates for {} from {}",
+                    fresh.getRates().size(), fresh.getRateDate(), rateFetcher.describe());
+            if (eventPublisher != null) {
+                eventPublisher.publishEvent(new RatesRefreshedEvent(fresh));
+            }
         }
+        return fresh;
     }
 
-    private Map<String, BigDecimal> parseXmlRates(String xml) throws Exception {
-        Map<String, BigDecimal> rates = new HashMap<>();
-        Document doc = DocumentBuilderFactory.newInstance()
-                                             .newDocumentBuilder()
-                                             .parse(new java.io.ByteArrayInputStream(xml.getBytes()));
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
 
-        NodeList valutes = doc.getElementsByTagName("Valute");
+    public RateSnapshot getSnapshot() {
+        return snapshot.get();
+    }
 
-        for (int i = 0; i < valutes.getLength(); i++) {
-            Element valute = (Element) valutes.item(i);
-            String code = valute.getElementsByTagName("CharCode").item(0).getTextContent();
-            String valueStr = valute.getElementsByTagName("Value").item(0).getTextContent();
-            String nominalStr = valute.getElementsByTagName("Nominal").item(0).getTextContent();
+    public Duration getMaxStaleness() {
+        return Duration.ofMillis(maxStalenessMs);
+    }
 
-            BigDecimal value = new BigDecimal(valueStr.replace(",", "."));
-            BigDecimal nominal = new BigDecimal(nominalStr);
-            BigDecimal rate = value.divide(nominal, 6, RoundingMode.HALF_UP);
+    public RateFetcher getRateFetcher() {
+        return rateFetcher;
+    }
 
-            rates.put(code.toUpperCase(), rate);
+    /**
+     * The snapshot conversions should use right now. Callers that convert several legs of one operation
+     * pin it once so every leg, and the recorded rate date, come from the same snapshot.
+     */
+    public RateSnapshot currentSnapshot() {
+        RateSnapshot rates = snapshot.get();
+        if (rates == null) {
+            refreshInBackground();
+            throw new RatesUnavailableException("Exchange rates have not been loaded yet");
+        }
+        if (System.currentTimeMillis() - rates.getFetchedAt().toEpochMilli() > maxStalenessMs) {
+            refreshInBackground();
+            throw new RatesUnavailableException("Exchange rates are stale, last refreshed at " + rates.getFetchedAt());
         }
-
         return rates;
     }
+
+    private void refreshInBackground() {
+        rateFetcher.fetch().thenAccept(this::install);
+    }
 }
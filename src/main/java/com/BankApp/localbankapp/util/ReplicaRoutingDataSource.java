@@ -0,0 +1,173 @@
+package com.BankApp.localbankapp.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to the replicas, round-robin, and everything else to the primary.
+ * The routing key is the transaction's read-only flag, which Spring only sets once the transaction has begun, so
+ * this has to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that defers
+ * fetching the connection to the first statement.
+ *
+ * <p>Every {@code healthCheckIntervalMs} each replica runs {@code lagQuery}, which returns its replication lag in
+ * milliseconds. A replica that fails the check, or lags by more than {@code maxLagMs}, takes no reads until a later
+ * check passes; one that refuses a connection is dropped right away. With no replica left reads go to the primary.
+ * An empty {@code lagQuery} checks reachability only.
+ *
+ * <p>Callers that must not keep what they read from a lagging copy ask {@link #takeReplicaRead()} afterwards.
+ *
+ * @author Alexander Brazhkin
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String PRIMARY = "primary";
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final long maxLagMs;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> available = List.of();
+
+    /**
+     * @param replicas replica data sources by name, as they appear in the logs
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagMs, String lagQuery) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagMs = maxLagMs;
+        this.lagQuery = lagQuery;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String replica = readReplica();
+        return replica != null ? replica : PRIMARY;
+    }
+
+    /**
+     * A replica that cannot hand out a connection is taken out of rotation and the primary serves the read.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        String replica = readReplica();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replicas.get(replica).getConnection();
+            REPLICA_READ.set(Boolean.TRUE);
+            return connection;
+        } catch (SQLException e) {
+            markUnavailable(replica, e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Whether this thread was handed a replica connection since the last call.
+     */
+    public static boolean takeReplicaRead() {
+        boolean replicaRead = REPLICA_READ.get() != null;
+        REPLICA_READ.remove();
+        return replicaRead;
+    }
+
+    /**
+     * Names of the replicas currently taking reads.
+     */
+    public List<String> availableReplicas() {
+        return available;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.datasource.replicas.healthCheckIntervalMs:5000}")
+    public void checkReplicas() {
+        List<String> healthy = new ArrayList<>(replicas.size());
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            String problem = check(replica.getValue());
+            if (problem == null) {
+                healthy.add(replica.getKey());
+                if (!available.contains(replica.getKey())) {
+                    log.info("Replica {} takes reads", replica.getKey());
+                }
+            } else if (available.contains(replica.getKey())) {
+                log.warn("Replica {} stops taking reads: {}", replica.getKey(), problem);
+            }
+        }
+        synchronized (this) {
+            available = List.copyOf(healthy);
+        }
+    }
+
+    /**
+     * Closes the replica pools; the primary is left to its owner.
+     */
+    public void close() {
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            if (replica.getValue() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close replica {}: {}", replica.getKey(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private String readReplica() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        List<String> candidates = available;
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * {@code null} if the replica may take reads, otherwise why not.
+     */
+    private String check(DataSource replica) {
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            if (lagQuery == null || lagQuery.isBlank()) {
+                return connection.isValid(0) ? null : "connection is not valid";
+            }
+            try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                long lagMs = rs.next() ? rs.getLong(1) : 0;
+                return lagMs <= maxLagMs ? null : "lagging by " + lagMs + " ms";
+            }
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
+    private synchronized void markUnavailable(String replica, String problem) {
+        if (available.contains(replica)) {
+            List<String> remaining = new ArrayList<>(available);
+            remaining.remove(replica);
+            available = List.copyOf(remaining);
+            log.warn("Replica {} stops taking reads: {}", replica, problem);
+        }
+    }
+}
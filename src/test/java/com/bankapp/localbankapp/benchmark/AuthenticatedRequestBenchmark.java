@@ -0,0 +1,118 @@
+package com.bankapp.localbankapp.benchmark;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.security.JwtTokenProvider;
+import com.BankApp.localbankapp.service.UserService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Latency of an authenticated {@code GET /api/accounts/{id}} through the whole filter chain and MVC stack (H2 in
+ * PostgreSQL mode, {@code h2} test profile), with a token that only names the user, which the filter resolves
+ * through {@code loadUserByUsername} as before, and with one carrying the authorities and token version issued at
+ * login.
+ *
+ * @author Alexander Brazhkin
+ */
+@Tag("Benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticatedRequestBenchmark {
+    @Param({"USER_LOOKUP", "CLAIMS"})
+    public String token;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private MockHttpServletRequestBuilder request;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(LocalBankApplication.class)
+                .profiles("h2")
+                .properties("server.port=0")
+                .run();
+        User owner = new User();
+        owner.setUsername("bench");
+        owner.setPassword("pass");
+        owner.setEmail("bench@test.com");
+        owner = context.getBean(UserRepository.class).save(owner);
+
+        BankAccount account = new BankAccount();
+        account.setUser(owner);
+        account.setAccountNumber("BENCH_1");
+        account.setCurrency(Currency.USD);
+        account.setBalance(BigDecimal.ZERO);
+        Long accountId = context.getBean(AccountRepository.class).save(account).getId();
+
+        JwtTokenProvider tokenProvider = context.getBean(JwtTokenProvider.class);
+        String jwt;
+        if ("CLAIMS".equals(token)) {
+            UserDetails details = context.getBean(UserService.class).loadUserByUsername(owner.getUsername());
+            jwt = tokenProvider.generateToken(
+                    new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+        } else {
+            jwt = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(owner.getUsername(), null));
+        }
+
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                                 .apply(SecurityMockMvcConfigurers.springSecurity())
+                                 .build();
+        request = get("/api/accounts/{id}", accountId).header(HttpHeaders.AUTHORIZATION, "Bearer " + jwt);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object getAccount() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("GET returned " + response.getStatus());
+        }
+        return response.getContentAsByteArray();
+    }
+
+    @Test
+    void runBenchmark() throws RunnerException {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuthenticatedRequestBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
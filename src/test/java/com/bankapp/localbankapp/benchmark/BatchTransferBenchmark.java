@@ -0,0 +1,112 @@
+package com.bankapp.localbankapp.benchmark;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settling {@value #BATCH_SIZE} payments one service call at a time versus one {@code transferBatch} call
+ * (H2 in PostgreSQL mode, {@code h2} test profile). Scores are payments per second.
+ *
+ * @author Alexander Brazhkin
+ */
+@Tag("Benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchTransferBenchmark {
+    private static final int BATCH_SIZE = 100;
+    private static final int ACCOUNTS = 20;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private List<TransactionDTO> payments;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(LocalBankApplication.class)
+                .profiles("h2")
+                .properties("server.port=0")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+
+        User owner = new User();
+        owner.setUsername("bench");
+        owner.setPassword("pass");
+        owner.setEmail("bench@test.com");
+        owner = context.getBean(UserRepository.class).save(owner);
+
+        List<Long> ids = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            BankAccount account = new BankAccount();
+            account.setUser(owner);
+            account.setAccountNumber("BENCH_" + i);
+            account.setCurrency(Currency.USD);
+            account.setBalance(BigDecimal.valueOf(1_000_000_000L));
+            ids.add(accountRepository.save(account).getId());
+        }
+
+        // a ring of payments, so balances stay put from one invocation to the next
+        payments = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            payments.add(new TransactionDTO(ids.get(i % ACCOUNTS), ids.get((i + 1) % ACCOUNTS),
+                    BigDecimal.ONE, Currency.USD, Currency.USD));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void singleCalls(Blackhole bh) {
+        for (TransactionDTO payment : payments) {
+            bh.consume(transactionService.transfer(payment));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object batch() {
+        return transactionService.transferBatch(new BatchTransferRequest(payments, BatchTransferRequest.Mode.PARTIAL));
+    }
+
+    @Test
+    void runBenchmark() throws RunnerException {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BatchTransferBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.bankapp.localbankapp.benchmark;
+
+import com.BankApp.localbankapp.currency.FileRateSource;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.util.CurrencyConverter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy string/map conversion path with the ordinal cross-rate table on a transfer-like mix:
+ * 70% same currency, 20% USD/EUR, 10% legs involving RUB.
+ *
+ * @author Alexander Brazhkin
+ */
+@Tag("Benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrencyConversionBenchmark {
+    private static final int MIX_SIZE = 1024;
+
+    private CurrencyConverter converter;
+    private Map<String, BigDecimal> legacyRates;
+    private final Currency[] from = new Currency[MIX_SIZE];
+    private final Currency[] to = new Currency[MIX_SIZE];
+    private final BigDecimal[] amounts = new BigDecimal[MIX_SIZE];
+    private final long[] minorAmounts = new long[MIX_SIZE];
+
+    @Setup
+    public void setUp() {
+        converter = new CurrencyConverter(new FileRateSource(new ClassPathResource("cbr/XML_daily.xml")), Long.MAX_VALUE);
+        legacyRates = converter.refresh().getRates();
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < MIX_SIZE; i++) {
+            int bucket = random.nextInt(100);
+            if (bucket < 70) {
+                from[i] = random.nextBoolean() ? Currency.USD : Currency.EUR;
+                to[i] = from[i];
+            } else if (bucket < 90) {
+                from[i] = random.nextBoolean() ? Currency.USD : Currency.EUR;
+                to[i] = from[i] == Currency.USD ? Currency.EUR : Currency.USD;
+            } else {
+                from[i] = random.nextBoolean() ? Currency.RUB : Currency.USD;
+                to[i] = from[i] == Currency.RUB ? Currency.EUR : Currency.RUB;
+            }
+            minorAmounts[i] = 100 + random.nextLong(5_000_000);
+            amounts[i] = BigDecimal.valueOf(minorAmounts[i], 2);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MIX_SIZE)
+    public void legacyStringPath(Blackhole bh) {
+        for (int i = 0; i < MIX_SIZE; i++) {
+            bh.consume(legacyConvert(amounts[i], from[i].toString(), to[i].toString()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MIX_SIZE)
+    public void crossRateTable(Blackhole bh) {
+        for (int i = 0; i < MIX_SIZE; i++) {
+            bh.consume(converter.convert(amounts[i], from[i], to[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MIX_SIZE)
+    public void crossRateTableMinorUnits(Blackhole bh) {
+        for (int i = 0; i < MIX_SIZE; i++) {
+            bh.consume(converter.convertMinor(minorAmounts[i], from[i], to[i]));
+        }
+    }
+
+    /**
+     * The pre-table algorithm, minus the network fetch: string comparisons and map lookups per call.
+     */
+    private BigDecimal legacyConvert(BigDecimal amount, String fromCurrency, String toCurrency) {
+        if (fromCurrency.equalsIgnoreCase(toCurrency)) {
+            return amount.setScale(2, RoundingMode.HALF_UP);
+        }
+        BigDecimal rubToFrom = fromCurrency.equalsIgnoreCase("RUB") ? BigDecimal.ONE : legacyRates.get(fromCurrency.toUpperCase());
+        BigDecimal rubToTo = toCurrency.equalsIgnoreCase("RUB") ? BigDecimal.ONE : legacyRates.get(toCurrency.toUpperCase());
+
+        BigDecimal inRubles = fromCurrency.equalsIgnoreCase("RUB") ? amount : amount.multiply(rubToFrom);
+        BigDecimal result = toCurrency.equalsIgnoreCase("RUB") ? inRubles : inRubles.divide(rubToTo, 2, RoundingMode.HALF_UP);
+        return result.setScale(3, RoundingMode.HALF_UP);
+    }
+
+    @Test
+    void runBenchmark() throws RunnerException {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CurrencyConversionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
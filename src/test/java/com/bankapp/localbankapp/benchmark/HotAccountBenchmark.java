@@ -0,0 +1,114 @@
+package com.bankapp.localbankapp.benchmark;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-modify-write under {@code SELECT ... FOR UPDATE} versus single-statement conditional updates, with every
+ * thread hitting the same account (H2 in PostgreSQL mode, {@code h2} test profile).
+ *
+ * @author Alexander Brazhkin
+ */
+@Tag("Benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class HotAccountBenchmark {
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"PESSIMISTIC", "CONDITIONAL_UPDATE"})
+    public String lockingMode;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private AccountRepository accountRepository;
+    private User owner;
+    private Long hotAccountId;
+    private final AtomicInteger accountNumbers = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(LocalBankApplication.class)
+                .profiles("h2")
+                .properties("app.transactions.locking=" + lockingMode, "server.port=0")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+        accountRepository = context.getBean(AccountRepository.class);
+
+        owner = new User();
+        owner.setUsername("bench");
+        owner.setPassword("pass");
+        owner.setEmail("bench@test.com");
+        owner = context.getBean(UserRepository.class).save(owner);
+        hotAccountId = openAccount(BigDecimal.valueOf(1_000_000_000L));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    private Long openAccount(BigDecimal balance) {
+        BankAccount account = new BankAccount();
+        account.setUser(owner);
+        account.setAccountNumber("BENCH_" + accountNumbers.incrementAndGet());
+        account.setCurrency(Currency.USD);
+        account.setBalance(balance);
+        return accountRepository.save(account).getId();
+    }
+
+    @State(Scope.Thread)
+    public static class ColdAccount {
+        Long id;
+
+        @Setup(Level.Trial)
+        public void open(HotAccountBenchmark benchmark) {
+            id = benchmark.openAccount(BigDecimal.valueOf(1_000_000_000L));
+        }
+    }
+
+    @Benchmark
+    public Object depositIntoHotAccount() {
+        return transactionService.deposit(new TransactionDTO(null, hotAccountId, AMOUNT, null, Currency.USD));
+    }
+
+    @Benchmark
+    public Object transferIntoHotAccount(ColdAccount source) {
+        return transactionService.transfer(new TransactionDTO(source.id, hotAccountId, AMOUNT, Currency.USD, Currency.USD));
+    }
+
+    @Test
+    void runBenchmark() throws RunnerException {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HotAccountBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,114 @@
+package com.bankapp.localbankapp.benchmark;
+
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.security.JwtAuthFilter;
+import com.BankApp.localbankapp.security.JwtTokenProvider;
+import com.BankApp.localbankapp.service.UserService;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtAuthFilter} on a request carrying the same bearer token over and over, with the verified-token cache
+ * on and off. The user lookup is a stub, so the figures are those of token verification alone; allocation comes
+ * from the GC profiler ({@code gc.alloc.rate.norm}).
+ *
+ * @author Alexander Brazhkin
+ */
+@Tag("Benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    private JwtAuthFilter filter;
+    private MockHttpServletRequest request;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "my-very_secret-key_12345more_secret_than_ever");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(tokenProvider, "jwtCacheMaxSize", cacheSize);
+
+        UserDetails user = org.springframework.security.core.userdetails.User.withUsername("benchmark")
+                                                                             .password("pass")
+                                                                             .authorities("ROLE_USER")
+                                                                             .build();
+        filter = new JwtAuthFilter(tokenProvider, new StubUserService(user), null);
+
+        request = new MockHttpServletRequest("GET", "/api/accounts/1");
+        request.addHeader("Authorization", "Bearer " + tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null)));
+    }
+
+    @Benchmark
+    public Object authenticate() throws Exception {
+        filter.doFilterInternal(request, response, chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    @Test
+    void runBenchmark() throws RunnerException {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    private record StubUserService(UserDetails user) implements UserService {
+        @Override
+        public UserDetails loadUserByUsername(String username) {
+            return user;
+        }
+
+        @Override
+        public User getUserById(Long id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<User> getAllUsers() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public User updateUser(Long id, User updatedUser) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UserDetails updatePassword(UserDetails user, String newPassword) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.bankapp.localbankapp.benchmark;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.AuthRequest;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.exception.LoginsUnavailableException;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.service.AuthService;
+import com.BankApp.localbankapp.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer latency, p99 included, on its own and while eight threads log in back to back (H2 in PostgreSQL mode,
+ * {@code h2} test profile). With {@code cpuShare=0.5} logins get half the CPUs; {@code cpuShare=16} gives every
+ * login a thread of its own, as when BCrypt ran on the request thread.
+ *
+ * @author Alexander Brazhkin
+ */
+@Tag("Benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBurstBenchmark {
+    private static final String PASSWORD = "password123";
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"0.5", "16"})
+    public String cpuShare;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private AuthService authService;
+    private AuthRequest credentials;
+    private Long fromAccountId;
+    private Long toAccountId;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(LocalBankApplication.class)
+                .profiles("h2")
+                .properties("app.auth.login.cpuShare=" + cpuShare, "server.port=0")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+        authService = context.getBean(AuthService.class);
+
+        credentials = new AuthRequest("burst_user", PASSWORD, "burst@test.com");
+        User owner = authService.registerUser(credentials);
+        fromAccountId = openAccount(owner, "BURST_1");
+        toAccountId = openAccount(owner, "BURST_2");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    private Long openAccount(User owner, String number) {
+        BankAccount account = new BankAccount();
+        account.setUser(owner);
+        account.setAccountNumber(number);
+        account.setCurrency(Currency.USD);
+        account.setBalance(BigDecimal.valueOf(1_000_000_000L));
+        return context.getBean(AccountRepository.class).save(account).getId();
+    }
+
+    private Object transfer() {
+        return transactionService.transfer(new TransactionDTO(fromAccountId, toAccountId, AMOUNT,
+                Currency.USD, Currency.USD));
+    }
+
+    @Benchmark
+    public Object quiet() {
+        return transfer();
+    }
+
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(1)
+    public Object transferDuringBurst() {
+        return transfer();
+    }
+
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(8)
+    public Object login() {
+        try {
+            return authService.authenticateUser(credentials);
+        } catch (LoginsUnavailableException e) {
+            return e;
+        }
+    }
+
+    @Test
+    void runBenchmark() throws RunnerException {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LoginBurstBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.bankapp.localbankapp.benchmark;
+
+import com.BankApp.localbankapp.currency.CbrXmlParser;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse time and allocation per refresh for the recorded CBR feed: the old DOM path (decode to String,
+ * re-encode with the platform charset, build a DOM) against the streaming StAX parser.
+ * Allocation figures come from the GC profiler ({@code gc.alloc.rate.norm}).
+ *
+ * @author Alexander Brazhkin
+ */
+@Tag("Benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatesFeedParsingBenchmark {
+    private static final Charset WINDOWS_1251 = Charset.forName("windows-1251");
+
+    private final CbrXmlParser parser = new CbrXmlParser();
+    private byte[] feed;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = new ClassPathResource("cbr/XML_daily.xml").getInputStream()) {
+            feed = in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public Object legacyDom() throws Exception {
+        String xml = new String(feed, WINDOWS_1251);
+        Map<String, BigDecimal> rates = new HashMap<>();
+        Document doc = DocumentBuilderFactory.newInstance()
+                                             .newDocumentBuilder()
+                                             .parse(new ByteArrayInputStream(xml.getBytes()));
+        NodeList valutes = doc.getElementsByTagName("Valute");
+        for (int i = 0; i < valutes.getLength(); i++) {
+            Element valute = (Element) valutes.item(i);
+            String code = valute.getElementsByTagName("CharCode").item(0).getTextContent();
+            String valueStr = valute.getElementsByTagName("Value").item(0).getTextContent();
+            String nominalStr = valute.getElementsByTagName("Nominal").item(0).getTextContent();
+
+            BigDecimal value = new BigDecimal(valueStr.replace(",", "."));
+            BigDecimal nominal = new BigDecimal(nominalStr);
+            rates.put(code.toUpperCase(), value.divide(nominal, 6, RoundingMode.HALF_UP));
+        }
+        return rates;
+    }
+
+    @Benchmark
+    public Object streamingStax() throws IOException {
+        return parser.parse(new ByteArrayInputStream(feed), Instant.EPOCH);
+    }
+
+    @Test
+    void runBenchmark() throws RunnerException {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RatesFeedParsingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
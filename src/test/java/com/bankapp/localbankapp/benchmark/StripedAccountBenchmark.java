@@ -0,0 +1,103 @@
+package com.bankapp.localbankapp.benchmark;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.AccountService;
+import com.BankApp.localbankapp.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput on one hot account as its balance is spread over more stripes, with every thread depositing into
+ * it and withdrawing from it (H2 in PostgreSQL mode, {@code h2} test profile). One stripe is the plain account.
+ *
+ * @author Alexander Brazhkin
+ */
+@Tag("Benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StripedAccountBenchmark {
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"1", "4", "16"})
+    public int stripes;
+
+    @Param({"PESSIMISTIC", "CONDITIONAL_UPDATE"})
+    public String lockingMode;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private Long hotAccountId;
+    private final AtomicInteger accountNumbers = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(LocalBankApplication.class)
+                .profiles("h2")
+                .properties("app.transactions.locking=" + lockingMode, "server.port=0")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+
+        User owner = new User();
+        owner.setUsername("bench");
+        owner.setPassword("pass");
+        owner.setEmail("bench@test.com");
+        owner = context.getBean(UserRepository.class).save(owner);
+
+        BankAccount account = new BankAccount();
+        account.setUser(owner);
+        account.setAccountNumber("BENCH_" + accountNumbers.incrementAndGet());
+        account.setCurrency(Currency.USD);
+        account.setBalance(BigDecimal.valueOf(1_000_000_000L));
+        hotAccountId = context.getBean(AccountRepository.class).save(account).getId();
+        context.getBean(AccountService.class).setStripeCount(hotAccountId, stripes);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object depositIntoHotAccount() {
+        return transactionService.deposit(new TransactionDTO(null, hotAccountId, AMOUNT, null, Currency.USD));
+    }
+
+    @Benchmark
+    public Object withdrawFromHotAccount() {
+        return transactionService.withdrawal(new TransactionDTO(hotAccountId, null, AMOUNT, Currency.USD, null));
+    }
+
+    @Test
+    void runBenchmark() throws RunnerException {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StripedAccountBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,171 @@
+package com.bankapp.localbankapp.benchmark;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.TransactionPage;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.AccountService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one history page of {@value #PAGE_SIZE} rows at page 1 and page 10 000 of a busy account, read with
+ * the keyset cursor of {@code GET /api/accounts/{id}/transactions} and, for comparison, with {@code OFFSET}.
+ * The synthetic {@code transactions} table has {@code rows} rows, half of them touching the busy account, and
+ * lives in a file-backed H2 database (PostgreSQL mode) so that 10M rows fit, with result reuse off so repeated
+ * identical queries are really executed. Populating it takes a while; pass {@code -p rows=...} for a smaller table.
+ *
+ * @author Alexander Brazhkin
+ */
+@Tag("Benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class TransactionHistoryBenchmark {
+    private static final int PAGE_SIZE = 50;
+    private static final int ACCOUNTS = 1000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final String OFFSET_PAGE = """
+            select * from (
+                select t.id, t.transaction_date from transactions t where t.from_account_id = ?
+                union all
+                select t.id, t.transaction_date from transactions t
+                where t.to_account_id = ? and (t.from_account_id is null or t.from_account_id <> ?)
+            ) h
+            order by h.transaction_date desc, h.id desc
+            limit ? offset ?""";
+
+    @Param({"10000000"})
+    public int rows;
+
+    @Param({"1", "10000"})
+    public int page;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private JdbcTemplate jdbcTemplate;
+    private Long busyAccount;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(LocalBankApplication.class)
+                .profiles("h2")
+                .properties("server.port=0")
+                // an argument, since default properties lose to the h2 profile's in-memory url
+                .run("--spring.datasource.url=jdbc:h2:file:./target/history-benchmark/db;MODE=PostgreSQL;"
+                        + "DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;OPTIMIZE_REUSE_RESULTS=FALSE");
+        accountService = context.getBean(AccountService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+
+        User owner = new User();
+        owner.setUsername("bench");
+        owner.setPassword("pass");
+        owner.setEmail("bench@test.com");
+        owner = context.getBean(UserRepository.class).save(owner);
+
+        List<Long> ids = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            BankAccount account = new BankAccount();
+            account.setUser(owner);
+            account.setAccountNumber("BENCH_" + i);
+            account.setCurrency(Currency.USD);
+            account.setBalance(BigDecimal.ZERO);
+            ids.add(accountRepository.save(account).getId());
+        }
+        busyAccount = ids.get(0);
+        populate(ids);
+        // write the bulk load out now rather than from H2's background writer during measurement
+        jdbcTemplate.execute("checkpoint sync");
+
+        String next = null;
+        for (int i = 1; i < page; i++) {
+            next = accountService.getTransactions(busyAccount, next, PAGE_SIZE, null, null, null).getNextCursor();
+        }
+        cursor = next;
+    }
+
+    /**
+     * Even rows move money in or out of the busy account, odd rows between two other accounts; two rows share
+     * each second so pages cut through equal timestamps.
+     */
+    private void populate(List<Long> ids) {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (long i = 1; i <= rows; i++) {
+            long from;
+            long to;
+            if (i % 2 == 0) {
+                long counterparty = ids.get(1 + random.nextInt(ACCOUNTS - 1));
+                boolean outgoing = random.nextBoolean();
+                from = outgoing ? busyAccount : counterparty;
+                to = outgoing ? counterparty : busyAccount;
+            } else {
+                from = ids.get(1 + random.nextInt(ACCOUNTS - 1));
+                to = ids.get(1 + random.nextInt(ACCOUNTS - 1));
+            }
+            batch.add(new Object[]{i, BigDecimal.ONE, from, to, "TRANSFER", "USD", "USD",
+                    Timestamp.valueOf(start.plusSeconds(i / 2))});
+            if (batch.size() == INSERT_BATCH || i == rows) {
+                jdbcTemplate.batchUpdate("""
+                        insert into transactions (id, amount, from_account_id, to_account_id, type,
+                                                  from_currency, to_currency, transaction_date, status)
+                        values (?, ?, ?, ?, ?, ?, ?, ?, 'COMPLETED')""", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionPage keyset() {
+        return accountService.getTransactions(busyAccount, cursor, PAGE_SIZE, null, null, null);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> offset() {
+        return jdbcTemplate.queryForList(OFFSET_PAGE, busyAccount, busyAccount, busyAccount,
+                PAGE_SIZE, (page - 1) * PAGE_SIZE);
+    }
+
+    @Test
+    void runBenchmark() throws RunnerException {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TransactionHistoryBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
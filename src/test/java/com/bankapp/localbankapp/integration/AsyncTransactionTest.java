@@ -0,0 +1,145 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.dto.TransactionStatusResponse;
+import com.BankApp.localbankapp.exception.SubmissionQueueFullException;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.TransactionStatus;
+import com.BankApp.localbankapp.model.TransactionType;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountInfoRepository;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.TransactionRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.AsyncTransactionService;
+import com.BankApp.localbankapp.service.TransactionService;
+import com.BankApp.localbankapp.service.impl.AsyncTransactionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Submits transactions through the asynchronous pipeline against an in-memory H2 database and polls their status.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class)
+@ActiveProfiles("h2")
+class AsyncTransactionTest {
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(1000);
+    private static final long POLL_TIMEOUT_MS = 10_000;
+
+    @Autowired
+    private AsyncTransactionService asyncTransactionService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountInfoRepository accountInfoRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long accountA;
+    private Long accountB;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername("async_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("async_" + suffix + "@test.com");
+        user = userRepository.save(user);
+
+        accountA = openAccount(user, "ASYNC_A_" + suffix);
+        accountB = openAccount(user, "ASYNC_B_" + suffix);
+    }
+
+    private Long openAccount(User user, String accountNumber) {
+        BankAccount account = new BankAccount();
+        account.setUser(user);
+        account.setAccountNumber(accountNumber);
+        account.setCurrency(Currency.USD);
+        account.setBalance(INITIAL_BALANCE);
+        return accountRepository.save(account).getId();
+    }
+
+    private TransactionStatusResponse awaitDone(Long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + POLL_TIMEOUT_MS;
+        TransactionStatusResponse status = asyncTransactionService.getStatus(id);
+        while (status.getStatus() == TransactionStatus.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = asyncTransactionService.getStatus(id);
+        }
+        return status;
+    }
+
+    @Test
+    @DisplayName("Queued transfers complete and move the money")
+    void queuedTransfersComplete() throws Exception {
+        List<TransactionStatusResponse> submitted = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            TransactionStatusResponse status = asyncTransactionService.submit(TransactionType.TRANSFER,
+                    new TransactionDTO(accountA, accountB, BigDecimal.TEN, Currency.USD, Currency.USD));
+            assertEquals(TransactionStatus.PENDING, status.getStatus());
+            submitted.add(status);
+        }
+        for (TransactionStatusResponse status : submitted) {
+            assertEquals(TransactionStatus.COMPLETED, awaitDone(status.getTransactionId()).getStatus());
+        }
+
+        assertEquals(0, BigDecimal.valueOf(800).compareTo(accountRepository.findById(accountA).orElseThrow().getBalance()));
+        assertEquals(0, BigDecimal.valueOf(1200).compareTo(accountRepository.findById(accountB).orElseThrow().getBalance()));
+    }
+
+    @Test
+    @DisplayName("A failing transaction is marked FAILED without failing the rest of its batch")
+    void failingTransactionIsMarkedFailed() throws Exception {
+        Long overdraft = asyncTransactionService.submit(TransactionType.WITHDRAWAL,
+                new TransactionDTO(accountA, null, BigDecimal.valueOf(5000), Currency.USD, null)).getTransactionId();
+        Long deposit = asyncTransactionService.submit(TransactionType.DEPOSIT,
+                new TransactionDTO(null, accountA, BigDecimal.valueOf(50), null, Currency.USD)).getTransactionId();
+
+        TransactionStatusResponse failed = awaitDone(overdraft);
+        assertEquals(TransactionStatus.FAILED, failed.getStatus());
+        assertEquals("Insufficient funds", failed.getFailureReason());
+        assertEquals(TransactionStatus.COMPLETED, awaitDone(deposit).getStatus());
+        assertEquals(0, BigDecimal.valueOf(1050).compareTo(accountRepository.findById(accountA).orElseThrow().getBalance()));
+    }
+
+    @Test
+    @DisplayName("Submissions beyond the queue capacity are refused")
+    void fullQueueRefusesSubmissions() {
+        // never started, so nothing drains the queue
+        AsyncTransactionServiceImpl stalled = new AsyncTransactionServiceImpl(transactionService, transactionRepository,
+                accountRepository, accountInfoRepository, transactionManager, 1, 1, 10, false);
+        TransactionDTO dto = new TransactionDTO(null, accountA, BigDecimal.ONE, null, Currency.USD);
+
+        stalled.submit(TransactionType.DEPOSIT, dto);
+        assertThrows(SubmissionQueueFullException.class, () -> stalled.submit(TransactionType.DEPOSIT, dto));
+    }
+}
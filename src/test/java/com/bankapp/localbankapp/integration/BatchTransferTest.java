@@ -0,0 +1,118 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.BatchTransferResult;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.TransactionStatus;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.TransactionRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class)
+@ActiveProfiles("h2")
+@Tag("Batch")
+class BatchTransferTest {
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long accountA;
+    private Long accountB;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername("batch_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("batch_" + suffix + "@test.com");
+        user = userRepository.save(user);
+
+        accountA = openAccount(user, "BATCH_A_" + suffix, BigDecimal.valueOf(1000));
+        accountB = openAccount(user, "BATCH_B_" + suffix, BigDecimal.valueOf(1000));
+    }
+
+    private Long openAccount(User user, String accountNumber, BigDecimal balance) {
+        BankAccount account = new BankAccount();
+        account.setUser(user);
+        account.setAccountNumber(accountNumber);
+        account.setCurrency(Currency.USD);
+        account.setBalance(balance);
+        return accountRepository.save(account).getId();
+    }
+
+    private TransactionDTO transfer(Long from, Long to, long amount) {
+        return new TransactionDTO(from, to, BigDecimal.valueOf(amount), Currency.USD, Currency.USD);
+    }
+
+    private BigDecimal balance(Long id) {
+        return accountRepository.findById(id).orElseThrow().getBalance();
+    }
+
+    @Test
+    @DisplayName("A failed item rolls an all-or-nothing batch back")
+    void allOrNothingRollsBack() {
+        long transactionsBefore = transactionRepository.count();
+
+        BatchTransferResult result = transactionService.transferBatch(new BatchTransferRequest(List.of(
+                transfer(accountA, accountB, 400),
+                transfer(accountA, accountB, 700),
+                transfer(accountB, accountA, 100)
+        ), BatchTransferRequest.Mode.ALL_OR_NOTHING));
+
+        assertEquals(0, result.getCompleted());
+        assertEquals(List.of(TransactionStatus.CANCELLED, TransactionStatus.FAILED, TransactionStatus.CANCELLED),
+                result.getItems().stream().map(BatchTransferResult.Item::getStatus).toList());
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(balance(accountA)));
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(balance(accountB)));
+        assertEquals(transactionsBefore, transactionRepository.count());
+    }
+
+    @Test
+    @DisplayName("A partial batch commits every valid item in one transaction")
+    void partialCommitsValidItems() {
+        long transactionsBefore = transactionRepository.count();
+
+        BatchTransferResult result = transactionService.transferBatch(new BatchTransferRequest(List.of(
+                transfer(accountA, accountB, 400),
+                transfer(accountA, 999_999L, 10),
+                transfer(accountB, accountA, 100)
+        ), BatchTransferRequest.Mode.PARTIAL));
+
+        assertEquals(2, result.getCompleted());
+        assertEquals("Target account not found", result.getItems().get(1).getError());
+        assertNotNull(result.getItems().get(2).getTransactionId());
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(balance(accountA)));
+        assertEquals(0, BigDecimal.valueOf(1300).compareTo(balance(accountB)));
+        assertEquals(transactionsBefore + 2, transactionRepository.count());
+    }
+}
@@ -0,0 +1,156 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionType;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.IdempotencyKeyRepository;
+import com.BankApp.localbankapp.repository.TransactionRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.IdempotencyService;
+import com.BankApp.localbankapp.service.TransactionService;
+import com.BankApp.localbankapp.service.impl.IdempotencyServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class)
+@ActiveProfiles("h2")
+@Tag("Idempotency")
+class IdempotencyTest {
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long account;
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername("idem_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("idem_" + suffix + "@test.com");
+        user = userRepository.save(user);
+
+        BankAccount bankAccount = new BankAccount();
+        bankAccount.setUser(user);
+        bankAccount.setAccountNumber("IDEM_" + suffix);
+        bankAccount.setCurrency(Currency.USD);
+        bankAccount.setBalance(BigDecimal.valueOf(1000));
+        account = accountRepository.save(bankAccount).getId();
+        key = "idem-" + suffix;
+    }
+
+    private TransactionDTO withdrawal(long amount) {
+        return new TransactionDTO(account, account, BigDecimal.valueOf(amount), Currency.USD, Currency.USD);
+    }
+
+    private Transaction withdraw(IdempotencyService service, TransactionDTO dto) {
+        return service.execute(key, TransactionType.WITHDRAWAL, dto, () -> transactionService.withdrawal(dto));
+    }
+
+    private BigDecimal balance() {
+        return accountRepository.findById(account).orElseThrow().getBalance();
+    }
+
+    @Test
+    @DisplayName("Concurrent retries of one withdrawal move money once")
+    void concurrentRetriesMoveMoneyOnce() throws Exception {
+        int threads = 6;
+        TransactionDTO dto = withdrawal(100);
+        long transactionsBefore = transactionRepository.count();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Long> transactionIds = new ArrayList<>();
+        try {
+            List<Future<Transaction>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return withdraw(idempotencyService, dto);
+                }));
+            }
+            start.countDown();
+            for (Future<Transaction> result : results) {
+                transactionIds.add(result.get(30, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, transactionIds.stream().distinct().count());
+        assertEquals(0, new BigDecimal("900.00").compareTo(balance()));
+        assertEquals(transactionsBefore + 1, transactionRepository.count());
+    }
+
+    @Test
+    @DisplayName("A key recorded in the table is honoured by a fresh node")
+    void recordedKeyIsReplayedAfterRestart() {
+        TransactionDTO dto = withdrawal(100);
+        Transaction first = withdraw(idempotencyService, dto);
+
+        IdempotencyService freshNode = new IdempotencyServiceImpl(idempotencyKeyRepository, transactionRepository,
+                transactionManager, 100, false);
+        Transaction replayed = withdraw(freshNode, dto);
+
+        assertEquals(first.getId(), replayed.getId());
+        assertEquals(0, new BigDecimal("900.00").compareTo(balance()));
+    }
+
+    @Test
+    @DisplayName("A rejected operation leaves its key free for a corrected retry")
+    void rejectedOperationDoesNotConsumeKey() {
+        assertThrows(ResponseStatusException.class, () -> withdraw(idempotencyService, withdrawal(5000)));
+        assertTrue(idempotencyKeyRepository.findAll().stream().noneMatch(k -> k.getKey().endsWith(key)));
+
+        Transaction transaction = withdraw(idempotencyService, withdrawal(100));
+
+        assertNotNull(transaction.getId());
+        assertEquals(0, new BigDecimal("900.00").compareTo(balance()));
+    }
+}
@@ -0,0 +1,162 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.BatchTransferResult;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.TransactionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Wraps the pooled {@link DataSource} in a JDBC proxy that counts how inserts into {@code transactions} reach
+ * the driver, to prove they are sent as JDBC batches rather than one statement per row.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = {LocalBankApplication.class, JdbcBatchingTest.StatementCounter.class})
+@ActiveProfiles("h2")
+@Tag("Batch")
+class JdbcBatchingTest {
+    private static final int PAYMENTS = 120;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StatementCounter counter;
+
+    @Test
+    @DisplayName("Batch transfers insert transactions with JDBC batches")
+    void batchTransferUsesJdbcBatches() {
+        User user = new User();
+        user.setUsername("jdbc_batch");
+        user.setPassword("pass");
+        user.setEmail("jdbc_batch@test.com");
+        user = userRepository.save(user);
+        Long from = openAccount(user, "JDBC_BATCH_A");
+        Long to = openAccount(user, "JDBC_BATCH_B");
+
+        List<TransactionDTO> payments = new ArrayList<>(PAYMENTS);
+        for (int i = 0; i < PAYMENTS; i++) {
+            payments.add(new TransactionDTO(from, to, BigDecimal.ONE, Currency.USD, Currency.USD));
+        }
+        counter.reset();
+
+        BatchTransferResult result = transactionService.transferBatch(
+                new BatchTransferRequest(payments, BatchTransferRequest.Mode.ALL_OR_NOTHING));
+
+        assertEquals(PAYMENTS, result.getCompleted());
+        assertEquals(PAYMENTS, counter.rowsAddedToBatch.get(), "every insert goes through addBatch");
+        assertEquals(0, counter.singleInserts.get(), "no insert is executed on its own");
+        assertEquals((PAYMENTS + BATCH_SIZE - 1) / BATCH_SIZE, counter.insertBatches.get());
+    }
+
+    private Long openAccount(User user, String accountNumber) {
+        BankAccount account = new BankAccount();
+        account.setUser(user);
+        account.setAccountNumber(accountNumber);
+        account.setCurrency(Currency.USD);
+        account.setBalance(BigDecimal.valueOf(1_000_000));
+        return accountRepository.save(account).getId();
+    }
+
+    @TestConfiguration
+    static class StatementCounter {
+        final AtomicInteger rowsAddedToBatch = new AtomicInteger();
+        final AtomicInteger insertBatches = new AtomicInteger();
+        final AtomicInteger singleInserts = new AtomicInteger();
+
+        void reset() {
+            rowsAddedToBatch.set(0);
+            insertBatches.set(0);
+            singleInserts.set(0);
+        }
+
+        @Bean
+        static BeanPostProcessor countingDataSource(ObjectProvider<StatementCounter> counter) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? counter.getObject().wrap(dataSource) : bean;
+                }
+            };
+        }
+
+        DataSource wrap(DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (method, result, args) -> method.equals("getConnection")
+                    ? proxy(Connection.class, result, (connectionMethod, statement, sql) ->
+                            connectionMethod.equals("prepareStatement") && isTransactionInsert(sql[0])
+                                    ? proxy(PreparedStatement.class, statement, (statementMethod, r, a) -> {
+                                        count(statementMethod);
+                                        return r;
+                                    })
+                                    : statement)
+                    : result);
+        }
+
+        private static boolean isTransactionInsert(Object sql) {
+            return sql instanceof String s && s.toLowerCase(Locale.ROOT).startsWith("insert into transactions");
+        }
+
+        private void count(String statementMethod) {
+            switch (statementMethod) {
+                case "addBatch" -> rowsAddedToBatch.incrementAndGet();
+                case "executeBatch" -> insertBatches.incrementAndGet();
+                case "executeUpdate", "execute" -> singleInserts.incrementAndGet();
+                default -> { }
+            }
+        }
+
+        @FunctionalInterface
+        interface ResultDecorator {
+            Object decorate(String method, Object result, Object[] args);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, Object target, ResultDecorator decorator) {
+            return (T) Proxy.newProxyInstance(JdbcBatchingTest.class.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        try {
+                            Object result = method.invoke(target, args);
+                            return decorator.decorate(method.getName(), result, args == null ? new Object[1] : args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
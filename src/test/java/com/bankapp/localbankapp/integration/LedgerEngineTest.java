@@ -0,0 +1,364 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.exception.LedgerUnavailableException;
+import com.BankApp.localbankapp.ledger.LedgerEngine;
+import com.BankApp.localbankapp.ledger.LedgerJournal;
+import com.BankApp.localbankapp.ledger.LedgerRecord;
+import com.BankApp.localbankapp.ledger.LedgerStore;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.AccountStripeRepository;
+import com.BankApp.localbankapp.repository.TransactionRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.AccountService;
+import com.BankApp.localbankapp.service.BalanceRebuildService;
+import com.BankApp.localbankapp.service.ExchangeRateService;
+import com.BankApp.localbankapp.service.TransactionService;
+import com.BankApp.localbankapp.util.CurrencyConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs against its own in-memory database so that no other context writes ledger checkpoints.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger_db;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "app.ledger.enabled=true",
+        "app.ledger.journal.fsync=false",
+        "app.ledger.flushIntervalMs=60000"
+})
+@ActiveProfiles("h2")
+@Tag("Ledger")
+class LedgerEngineTest {
+    private static final int SHARDS = 4;
+    private static final Path JOURNAL_DIR;
+
+    static {
+        try {
+            JOURNAL_DIR = Files.createTempDirectory("ledger-test");
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void ledgerProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.ledger.journal.dir", JOURNAL_DIR::toString);
+        registry.add("app.ledger.shards", () -> SHARDS);
+    }
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private LedgerStore ledgerStore;
+
+    @Autowired
+    private CurrencyConverter currencyConverter;
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BalanceRebuildService balanceRebuildService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountStripeRepository accountStripeRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        user = new User();
+        user.setUsername("ledger_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("ledger_" + suffix + "@test.com");
+        user = userRepository.save(user);
+    }
+
+    private List<Long> openAccounts(int count, long balance) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BankAccount account = new BankAccount();
+            account.setUser(user);
+            account.setAccountNumber("LEDGER_" + UUID.randomUUID().toString().substring(0, 12));
+            account.setCurrency(Currency.USD);
+            account.setBalance(BigDecimal.valueOf(balance));
+            ids.add(accountRepository.save(account).getId());
+        }
+        return ids;
+    }
+
+    private static TransactionDTO usd(Long from, Long to, long amount) {
+        return new TransactionDTO(from, to, BigDecimal.valueOf(amount), Currency.USD, Currency.USD);
+    }
+
+    private static TransactionDTO deposit(Long to, long amount) {
+        return new TransactionDTO(null, to, BigDecimal.valueOf(amount), null, Currency.USD);
+    }
+
+    private static BigDecimal balance(LedgerEngine engine, long id) {
+        return engine.balance(id).join();
+    }
+
+    private BigDecimal storedBalance(long id) {
+        return accountRepository.findById(id).orElseThrow().getBalance();
+    }
+
+    /**
+     * Net effect of the account's ledger entries; accounts here are opened with a balance and no entries.
+     */
+    private BigDecimal entryDelta(long id) {
+        return jdbcTemplate.queryForObject("""
+                select coalesce(sum(case when direction = 'CREDIT' then amount else -amount end), 0)
+                from ledger_entries where account_id = ?""", BigDecimal.class, id);
+    }
+
+    @Test
+    @DisplayName("Concurrent transfers within and across shards conserve money and are flushed")
+    void concurrentTransfersConserveMoney() throws Exception {
+        List<Long> accounts = openAccounts(8, 1000);
+        long transactionsBefore = transactionRepository.count();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> workers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            workers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int completed = 0;
+                for (int i = 0; i < 250; i++) {
+                    Long from = accounts.get(random.nextInt(accounts.size()));
+                    Long to = accounts.get(random.nextInt(accounts.size()));
+                    try {
+                        transactionService.transfer(usd(from, to, random.nextInt(1, 200)));
+                        completed++;
+                    } catch (ResponseStatusException insufficientFunds) {
+                        // expected once an account runs dry
+                    }
+                }
+                return completed;
+            }));
+        }
+        int completed = 0;
+        for (Future<Integer> worker : workers) {
+            completed += worker.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Long id : accounts) {
+            total = total.add(balance(ledgerEngine, id));
+        }
+        assertEquals(0, BigDecimal.valueOf(8000).compareTo(total));
+
+        ledgerEngine.flush();
+        for (Long id : accounts) {
+            assertEquals(0, balance(ledgerEngine, id).compareTo(storedBalance(id)));
+            assertEquals(0, storedBalance(id).subtract(BigDecimal.valueOf(1000)).compareTo(entryDelta(id)));
+        }
+        assertEquals(transactionsBefore + completed, transactionRepository.count());
+    }
+
+    @Test
+    @DisplayName("A credit rejected by the target shard is refunded to the source")
+    void rejectedCrossShardCreditIsRefunded() {
+        List<Long> accounts = openAccounts(2, 500);
+        Long source = accounts.get(0);
+        Long target = accounts.get(1);
+        assertNotEquals(ledgerEngine.shardOf(source), ledgerEngine.shardOf(target));
+        BankAccount inactive = accountRepository.findById(target).orElseThrow();
+        inactive.setActive(false);
+        accountRepository.save(inactive);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> transactionService.transfer(usd(source, target, 100)));
+
+        assertEquals("Account is not active", e.getReason());
+        assertEquals(0, BigDecimal.valueOf(500).compareTo(balance(ledgerEngine, source)));
+    }
+
+    @Test
+    @DisplayName("A batch in any mode but PARTIAL is rejected with the mode the client sent")
+    void batchModeOtherThanPartialIsRejected() {
+        List<Long> accounts = openAccounts(2, 500);
+        List<TransactionDTO> transfers = List.of(usd(accounts.get(0), accounts.get(1), 100));
+
+        ResponseStatusException allOrNothing = assertThrows(ResponseStatusException.class,
+                () -> transactionService.transferBatch(new BatchTransferRequest(transfers,
+                        BatchTransferRequest.Mode.ALL_OR_NOTHING)));
+        assertEquals("Batch mode ALL_OR_NOTHING is not supported by the ledger engine; send mode PARTIAL",
+                allOrNothing.getReason());
+        ResponseStatusException unset = assertThrows(ResponseStatusException.class,
+                () -> transactionService.transferBatch(new BatchTransferRequest(transfers, null)));
+        assertEquals("Batch mode null (ALL_OR_NOTHING by default) is not supported by the ledger engine; send mode PARTIAL",
+                unset.getReason());
+        assertEquals(0, BigDecimal.valueOf(500).compareTo(balance(ledgerEngine, accounts.get(0))));
+    }
+
+    @Test
+    @DisplayName("Striping an account the engine has loaded is rejected and its total balance is unchanged")
+    void stripingIsRejected() {
+        Long account = openAccounts(1, 1000).get(0);
+        transactionService.deposit(deposit(account, 100));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> accountService.setStripeCount(account, 4));
+
+        assertEquals("Striping is not supported by the ledger engine", e.getReason());
+        ledgerEngine.flush();
+        BigDecimal total = storedBalance(account).add(accountStripeRepository.sumBalance(account));
+        assertEquals(0, BigDecimal.valueOf(1100).compareTo(total));
+        assertEquals(0, BigDecimal.valueOf(1100).compareTo(balance(ledgerEngine, account)));
+    }
+
+    @Test
+    @DisplayName("Balance repair is rejected while the engine owns balances")
+    void balanceRepairIsRejected() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> balanceRebuildService.rebuild());
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertEquals("Balances cannot be repaired while the ledger engine owns them", e.getReason());
+    }
+
+    @Test
+    @DisplayName("After a crash the journal is replayed and owed cross-shard credits are completed")
+    @DirtiesContext
+    void recoversFromJournalAfterCrash() throws IOException {
+        List<Long> accounts = openAccounts(3, 1000);
+        Long a = accounts.get(0);
+        Long b = accounts.get(1);
+        Long c = accounts.get(2);
+        transactionService.deposit(new TransactionDTO(null, a, BigDecimal.valueOf(250), null, Currency.USD));
+        transactionService.withdrawal(new TransactionDTO(b, null, BigDecimal.valueOf(40), Currency.USD, null));
+        Transaction crossShard = transactionService.transfer(usd(a, c, 300));
+        ledgerEngine.halt();
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(storedBalance(a)));
+        assertTrue(transactionRepository.findById(crossShard.getId()).isEmpty());
+
+        // a debit whose credit never made it into the target shard's journal
+        long owedId = ledgerStore.nextTransactionId();
+        Path sourceShard = JOURNAL_DIR.resolve("shard-" + ledgerEngine.shardOf(b));
+        try (LedgerJournal journal = new LedgerJournal(sourceShard, 1_000_000L, false)) {
+            journal.append(new LedgerRecord(journal.nextSeq(), LedgerRecord.Kind.TRANSFER_OUT, owedId, b, c,
+                    6000L, 6000L, 6000L, Currency.USD, null, null, System.currentTimeMillis()));
+        }
+
+        LedgerEngine restarted = new LedgerEngine(ledgerStore, currencyConverter, exchangeRateService,
+                SHARDS, 1024, 64, JOURNAL_DIR.toString(), false, 60_000, 1000);
+        restarted.start();
+        try {
+            assertEquals(0, new BigDecimal("950.00").compareTo(balance(restarted, a)));
+            assertEquals(0, new BigDecimal("900.00").compareTo(balance(restarted, b)));
+            assertEquals(0, new BigDecimal("1360.00").compareTo(balance(restarted, c)));
+
+            assertEquals(0, new BigDecimal("950.00").compareTo(storedBalance(a)));
+            assertEquals(0, new BigDecimal("900.00").compareTo(storedBalance(b)));
+            assertEquals(0, new BigDecimal("1360.00").compareTo(storedBalance(c)));
+            assertTrue(transactionRepository.findById(crossShard.getId()).isPresent());
+            assertTrue(transactionRepository.findById(owedId).isPresent());
+            for (Long id : accounts) {
+                assertEquals(0, storedBalance(id).subtract(BigDecimal.valueOf(1000)).compareTo(entryDelta(id)));
+            }
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Once a shard's journal fails nothing more is acknowledged, and a restart recovers the last durable state")
+    @DirtiesContext
+    void journalFailureStopsTheShard() throws IOException {
+        Path fullDevice = Path.of("/dev/full");
+        assumeTrue(Files.exists(fullDevice));
+        Long account = openAccounts(1, 1000).get(0);
+        ledgerEngine.halt();
+        Path dir = Files.createTempDirectory("ledger-failure");
+
+        LedgerEngine engine = new LedgerEngine(ledgerStore, currencyConverter, exchangeRateService,
+                SHARDS, 1024, 64, dir.toString(), false, 60_000, 1000);
+        engine.start();
+        Path shardDir = dir.resolve("shard-" + engine.shardOf(account));
+        Path nextSegment;
+        try {
+            engine.deposit(deposit(account, 100), engine.pinRates()).join();
+            // the segment opened by the next flush rejects every write
+            long nextSeq = Long.parseLong(LedgerJournal.segments(shardDir).get(0).getFileName().toString()
+                                                       .replace(".wal", "")) + 1;
+            nextSegment = Files.createSymbolicLink(shardDir.resolve(String.format("%020d.wal", nextSeq)), fullDevice);
+            engine.flush();
+
+            CompletionException failed = assertThrows(CompletionException.class,
+                    () -> engine.deposit(deposit(account, 50), engine.pinRates()).join());
+            assertInstanceOf(LedgerUnavailableException.class, failed.getCause());
+            assertThrows(LedgerUnavailableException.class, () -> engine.deposit(deposit(account, 50), engine.pinRates()));
+        } finally {
+            engine.halt();
+        }
+        Files.delete(nextSegment);
+
+        LedgerEngine restarted = new LedgerEngine(ledgerStore, currencyConverter, exchangeRateService,
+                SHARDS, 1024, 64, dir.toString(), false, 60_000, 1000);
+        restarted.start();
+        try {
+            assertEquals(0, new BigDecimal("1100.00").compareTo(balance(restarted, account)));
+            assertEquals(0, new BigDecimal("1100.00").compareTo(storedBalance(account)));
+        } finally {
+            restarted.stop();
+        }
+    }
+}
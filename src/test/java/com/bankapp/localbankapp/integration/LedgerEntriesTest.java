@@ -0,0 +1,169 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.BalanceReport;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.AccountService;
+import com.BankApp.localbankapp.service.BalanceRebuildService;
+import com.BankApp.localbankapp.service.LockingMode;
+import com.BankApp.localbankapp.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ledger entries written by every operation and the recomputation of cached balances from them.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class)
+@ActiveProfiles("h2")
+class LedgerEntriesTest {
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BalanceRebuildService balanceRebuildService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long usdAccount;
+    private Long eurAccount;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername("entries_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("entries_" + suffix + "@test.com");
+        user = userRepository.save(user);
+
+        usdAccount = openAccount(user, "ENTRIES_U_" + suffix, Currency.USD);
+        eurAccount = openAccount(user, "ENTRIES_E_" + suffix, Currency.EUR);
+        // other tests seed balances directly, so make sure their accounts never crowd ours out of the report
+        Object target = AopTestUtils.getTargetObject(balanceRebuildService);
+        ReflectionTestUtils.setField(target, "maxReportedDrifts", Integer.MAX_VALUE);
+    }
+
+    private Long openAccount(User user, String accountNumber, Currency currency) {
+        BankAccount account = new BankAccount();
+        account.setUser(user);
+        account.setAccountNumber(accountNumber);
+        account.setCurrency(currency);
+        account.setBalance(BigDecimal.ZERO);
+        return accountRepository.save(account).getId();
+    }
+
+    @AfterEach
+    void restoreLockingMode() {
+        setLockingMode(LockingMode.PESSIMISTIC);
+    }
+
+    private void setLockingMode(LockingMode lockingMode) {
+        Object target = AopTestUtils.getTargetObject(transactionService);
+        ReflectionTestUtils.setField(target, "lockingMode", lockingMode);
+    }
+
+    @ParameterizedTest
+    @EnumSource(LockingMode.class)
+    @DisplayName("Every operation writes entries that add up to the cached balance")
+    void entriesMatchBalances(LockingMode lockingMode) {
+        setLockingMode(lockingMode);
+        transactionService.deposit(new TransactionDTO(null, usdAccount, new BigDecimal("1000.00"), null, Currency.USD));
+        Transaction transfer = transactionService.transfer(
+                new TransactionDTO(usdAccount, eurAccount, new BigDecimal("100.00"), Currency.USD, null));
+        transactionService.withdrawal(new TransactionDTO(eurAccount, null, new BigDecimal("10.00"), Currency.EUR, null));
+
+        assertEquals(0, new BigDecimal("900.00").compareTo(entrySum(usdAccount)));
+        assertEquals(0, accountService.getBalanceById(usdAccount).compareTo(entrySum(usdAccount)));
+        assertEquals(0, accountService.getBalanceById(eurAccount).compareTo(entrySum(eurAccount)));
+
+        List<Map<String, Object>> legs = jdbcTemplate.queryForList(
+                "select account_id, direction, amount, currency, rate from ledger_entries where transaction_id = ? order by direction",
+                transfer.getId());
+        assertEquals(2, legs.size());
+        assertEquals("CREDIT", legs.get(0).get("direction"));
+        assertEquals(eurAccount, ((Number) legs.get(0).get("account_id")).longValue());
+        assertEquals("EUR", legs.get(0).get("currency"));
+        assertNotNull(legs.get(0).get("rate"));
+        assertEquals("DEBIT", legs.get(1).get("direction"));
+        assertEquals(0, new BigDecimal("100.00").compareTo((BigDecimal) legs.get(1).get("amount")));
+        assertNull(legs.get(1).get("rate"));
+
+        assertTrue(drifts(balanceRebuildService.verify()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A tampered balance is reported by verify and restored by rebuild")
+    void rebuildRepairsDrift() {
+        transactionService.deposit(new TransactionDTO(null, usdAccount, new BigDecimal("250.00"), null, Currency.USD));
+        jdbcTemplate.update("update bank_accounts set balance = balance + 7 where id = ?", usdAccount);
+
+        List<BalanceReport.Drift> drifts = drifts(balanceRebuildService.verify());
+        assertEquals(1, drifts.size());
+        assertEquals(0, new BigDecimal("257.00").compareTo(drifts.get(0).getCached()));
+        assertEquals(0, new BigDecimal("250.00").compareTo(drifts.get(0).getLedger()));
+        assertEquals(0, new BigDecimal("257.00").compareTo(accountService.getBalanceById(usdAccount)));
+
+        BalanceReport rebuilt = balanceRebuildService.rebuild();
+        assertTrue(rebuilt.getRepaired() >= 1);
+        assertEquals(0, new BigDecimal("250.00").compareTo(accountService.getBalanceById(usdAccount)));
+        assertTrue(drifts(balanceRebuildService.verify()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Striped accounts are compared including their stripes")
+    void stripedAccountHasNoDrift() {
+        transactionService.deposit(new TransactionDTO(null, usdAccount, new BigDecimal("400.00"), null, Currency.USD));
+        accountService.setStripeCount(usdAccount, 4);
+        transactionService.withdrawal(new TransactionDTO(usdAccount, null, new BigDecimal("30.00"), Currency.USD, null));
+
+        assertEquals(0, new BigDecimal("370.00").compareTo(entrySum(usdAccount)));
+        assertTrue(drifts(balanceRebuildService.verify()).isEmpty());
+    }
+
+    private BigDecimal entrySum(Long accountId) {
+        return jdbcTemplate.queryForObject("""
+                select coalesce(sum(case when direction = 'CREDIT' then amount else -amount end), 0)
+                from ledger_entries where account_id = ?""", BigDecimal.class, accountId);
+    }
+
+    private List<BalanceReport.Drift> drifts(BalanceReport report) {
+        return report.getDrifts().stream()
+                     .filter(drift -> drift.getAccountId().equals(usdAccount) || drift.getAccountId().equals(eurAccount))
+                     .toList();
+    }
+}
@@ -0,0 +1,78 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.AuthRequest;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.AuthService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Outdated password hashes are replaced on the user's next successful login, with the configured cost
+ * ({@code app.auth.bcryptCost}, 10 by default) and the {@code {bcrypt}} prefix.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class)
+@ActiveProfiles("h2")
+class PasswordRehashTest {
+    private static final String PASSWORD = "password123";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User userWithHash(String hash) {
+        String username = "rehash_" + UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(hash);
+        user.setEmail(username + "@test.com");
+        return userRepository.save(user);
+    }
+
+    private String login(User user) {
+        return authService.authenticateUser(new AuthRequest(user.getUsername(), PASSWORD, user.getEmail()));
+    }
+
+    private String storedHash(User user) {
+        return userRepository.findById(user.getId()).orElseThrow().getPassword();
+    }
+
+    @Test
+    @DisplayName("A hash from before the {bcrypt} prefix is rehashed on login")
+    void unprefixedHashIsRehashed() {
+        User user = userWithHash(new BCryptPasswordEncoder(10).encode(PASSWORD));
+
+        assertNotNull(login(user));
+
+        String rehashed = storedHash(user);
+        assertTrue(rehashed.startsWith("{bcrypt}$2a$10$"), rehashed);
+        assertNotNull(login(user));
+        assertEquals(rehashed, storedHash(user));
+    }
+
+    @Test
+    @DisplayName("A hash of a lower cost is rehashed with the configured cost")
+    void cheaperHashIsRehashed() {
+        User user = userWithHash("{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD));
+
+        assertNotNull(login(user));
+
+        String rehashed = storedHash(user);
+        assertTrue(rehashed.startsWith("{bcrypt}$2a$10$"), rehashed);
+    }
+}
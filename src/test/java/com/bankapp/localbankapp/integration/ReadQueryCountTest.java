@@ -0,0 +1,138 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.TransactionStatus;
+import com.BankApp.localbankapp.model.TransactionType;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.AsyncTransactionService;
+import com.BankApp.localbankapp.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Read endpoints go through the whole web stack, serialisation included, and are held to one SQL statement
+ * each, counted by Hibernate statistics. Authentication is mocked, so the JWT filter's user lookup is not counted.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@WithMockUser
+class ReadQueryCountTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AsyncTransactionService asyncTransactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+    private Long accountId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername("reads_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("reads_" + suffix + "@test.com");
+        user = userRepository.save(user);
+
+        BankAccount account = new BankAccount();
+        account.setUser(user);
+        account.setAccountNumber("READS_" + suffix);
+        account.setCurrency(Currency.USD);
+        account.setBalance(BigDecimal.ZERO);
+        accountId = accountRepository.save(account).getId();
+        transactionService.deposit(new TransactionDTO(null, accountId, new BigDecimal("100.00"), null, Currency.USD));
+    }
+
+    @Test
+    @DisplayName("GET /api/accounts/{id} reads a projection, not the account and its owner")
+    void account() throws Exception {
+        assertSingleStatement(() -> mockMvc.perform(get("/api/accounts/{id}", accountId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(100.0))
+                .andExpect(jsonPath("$.user").doesNotExist()));
+    }
+
+    @Test
+    @DisplayName("GET /api/accounts/{id}/balance")
+    void balance() throws Exception {
+        assertSingleStatement(() -> mockMvc.perform(get("/api/accounts/{id}/balance", accountId))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    @DisplayName("GET /api/accounts/{id}/transactions")
+    void history() throws Exception {
+        assertSingleStatement(() -> mockMvc.perform(get("/api/accounts/{id}/transactions", accountId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1)));
+    }
+
+    @Test
+    @DisplayName("GET /api/transactions/{id}/status")
+    void transactionStatus() throws Exception {
+        Long transactionId = asyncTransactionService.submit(TransactionType.DEPOSIT,
+                new TransactionDTO(null, accountId, BigDecimal.ONE, null, Currency.USD)).getTransactionId();
+        // let the worker finish first, so that its statements are not counted
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (asyncTransactionService.getStatus(transactionId).getStatus() == TransactionStatus.PENDING
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertSingleStatement(() -> mockMvc.perform(get("/api/transactions/{id}/status", transactionId))
+                .andExpect(status().isOk()));
+    }
+
+    private void assertSingleStatement(Request request) throws Exception {
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        request.perform();
+        assertEquals(1, statistics.getPrepareStatementCount(), "SQL statements");
+        assertEquals(0, statistics.getEntityLoadCount(), "entities loaded");
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        ResultActions perform() throws Exception;
+    }
+}
@@ -0,0 +1,158 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.service.AccountService;
+import com.BankApp.localbankapp.util.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Routing between the in-memory primary of the h2 profile and two in-memory replicas. Each database answers
+ * {@code database()} with its own name, which tells where a statement ran; the replicas report their lag from a
+ * {@code replica_lag} table the tests control.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class, properties = {
+        "app.datasource.replicas.urls=" + ReplicaRoutingTest.REPLICA_1 + "," + ReplicaRoutingTest.REPLICA_2,
+        "app.datasource.replicas.lagQuery=select lag_ms from replica_lag",
+        "app.datasource.replicas.maxLagMs=1000",
+        "app.datasource.replicas.healthCheckIntervalMs=3600000"
+})
+@ActiveProfiles("h2")
+class ReplicaRoutingTest {
+    static final String REPLICA_1 = "jdbc:h2:mem:replica_1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_2 = "jdbc:h2:mem:replica_2;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String WHERE = "select database()";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private AccountService accountService;
+
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        setLag(REPLICA_1, 0);
+        setLag(REPLICA_2, 0);
+        routingDataSource.checkReplicas();
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    private static void setLag(String url, long lagMs) {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        replica.execute("create table if not exists replica_lag (lag_ms bigint)");
+        replica.update("delete from replica_lag");
+        replica.update("insert into replica_lag values (?)", lagMs);
+    }
+
+    private static void seedAccount(String url, long accountId) {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        replica.execute("""
+                create table if not exists bank_accounts (id bigint primary key, account_number varchar(20),
+                balance decimal(15,2), currency varchar(3), active boolean, stripe_count int, user_id bigint)""");
+        replica.execute("create table if not exists account_stripes (account_id bigint, stripe int, balance decimal(15,2))");
+        replica.update("insert into bank_accounts values (?, 'REPLICA_ONLY', 7.00, 'USD', true, null, 1)", accountId);
+    }
+
+    private String readOnlyDatabase() {
+        return readOnly.execute(status -> jdbcTemplate.queryForObject(WHERE, String.class));
+    }
+
+    @Test
+    @DisplayName("Read-only transactions alternate between the replicas")
+    void readOnlyTransactionsUseReplicas() {
+        assertEquals(List.of("replica-1", "replica-2"), routingDataSource.availableReplicas());
+        List<String> databases = List.of(readOnlyDatabase(), readOnlyDatabase(), readOnlyDatabase(), readOnlyDatabase());
+
+        assertEquals(2, databases.stream().filter("replica_1"::equalsIgnoreCase).count(), databases.toString());
+        assertEquals(2, databases.stream().filter("replica_2"::equalsIgnoreCase).count(), databases.toString());
+    }
+
+    @Test
+    @DisplayName("Account and balance reads of AccountService are served by the replicas")
+    void accountReadsUseReplicas() {
+        // the account exists on the replicas only, so a read from the primary would not find it
+        long accountId = 900_000_000L + ThreadLocalRandom.current().nextInt(1_000_000);
+        seedAccount(REPLICA_1, accountId);
+        seedAccount(REPLICA_2, accountId);
+
+        assertEquals(0, new BigDecimal("7.00").compareTo(accountService.getBalanceById(accountId)));
+        assertEquals("REPLICA_ONLY", accountService.getAccountById(accountId).getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("A balance read from a replica is not cached")
+    void replicaBalanceIsNotCached() {
+        long accountId = 900_000_000L + ThreadLocalRandom.current().nextInt(1_000_000);
+        seedAccount(REPLICA_1, accountId);
+        seedAccount(REPLICA_2, accountId);
+        assertEquals(0, new BigDecimal("7.00").compareTo(accountService.getBalanceById(accountId)));
+
+        // the replicas catch up with a deposit whose eviction has already run
+        for (String replica : List.of(REPLICA_1, REPLICA_2)) {
+            new JdbcTemplate(new DriverManagerDataSource(replica, "sa", ""))
+                    .update("update bank_accounts set balance = 9.00 where id = ?", accountId);
+        }
+
+        assertEquals(0, new BigDecimal("9.00").compareTo(accountService.getBalanceById(accountId)));
+    }
+
+    @Test
+    @DisplayName("Read-write transactions and statements outside a transaction use the primary")
+    void writesUsePrimary() {
+        assertEquals("localbank_db", readWrite.execute(status -> jdbcTemplate.queryForObject(WHERE, String.class))
+                                             .toLowerCase());
+        assertEquals("localbank_db", jdbcTemplate.queryForObject(WHERE, String.class).toLowerCase());
+    }
+
+    @Test
+    @DisplayName("A lagging replica takes no reads until it catches up")
+    void laggingReplicaIsSkipped() {
+        setLag(REPLICA_1, 5000);
+        routingDataSource.checkReplicas();
+        assertEquals(List.of("replica-2"), routingDataSource.availableReplicas());
+        assertEquals("replica_2", readOnlyDatabase().toLowerCase());
+        assertEquals("replica_2", readOnlyDatabase().toLowerCase());
+
+        setLag(REPLICA_1, 0);
+        routingDataSource.checkReplicas();
+        assertEquals(List.of("replica-1", "replica-2"), routingDataSource.availableReplicas());
+    }
+
+    @Test
+    @DisplayName("Reads fall back to the primary when no replica passes its check")
+    void fallsBackToPrimary() {
+        setLag(REPLICA_1, 5000);
+        new JdbcTemplate(new DriverManagerDataSource(REPLICA_2, "sa", "")).execute("drop table replica_lag");
+        routingDataSource.checkReplicas();
+
+        assertEquals(List.of(), routingDataSource.availableReplicas());
+        assertEquals("localbank_db", readOnlyDatabase().toLowerCase());
+    }
+}
@@ -0,0 +1,172 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.AccountInfo;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountInfoRepository;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.security.JwtTokenProvider;
+import com.BankApp.localbankapp.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statements of authenticated requests with and without the second-level cache, counted by Hibernate
+ * statistics. Requests carry a real JWT, so each one resolves its user through {@code UserRepository.findByUsername}.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class, properties = {
+        // a database of its own: a second context recreating the shared schema would reset the id sequences
+        // under the contexts already cached
+        "spring.datasource.url=jdbc:h2:mem:second_level_cache;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class SecondLevelCacheTest {
+    /** Requests in {@link #requestSequence}, each answered with one statement of its own. */
+    private static final int REQUESTS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountInfoRepository accountInfoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private String bearer;
+    private Long accountId;
+    private Long transactionId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername("cached_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("cached_" + suffix + "@test.com");
+        user = userRepository.save(user);
+
+        BankAccount account = new BankAccount();
+        account.setUser(user);
+        account.setAccountNumber("CACHED_" + suffix);
+        account.setCurrency(Currency.USD);
+        account.setBalance(BigDecimal.ZERO);
+        accountId = accountRepository.save(account).getId();
+        transactionId = transactionService.deposit(
+                new TransactionDTO(null, accountId, new BigDecimal("100.00"), null, Currency.USD)).getId();
+
+        bearer = "Bearer " + jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null));
+    }
+
+    private void evictSecondLevelCache() {
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    /**
+     * Endpoints that read the database on every call; the balance endpoint is left out, as its own cache would
+     * hide its statement after the first call.
+     */
+    private void requestSequence(boolean bypassCache) throws Exception {
+        for (String path : new String[]{"/api/accounts/" + accountId, "/api/accounts/" + accountId + "/transactions",
+                "/api/transactions/" + transactionId + "/status"}) {
+            if (bypassCache) {
+                evictSecondLevelCache();
+            }
+            mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, bearer))
+                   .andExpect(status().isOk());
+        }
+    }
+
+    private long statementsOf(Sequence sequence) throws Exception {
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        sequence.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("The user is loaded once per sequence of authenticated requests, not once per request")
+    void userLookupIsCached() throws Exception {
+        // every request loads its user, as before the cache
+        long uncached = statementsOf(() -> requestSequence(true));
+        assertEquals(2 * REQUESTS, uncached);
+
+        // the first request loads the user, the others find it in the query and entity caches
+        evictSecondLevelCache();
+        long cold = statementsOf(() -> requestSequence(false));
+        assertEquals(REQUESTS + 1, cold);
+        assertEquals(REQUESTS - 1, statistics.getQueryCacheHitCount());
+
+        long warm = statementsOf(() -> requestSequence(false));
+        assertEquals(REQUESTS, warm);
+        assertEquals(REQUESTS, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Account metadata survives the bulk balance updates on its table")
+    void accountInfoSurvivesBalanceUpdates() throws Exception {
+        evictSecondLevelCache();
+        assertEquals(1, statementsOf(() -> accountInfoRepository.findById(accountId).orElseThrow()));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                accountRepository.credit(accountId, BigDecimal.ONE, Currency.USD));
+
+        long statements = statementsOf(() -> {
+            AccountInfo info = accountInfoRepository.findById(accountId).orElseThrow();
+            assertEquals(Currency.USD, info.getCurrency());
+        });
+        assertEquals(0, statements);
+    }
+
+    @FunctionalInterface
+    private interface Sequence {
+        void run() throws Exception;
+    }
+}
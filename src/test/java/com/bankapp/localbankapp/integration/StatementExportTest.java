@@ -0,0 +1,198 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.StatementFormat;
+import com.BankApp.localbankapp.dto.StatementLine;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.EntryDirection;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.StatementService;
+import com.BankApp.localbankapp.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statement export against a file-backed H2 database, so that the million-row statement lives on disk rather than
+ * on the heap. Runs in its own surefire execution with a small {@code -Xmx}: holding the exported entries, or the
+ * exported text, in memory would fail it.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class)
+@ActiveProfiles("h2")
+class StatementExportTest {
+    private static final int LARGE_STATEMENT_ROWS = 1_000_000;
+    private static final int INSERT_BATCH = 10_000;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long usdAccount;
+    private Long eurAccount;
+
+    @DynamicPropertySource
+    static void fileDatabase(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:./target/statement-export/" + UUID.randomUUID()
+                + "/db;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000;LAZY_QUERY_EXECUTION=TRUE");
+    }
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername("statement_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("statement_" + suffix + "@test.com");
+        user = userRepository.save(user);
+
+        usdAccount = openAccount(user, "STATEMENT_U_" + suffix, Currency.USD);
+        eurAccount = openAccount(user, "STATEMENT_E_" + suffix, Currency.EUR);
+    }
+
+    private Long openAccount(User user, String accountNumber, Currency currency) {
+        BankAccount account = new BankAccount();
+        account.setUser(user);
+        account.setAccountNumber(accountNumber);
+        account.setCurrency(currency);
+        account.setBalance(BigDecimal.ZERO);
+        return accountRepository.save(account).getId();
+    }
+
+    @Test
+    @DisplayName("CSV and NDJSON statements carry each entry with the balance after it")
+    void statementHasRunningBalance() throws IOException {
+        transactionService.deposit(new TransactionDTO(null, usdAccount, new BigDecimal("1000.00"), null, Currency.USD));
+        Transaction transfer = transactionService.transfer(
+                new TransactionDTO(usdAccount, eurAccount, new BigDecimal("100.00"), Currency.USD, null));
+        transactionService.withdrawal(new TransactionDTO(usdAccount, null, new BigDecimal("10.50"), Currency.USD, null));
+        jdbcTemplate.update("update transactions set description = ? where id = ?", "Rent, \"March\"", transfer.getId());
+
+        String[] csv = export(StatementFormat.CSV).split("\n");
+        assertEquals(4, csv.length);
+        assertTrue(csv[0].startsWith("entry_id,timestamp,transaction_id"));
+        assertTrue(csv[1].contains(",DEPOSIT,CREDIT,,1000.00,USD,,"));
+        assertTrue(csv[1].endsWith(",1000.00"));
+        assertTrue(csv[2].contains("," + transfer.getId() + ",TRANSFER,DEBIT," + eurAccount + ",100.00,USD,,"));
+        assertTrue(csv[2].endsWith(",\"Rent, \"\"March\"\"\",900.00"));
+        assertTrue(csv[3].endsWith(",889.50"));
+
+        List<StatementLine> lines = new ArrayList<>();
+        for (String json : export(StatementFormat.NDJSON).split("\n")) {
+            lines.add(objectMapper.readValue(json, StatementLine.class));
+        }
+        assertEquals(3, lines.size());
+        assertEquals(EntryDirection.DEBIT, lines.get(1).getDirection());
+        assertEquals(eurAccount, lines.get(1).getCounterpartyAccountId());
+        assertEquals("Rent, \"March\"", lines.get(1).getDescription());
+        assertEquals(0, new BigDecimal("889.50").compareTo(lines.get(2).getBalance()));
+    }
+
+    @Test
+    @DisplayName("An unknown account fails before anything is streamed")
+    void unknownAccount() {
+        assertThrows(EmptyResultDataAccessException.class, () -> statementService.export(-1L, StatementFormat.CSV));
+    }
+
+    @Test
+    @DisplayName("A million-entry statement streams through a small heap")
+    void largeStatementStreams() throws IOException {
+        Transaction deposit = transactionService.deposit(
+                new TransactionDTO(null, usdAccount, new BigDecimal("1.00"), null, Currency.USD));
+        populate(deposit.getId());
+
+        LineCounter counter = new LineCounter();
+        statementService.export(usdAccount, StatementFormat.CSV).writeTo(counter);
+
+        // header, the deposit, then alternating credits of 1.00 and debits of 0.50
+        assertEquals(LARGE_STATEMENT_ROWS + 2, counter.lines);
+        assertTrue(counter.lastLine().endsWith(",250001.00"), counter.lastLine());
+    }
+
+    private void populate(Long transactionId) {
+        LocalDateTime start = LocalDateTime.now().plusMinutes(1);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < LARGE_STATEMENT_ROWS; i++) {
+            boolean credit = i % 2 == 0;
+            batch.add(new Object[]{1_000_000_000L + i, transactionId, usdAccount, credit ? "CREDIT" : "DEBIT",
+                    credit ? BigDecimal.ONE : new BigDecimal("0.50"), "USD", Timestamp.valueOf(start.plusNanos(i * 1000L))});
+            if (batch.size() == INSERT_BATCH || i == LARGE_STATEMENT_ROWS - 1) {
+                jdbcTemplate.batchUpdate("""
+                        insert into ledger_entries (id, transaction_id, account_id, direction, amount, currency, created_at)
+                        values (?, ?, ?, ?, ?, ?, ?)""", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private String export(StatementFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        statementService.export(usdAccount, format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Keeps only the line count and the line being written.
+     */
+    private static final class LineCounter extends OutputStream {
+        private final ByteArrayOutputStream current = new ByteArrayOutputStream();
+        private String last = "";
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                last = current.toString(StandardCharsets.UTF_8);
+                current.reset();
+                lines++;
+            } else {
+                current.write(b);
+            }
+        }
+
+        String lastLine() {
+            return last;
+        }
+    }
+}
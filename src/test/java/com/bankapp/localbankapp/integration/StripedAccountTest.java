@@ -0,0 +1,191 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.AccountResponse;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.AccountStripeRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.AccountService;
+import com.BankApp.localbankapp.service.LockingMode;
+import com.BankApp.localbankapp.service.StripedBalanceService;
+import com.BankApp.localbankapp.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Striped accounts against an in-memory H2 database: layout changes, multi-stripe debits and concurrent traffic.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class)
+@ActiveProfiles("h2")
+@Tag("Concurrency")
+class StripedAccountTest {
+    private static final int STRIPES = 8;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 400;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(100_000);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountStripeRepository accountStripeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long hotAccount;
+    private Long coldAccount;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername("striped_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("striped_" + suffix + "@test.com");
+        user = userRepository.save(user);
+
+        hotAccount = openAccount(user, "STRIPED_H_" + suffix);
+        coldAccount = openAccount(user, "STRIPED_C_" + suffix);
+        accountService.setStripeCount(hotAccount, STRIPES);
+    }
+
+    private Long openAccount(User user, String accountNumber) {
+        BankAccount account = new BankAccount();
+        account.setUser(user);
+        account.setAccountNumber(accountNumber);
+        account.setCurrency(Currency.USD);
+        account.setBalance(INITIAL_BALANCE);
+        return accountRepository.save(account).getId();
+    }
+
+    @AfterEach
+    void restoreLockingMode() {
+        setLockingMode(LockingMode.PESSIMISTIC);
+    }
+
+    private void setLockingMode(LockingMode lockingMode) {
+        Object target = AopTestUtils.getTargetObject(transactionService);
+        ReflectionTestUtils.setField(target, "lockingMode", lockingMode);
+    }
+
+    @Test
+    @DisplayName("Striping spreads the balance and unstriping folds it back")
+    void stripeAndUnstripeKeepBalance() {
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findById(hotAccount).orElseThrow().getBalance()));
+        assertEquals(0, INITIAL_BALANCE.compareTo(accountStripeRepository.sumBalance(hotAccount)));
+        assertEquals(0, INITIAL_BALANCE.compareTo(accountService.getBalanceById(hotAccount)));
+        assertEquals(0, INITIAL_BALANCE.compareTo(accountService.getAccountById(hotAccount).getBalance()));
+
+        accountService.setStripeCount(hotAccount, 3);
+        assertEquals(3, accountStripeRepository.lockStripes(hotAccount).size());
+        assertEquals(0, INITIAL_BALANCE.compareTo(accountService.getBalanceById(hotAccount)));
+
+        AccountResponse account = accountService.setStripeCount(hotAccount, 1);
+        assertFalse(BankAccount.isStriped(account.getStripeCount()));
+        assertEquals(0, INITIAL_BALANCE.compareTo(account.getBalance()));
+        assertEquals(0, INITIAL_BALANCE.compareTo(accountRepository.findById(hotAccount).orElseThrow().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountStripeRepository.sumBalance(hotAccount)));
+    }
+
+    @Test
+    @DisplayName("A withdrawal larger than any single stripe draws from several")
+    void withdrawalSpanningStripes() {
+        BigDecimal amount = INITIAL_BALANCE.subtract(BigDecimal.ONE);
+        transactionService.withdrawal(new TransactionDTO(hotAccount, null, amount, Currency.USD, null));
+
+        assertEquals(0, BigDecimal.ONE.compareTo(accountService.getBalanceById(hotAccount)));
+        var ex = assertThrows(ResponseStatusException.class, () ->
+                transactionService.withdrawal(new TransactionDTO(hotAccount, null, BigDecimal.TEN, Currency.USD, null)));
+        assertEquals("Insufficient funds", ex.getReason());
+        assertEquals(0, BigDecimal.ONE.compareTo(accountService.getBalanceById(hotAccount)));
+    }
+
+    @Test
+    @DisplayName("Rebalancing evens out the stripes")
+    void rebalanceEvensStripes() {
+        transactionService.deposit(new TransactionDTO(null, hotAccount, BigDecimal.valueOf(8000), null, Currency.USD));
+        stripedBalanceService.rebalance(hotAccount);
+
+        BigDecimal expected = INITIAL_BALANCE.add(BigDecimal.valueOf(8000)).divide(BigDecimal.valueOf(STRIPES));
+        for (AccountStripeRepository.StripeView stripe : accountStripeRepository.lockStripes(hotAccount)) {
+            assertEquals(0, expected.compareTo(stripe.getBalance()), "stripe " + stripe.getStripe());
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(value = LockingMode.class, names = {"PESSIMISTIC", "CONDITIONAL_UPDATE"})
+    @DisplayName("Parallel traffic on a striped account conserves the money supply")
+    void parallelTrafficConservesMoney(LockingMode lockingMode) throws Exception {
+        setLockingMode(lockingMode);
+        BigDecimal expectedHot = INITIAL_BALANCE;
+
+        List<TransactionDTO> operations = new ArrayList<>(OPERATIONS);
+        for (int i = 0; i < OPERATIONS; i++) {
+            BigDecimal amount = BigDecimal.valueOf(i % 7 + 1);
+            boolean fromHot = i % 2 == 0;
+            operations.add(new TransactionDTO(fromHot ? hotAccount : coldAccount, fromHot ? coldAccount : hotAccount,
+                    amount, Currency.USD, Currency.USD));
+            expectedHot = fromHot ? expectedHot.subtract(amount) : expectedHot.add(amount);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> results = new ArrayList<>(OPERATIONS);
+            for (TransactionDTO dto : operations) {
+                results.add(pool.submit(() -> transactionService.transfer(dto)));
+            }
+            results.add(pool.submit(() -> stripedBalanceService.rebalance(hotAccount)));
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        BigDecimal hot = accountService.getBalanceById(hotAccount);
+        BigDecimal cold = accountService.getBalanceById(coldAccount);
+        assertEquals(0, expectedHot.compareTo(hot), "no lost updates");
+        assertEquals(0, INITIAL_BALANCE.add(INITIAL_BALANCE).compareTo(hot.add(cold)), "money supply");
+        for (AccountStripeRepository.StripeView stripe : accountStripeRepository.lockStripes(hotAccount)) {
+            assertTrue(stripe.getBalance().signum() >= 0, "stripe " + stripe.getStripe() + " went negative");
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.model.UserRole;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tokens issued by {@code /api/auth/authenticate} authenticate requests from their claims, and stop doing so once
+ * the user's token version moves on.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class, properties = {
+        // a database of its own, see SecondLevelCacheTest
+        "spring.datasource.url=jdbc:h2:mem:token_revocation;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class TokenRevocationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private String username;
+    private String bearer;
+    private Long accountId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        username = "revoke_" + UUID.randomUUID().toString().substring(0, 8);
+        String credentials = """
+                {"username": "%s", "password": "password123", "email": "%s@test.com"}""".formatted(username, username);
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials))
+               .andExpect(status().isOk());
+        bearer = "Bearer " + mockMvc.perform(post("/api/auth/authenticate")
+                                             .contentType(MediaType.APPLICATION_JSON).content(credentials))
+                                    .andExpect(status().isOk())
+                                    .andReturn().getResponse().getContentAsString();
+
+        BankAccount account = new BankAccount();
+        account.setUser(userRepository.findByUsername(username).orElseThrow());
+        account.setAccountNumber("REVOKE_" + username.substring(7));
+        account.setCurrency(Currency.USD);
+        account.setBalance(BigDecimal.ZERO);
+        accountId = accountRepository.save(account).getId();
+    }
+
+    @Test
+    @DisplayName("A request with a token from login runs the endpoint's statement only, with no user lookup")
+    void requestsDoNotLoadTheUser() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        mockMvc.perform(get("/api/accounts/{id}", accountId).header(HttpHeaders.AUTHORIZATION, bearer))
+               .andExpect(status().isOk());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Updating the user revokes the tokens issued before")
+    void updateUserRevokesTokens() throws Exception {
+        mockMvc.perform(get("/api/accounts/{id}", accountId).header(HttpHeaders.AUTHORIZATION, bearer))
+               .andExpect(status().isOk());
+
+        User user = userRepository.findByUsername(username).orElseThrow();
+        User updated = new User();
+        updated.setUsername(username);
+        updated.setPassword(user.getPassword());
+        updated.setEmail("changed_" + user.getEmail());
+        userService.updateUser(user.getId(), updated);
+
+        mockMvc.perform(get("/api/accounts/{id}", accountId).header(HttpHeaders.AUTHORIZATION, bearer))
+               .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Operator endpoints reject a user without the admin role")
+    void adminEndpointsNeedAdminRole() throws Exception {
+        mockMvc.perform(put("/api/admin/accounts/{id}/stripes", accountId).param("count", "4")
+                                .header(HttpHeaders.AUTHORIZATION, bearer))
+               .andExpect(status().isForbidden());
+
+        assertNull(accountRepository.findById(accountId).orElseThrow().getStripeCount());
+        mockMvc.perform(post("/actuator/balances").header(HttpHeaders.AUTHORIZATION, bearer))
+               .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/balances").header(HttpHeaders.AUTHORIZATION, bearer))
+               .andExpect(status().isForbidden());
+        mockMvc.perform(post("/actuator/rates").header(HttpHeaders.AUTHORIZATION, bearer))
+               .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/rates").header(HttpHeaders.AUTHORIZATION, bearer))
+               .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("An admin changes the stripe count and gets the account back without its owner")
+    void adminSetsStripeCount() throws Exception {
+        User user = userRepository.findByUsername(username).orElseThrow();
+        user.setRoles(new ArrayList<>(List.of(UserRole.USER, UserRole.ADMIN)));
+        userRepository.save(user);
+        String credentials = """
+                {"username": "%s", "password": "password123", "email": "%s@test.com"}""".formatted(username, username);
+        String adminBearer = "Bearer " + mockMvc.perform(post("/api/auth/authenticate")
+                                                 .contentType(MediaType.APPLICATION_JSON).content(credentials))
+                                        .andExpect(status().isOk())
+                                        .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(put("/api/admin/accounts/{id}/stripes", accountId).param("count", "4")
+                                .header(HttpHeaders.AUTHORIZATION, adminBearer))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.stripeCount").value(4))
+               .andExpect(jsonPath("$.user").doesNotExist());
+    }
+}
@@ -0,0 +1,181 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.HistoryCursor;
+import com.BankApp.localbankapp.dto.TransactionHistoryItem;
+import com.BankApp.localbankapp.dto.TransactionPage;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.EntryDirection;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionType;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.TransactionRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.AccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset pagination of account history against an in-memory H2 database.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class)
+@ActiveProfiles("h2")
+class TransactionHistoryTest {
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private BankAccount account;
+    private BankAccount other;
+    private List<Transaction> history;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername("history_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("history_" + suffix + "@test.com");
+        user = userRepository.save(user);
+        account = openAccount(user, "HISTORY_A_" + suffix);
+        other = openAccount(user, "HISTORY_B_" + suffix);
+
+        // three rows per minute, so pages regularly end in the middle of equal timestamps
+        history = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            LocalDateTime at = START.plusMinutes(i / 3);
+            Transaction tx = switch (i % 5) {
+                case 0 -> transaction(TransactionType.TRANSFER, account, other, at);
+                case 1 -> transaction(TransactionType.TRANSFER, other, account, at);
+                case 2 -> transaction(TransactionType.DEPOSIT, null, account, at);
+                case 3 -> transaction(TransactionType.WITHDRAWAL, account, null, at);
+                default -> transaction(TransactionType.TRANSFER, account, account, at);
+            };
+            history.add(tx);
+            transaction(TransactionType.DEPOSIT, null, other, at);
+        }
+        history.sort(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId).reversed());
+    }
+
+    private BankAccount openAccount(User user, String accountNumber) {
+        BankAccount account = new BankAccount();
+        account.setUser(user);
+        account.setAccountNumber(accountNumber);
+        account.setCurrency(Currency.USD);
+        account.setBalance(BigDecimal.ZERO);
+        return accountRepository.save(account);
+    }
+
+    private Transaction transaction(TransactionType type, BankAccount from, BankAccount to, LocalDateTime at) {
+        Transaction tx = new Transaction();
+        tx.setType(type);
+        tx.setFromAccount(from);
+        tx.setToAccount(to != null ? to : from);
+        tx.setAmount(BigDecimal.ONE);
+        tx.setFromCurrency(from != null ? Currency.USD : null);
+        tx.setToCurrency(to != null ? Currency.USD : null);
+        tx.setDescription(type.name());
+        tx.setTimestamp(at);
+        return transactionRepository.save(tx);
+    }
+
+    private List<TransactionHistoryItem> readAll(int limit, TransactionType type, LocalDateTime from, LocalDateTime to) {
+        List<TransactionHistoryItem> items = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPage page = accountService.getTransactions(account.getId(), cursor, limit, type, from, to);
+            assertTrue(page.getItems().size() <= limit);
+            items.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return items;
+    }
+
+    private static List<Long> ids(List<?> rows) {
+        return rows.stream()
+                   .map(row -> row instanceof Transaction tx ? tx.getId() : ((TransactionHistoryItem) row).getId())
+                   .toList();
+    }
+
+    @Test
+    @DisplayName("Pages cover both directions once each, newest first, across equal timestamps")
+    void pagesCoverHistoryInOrder() {
+        assertEquals(ids(history), ids(readAll(7, null, null, null)));
+        assertEquals(ids(history), ids(readAll(30, null, null, null)));
+        assertNull(accountService.getTransactions(account.getId(), null, 30, null, null, null).getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Items are described from the account's point of view")
+    void itemsCarryDirectionAndCounterparty() {
+        TransactionHistoryItem incoming = readAll(50, null, null, null).stream()
+                .filter(item -> item.getType() == TransactionType.TRANSFER && item.getDirection() == EntryDirection.CREDIT)
+                .findFirst().orElseThrow();
+        assertEquals(other.getId(), incoming.getCounterpartyAccountId());
+
+        TransactionHistoryItem deposit = readAll(50, TransactionType.DEPOSIT, null, null).get(0);
+        assertEquals(EntryDirection.CREDIT, deposit.getDirection());
+        assertNull(deposit.getCounterpartyAccountId());
+    }
+
+    @Test
+    @DisplayName("Type and date range filters narrow every page")
+    void filtersApply() {
+        List<TransactionHistoryItem> withdrawals = readAll(2, TransactionType.WITHDRAWAL, null, null);
+        assertEquals(6, withdrawals.size());
+        assertTrue(withdrawals.stream().allMatch(item -> item.getType() == TransactionType.WITHDRAWAL));
+
+        LocalDateTime from = START.plusMinutes(2);
+        LocalDateTime to = START.plusMinutes(5);
+        List<Transaction> expected = history.stream()
+                .filter(tx -> !tx.getTimestamp().isBefore(from) && tx.getTimestamp().isBefore(to))
+                .toList();
+        assertEquals(9, expected.size());
+        assertEquals(ids(expected), ids(readAll(4, null, from, to)));
+    }
+
+    @Test
+    @DisplayName("Malformed cursors, bad page sizes and unknown accounts are rejected")
+    void invalidRequestsAreRejected() {
+        ResponseStatusException badCursor = assertThrows(ResponseStatusException.class,
+                () -> accountService.getTransactions(account.getId(), "not-a-cursor", 10, null, null, null));
+        assertEquals(HttpStatus.BAD_REQUEST, badCursor.getStatusCode());
+        assertThrows(ResponseStatusException.class,
+                () -> accountService.getTransactions(account.getId(), null, 0, null, null, null));
+        assertThrows(EmptyResultDataAccessException.class,
+                () -> accountService.getTransactions(Long.MAX_VALUE, null, 10, null, null, null));
+
+        String cursor = new HistoryCursor(START.plusMinutes(1), Long.MAX_VALUE).encode();
+        assertEquals(HistoryCursor.decode(cursor), new HistoryCursor(START.plusMinutes(1), Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,183 @@
+package com.bankapp.localbankapp.integration;
+
+import com.BankApp.localbankapp.LocalBankApplication;
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.BatchTransferResult;
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.BankAccount;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.User;
+import com.BankApp.localbankapp.repository.AccountRepository;
+import com.BankApp.localbankapp.repository.TransactionRepository;
+import com.BankApp.localbankapp.repository.UserRepository;
+import com.BankApp.localbankapp.service.LockingMode;
+import com.BankApp.localbankapp.service.TransactionService;
+import com.BankApp.localbankapp.service.impl.ConflictRetryAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires opposite-direction transfers between two accounts from many threads against an in-memory H2 database, and
+ * checks that every locking mode applies the same business rules.
+ *
+ * @author Alexander Brazhkin
+ */
+@SpringBootTest(classes = LocalBankApplication.class)
+@ActiveProfiles("h2")
+@Tag("Concurrency")
+class TransferConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int TRANSFERS = 2000;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(1_000_000);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ConflictRetryAspect conflictRetryAspect;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long accountA;
+    private Long accountB;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername("stress_" + suffix);
+        user.setPassword("pass");
+        user.setEmail("stress_" + suffix + "@test.com");
+        user = userRepository.save(user);
+
+        accountA = openAccount(user, "STRESS_A_" + suffix);
+        accountB = openAccount(user, "STRESS_B_" + suffix);
+    }
+
+    private Long openAccount(User user, String accountNumber) {
+        BankAccount account = new BankAccount();
+        account.setUser(user);
+        account.setAccountNumber(accountNumber);
+        account.setCurrency(Currency.USD);
+        account.setBalance(INITIAL_BALANCE);
+        return accountRepository.save(account).getId();
+    }
+
+    @AfterEach
+    void restoreLockingMode() {
+        setLockingMode(LockingMode.PESSIMISTIC);
+    }
+
+    private void setLockingMode(LockingMode lockingMode) {
+        Object target = AopTestUtils.getTargetObject(transactionService);
+        ReflectionTestUtils.setField(target, "lockingMode", lockingMode);
+        ReflectionTestUtils.setField(conflictRetryAspect, "lockingMode", lockingMode);
+        // two accounts and eight threads is the worst case for optimistic locking; give every transfer room to win
+        ReflectionTestUtils.setField(conflictRetryAspect, "maxAttempts", lockingMode == LockingMode.OPTIMISTIC ? 1000 : 5);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(value = LockingMode.class, names = {"PESSIMISTIC", "CONDITIONAL_UPDATE", "OPTIMISTIC"})
+    @DisplayName("Parallel A<->B transfers conserve the money supply")
+    void parallelOppositeTransfersConserveMoney(LockingMode lockingMode) throws Exception {
+        setLockingMode(lockingMode);
+        long transactionsBefore = transactionRepository.count();
+        BigDecimal expectedA = INITIAL_BALANCE;
+
+        List<TransactionDTO> transfers = new ArrayList<>(TRANSFERS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            BigDecimal amount = BigDecimal.valueOf(i % 5 + 1);
+            boolean aToB = i % 2 == 0;
+            transfers.add(new TransactionDTO(aToB ? accountA : accountB, aToB ? accountB : accountA,
+                    amount, Currency.USD, Currency.USD));
+            expectedA = aToB ? expectedA.subtract(amount) : expectedA.add(amount);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> results = new ArrayList<>(TRANSFERS);
+            for (TransactionDTO dto : transfers) {
+                results.add(pool.submit(() -> transactionService.transfer(dto)));
+            }
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %d transfers on %d threads in %.2f s: %.0f ops/s, %.0f version conflicts%n",
+                lockingMode, TRANSFERS, THREADS, seconds, TRANSFERS / seconds,
+                meterRegistry.counter("bank.transactions.conflicts", "operation", "transfer").count());
+
+        BigDecimal balanceA = accountRepository.findById(accountA).orElseThrow().getBalance();
+        BigDecimal balanceB = accountRepository.findById(accountB).orElseThrow().getBalance();
+        assertEquals(0, INITIAL_BALANCE.add(INITIAL_BALANCE).compareTo(balanceA.add(balanceB)), "money supply");
+        assertEquals(0, expectedA.compareTo(balanceA), "no lost updates");
+        assertEquals(transactionsBefore + TRANSFERS, transactionRepository.count());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(LockingMode.class)
+    @DisplayName("Every locking mode rejects an inactive account and leaves both balances untouched")
+    void inactiveAccountIsRejected(LockingMode lockingMode) {
+        setLockingMode(lockingMode);
+        BankAccount inactive = accountRepository.findById(accountB).orElseThrow();
+        inactive.setActive(false);
+        accountRepository.save(inactive);
+        BigDecimal one = BigDecimal.ONE;
+
+        List<Executable> operations = List.of(
+                () -> transactionService.transfer(new TransactionDTO(accountA, accountB, one, Currency.USD, Currency.USD)),
+                () -> transactionService.transfer(new TransactionDTO(accountB, accountA, one, Currency.USD, Currency.USD)),
+                () -> transactionService.deposit(new TransactionDTO(null, accountB, one, null, Currency.USD)),
+                () -> transactionService.withdrawal(new TransactionDTO(accountB, null, one, Currency.USD, null)));
+        for (Executable operation : operations) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, operation);
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+            assertEquals("Account is not active", e.getReason());
+        }
+        BatchTransferResult batch = transactionService.transferBatch(new BatchTransferRequest(List.of(
+                new TransactionDTO(accountA, accountB, one, Currency.USD, Currency.USD)), BatchTransferRequest.Mode.PARTIAL));
+        assertEquals(1, batch.getFailed());
+        assertEquals("Account is not active", batch.getItems().get(0).getError());
+
+        assertEquals(0, INITIAL_BALANCE.compareTo(accountRepository.findById(accountA).orElseThrow().getBalance()));
+        assertEquals(0, INITIAL_BALANCE.compareTo(accountRepository.findById(accountB).orElseThrow().getBalance()));
+    }
+}
@@ -0,0 +1,122 @@
+package com.bankapp.localbankapp.unit;
+
+import com.BankApp.localbankapp.util.BalanceCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@Tag("BalanceCache")
+class BalanceCacheTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Long, BigDecimal> loader = id -> BigDecimal.valueOf(id * 100 + loads.incrementAndGet());
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void repeatedReadsHitTheCache() {
+        BalanceCache cache = new BalanceCache(10, 60_000, registry);
+
+        assertEquals(BigDecimal.valueOf(101), cache.get(1L, loader));
+        assertEquals(BigDecimal.valueOf(101), cache.get(1L, loader));
+        assertEquals(1, loads.get());
+        assertEquals(1, registry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(0.5, registry.get("cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() {
+        BalanceCache cache = new BalanceCache(10, 0, registry);
+
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+        assertEquals(2, loads.get());
+        assertEquals(1, registry.get("cache.evictions").tag("cause", "expired").counter().count());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedBeyondMaxSize() {
+        BalanceCache cache = new BalanceCache(2, 60_000, registry);
+
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(1L, loader);
+        cache.get(3L, loader);
+        assertEquals(2, cache.size());
+        cache.get(1L, loader);
+        assertEquals(3, loads.get());
+        cache.get(2L, loader);
+        assertEquals(4, loads.get());
+        assertEquals(2, registry.get("cache.evictions").tag("cause", "size").counter().count());
+    }
+
+    @Test
+    void evictionWaitsForCommit() {
+        BalanceCache cache = new BalanceCache(10, 60_000, registry);
+        cache.get(1L, loader);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit(1L);
+        assertEquals(BigDecimal.valueOf(101), cache.get(1L, loader));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(BigDecimal.valueOf(102), cache.get(1L, loader));
+        assertEquals(1, registry.get("cache.invalidations").counter().count());
+    }
+
+    @Test
+    void rolledBackWriteKeepsTheEntry() {
+        BalanceCache cache = new BalanceCache(10, 60_000, registry);
+        cache.get(1L, loader);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterCommit(1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(BigDecimal.valueOf(101), cache.get(1L, loader));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadOverlappingAnEvictionIsNotCached() {
+        BalanceCache cache = new BalanceCache(10, 60_000, registry);
+
+        // a writer commits while the balance is being read
+        cache.get(1L, id -> {
+            cache.evictAfterCommit(id);
+            return loader.apply(id);
+        });
+        assertEquals(0, cache.size());
+        assertEquals(BigDecimal.valueOf(102), cache.get(1L, loader));
+    }
+
+    @Test
+    void zeroSizeDisablesCaching() {
+        BalanceCache cache = new BalanceCache(0, 60_000, registry);
+
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+}
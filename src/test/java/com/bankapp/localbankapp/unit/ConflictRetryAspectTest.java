@@ -0,0 +1,103 @@
+package com.bankapp.localbankapp.unit;
+
+import com.BankApp.localbankapp.service.LockingMode;
+import com.BankApp.localbankapp.service.RetryOnConflict;
+import com.BankApp.localbankapp.service.impl.ConflictRetryAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@Tag("Services")
+class ConflictRetryAspectTest {
+    private MeterRegistry meterRegistry;
+    private ConflictRetryAspect aspect;
+    private Operations target;
+    private Operations proxy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new ConflictRetryAspect(meterRegistry);
+        ReflectionTestUtils.setField(aspect, "lockingMode", LockingMode.OPTIMISTIC);
+        ReflectionTestUtils.setField(aspect, "maxAttempts", 3);
+        ReflectionTestUtils.setField(aspect, "baseBackoffMs", 1L);
+
+        target = new Operations();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(aspect);
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    void conflictIsRetriedUntilItSucceeds() {
+        target.conflicts = 2;
+
+        assertEquals("done", proxy.transfer());
+        assertEquals(3, target.calls);
+        assertEquals(3, count("bank.transactions.attempts"));
+        assertEquals(2, count("bank.transactions.conflicts"));
+        assertEquals(2, count("bank.transactions.retries"));
+    }
+
+    @Test
+    void retriesAreCapped() {
+        target.conflicts = 10;
+
+        var ex = assertThrows(ResponseStatusException.class, () -> proxy.transfer());
+        assertEquals("Account was modified concurrently", ex.getReason());
+        assertEquals(3, target.calls);
+        assertEquals(1, count("bank.transactions.retries.exhausted"));
+    }
+
+    @Test
+    void otherModesOnlyCountConflicts() {
+        ReflectionTestUtils.setField(aspect, "lockingMode", LockingMode.NONE);
+        target.conflicts = 1;
+
+        assertThrows(ResponseStatusException.class, () -> proxy.transfer());
+        assertEquals(1, target.calls);
+        assertEquals(1, count("bank.transactions.conflicts"));
+        assertEquals(0, count("bank.transactions.retries"));
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        target.failure = new IllegalStateException("boom");
+
+        assertThrows(IllegalStateException.class, () -> proxy.transfer());
+        assertEquals(1, target.calls);
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name, "operation", "transfer").count();
+    }
+
+    static class Operations {
+        int conflicts;
+        int calls;
+        RuntimeException failure;
+
+        @RetryOnConflict
+        public String transfer() {
+            calls++;
+            if (failure != null) {
+                throw failure;
+            }
+            if (conflicts-- > 0) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }
+            return "done";
+        }
+    }
+}
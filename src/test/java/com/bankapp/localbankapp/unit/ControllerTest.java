@@ -1,15 +1,27 @@
 package com.bankapp.localbankapp.unit;
 
 import com.BankApp.localbankapp.controller.AccountController;
+import com.BankApp.localbankapp.controller.AdminController;
 import com.BankApp.localbankapp.controller.AuthController;
 import com.BankApp.localbankapp.controller.TransactionController;
 import com.BankApp.localbankapp.dto.AccountDTO;
+import com.BankApp.localbankapp.dto.AccountResponse;
 import com.BankApp.localbankapp.dto.AuthRequest;
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.BatchTransferResult;
+import com.BankApp.localbankapp.dto.StatementFormat;
 import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.dto.TransactionHistoryItem;
+import com.BankApp.localbankapp.dto.TransactionPage;
+import com.BankApp.localbankapp.dto.TransactionStatusResponse;
 import com.BankApp.localbankapp.exception.GlobalExceptionHandler;
+import com.BankApp.localbankapp.exception.SubmissionQueueFullException;
 import com.BankApp.localbankapp.model.*;
 import com.BankApp.localbankapp.service.AccountService;
+import com.BankApp.localbankapp.service.AsyncTransactionService;
 import com.BankApp.localbankapp.service.AuthService;
+import com.BankApp.localbankapp.service.IdempotencyService;
+import com.BankApp.localbankapp.service.StatementService;
 import com.BankApp.localbankapp.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.*;
@@ -25,15 +37,23 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
@@ -51,6 +71,9 @@ public class ControllerTest {
         @Mock
         private AccountService accountService;
 
+        @Mock
+        private StatementService statementService;
+
         @InjectMocks
         private AccountController accountController;
 
@@ -104,13 +127,88 @@ public class ControllerTest {
 
         @Test
         void getAccountSuccess() throws Exception {
-            when(accountService.getAccountById(1L)).thenReturn(testAccount);
+            when(accountService.getAccountById(1L)).thenReturn(new AccountResponse(
+                    1L, "ACC_0001", BigDecimal.valueOf(1000), Currency.USD, true, null, 1L));
 
             mockMvc.perform(get("/api/accounts/1"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.id").value(1))
                     .andExpect(jsonPath("$.accountNumber").value("ACC_0001"))
-                    .andExpect(jsonPath("$.currency").value("USD"));
+                    .andExpect(jsonPath("$.currency").value("USD"))
+                    .andExpect(jsonPath("$.userId").value(1))
+                    .andExpect(jsonPath("$.user").doesNotExist());
+        }
+
+        @Test
+        void getTransactionsPassesCursorAndFilters() throws Exception {
+            TransactionHistoryItem item = new TransactionHistoryItem(7L, TransactionType.DEPOSIT, TransactionStatus.COMPLETED,
+                    EntryDirection.CREDIT, null, BigDecimal.TEN, null, Currency.USD, "Deposit", null);
+            LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+            when(accountService.getTransactions(1L, "abc", 10, TransactionType.DEPOSIT, from, null))
+                    .thenReturn(new TransactionPage(List.of(item), "next"));
+
+            mockMvc.perform(get("/api/accounts/1/transactions")
+                    .param("cursor", "abc")
+                    .param("limit", "10")
+                    .param("type", "DEPOSIT")
+                    .param("from", "2026-01-01T00:00:00"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].id").value(7))
+                    .andExpect(jsonPath("$.items[0].direction").value("CREDIT"))
+                    .andExpect(jsonPath("$.nextCursor").value("next"));
+        }
+
+        @Test
+        void getStatementStreamsRequestedFormat() throws Exception {
+            StreamingResponseBody body = out -> out.write("{\"entryId\":1}\n".getBytes(StandardCharsets.UTF_8));
+            when(statementService.export(1L, StatementFormat.NDJSON)).thenReturn(body);
+
+            MvcResult result = mockMvc.perform(get("/api/accounts/1/statement").param("format", "ndjson"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-ndjson"))
+                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"statement-1.ndjson\""))
+                    .andExpect(content().string("{\"entryId\":1}\n"));
+        }
+
+        @Test
+        void getStatementRejectsUnknownFormat() throws Exception {
+            MvcResult result = mockMvc.perform(get("/api/accounts/1/statement").param("format", "xml"))
+                    .andExpect(status().isBadRequest()).andReturn();
+
+            assertEquals(ResponseStatusException.class, result.getResolvedException().getClass());
+            verify(statementService, never()).export(any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Admin controller testing")
+    class AdminControllerTest {
+        private MockMvc mockMvc;
+
+        @Mock
+        private AccountService accountService;
+
+        @InjectMocks
+        private AdminController adminController;
+
+        @BeforeEach
+        void setUp() {
+            mockMvc = MockMvcBuilders.standaloneSetup(adminController).build();
+        }
+
+        @Test
+        void setStripeCountReturnsAccountWithoutOwner() throws Exception {
+            when(accountService.setStripeCount(1L, 4)).thenReturn(new AccountResponse(
+                    1L, "ACC_0001", BigDecimal.valueOf(1000), Currency.USD, true, 4, 1L));
+
+            mockMvc.perform(put("/api/admin/accounts/1/stripes").param("count", "4"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.stripeCount").value(4))
+                    .andExpect(jsonPath("$.userId").value(1))
+                    .andExpect(jsonPath("$.user").doesNotExist());
         }
     }
 
@@ -195,6 +293,12 @@ public class ControllerTest {
         @Mock
         private TransactionService transactionService;
 
+        @Mock
+        private IdempotencyService idempotencyService;
+
+        @Mock
+        private AsyncTransactionService asyncTransactionService;
+
         @InjectMocks
         private TransactionController transactionController;
 
@@ -265,5 +369,68 @@ public class ControllerTest {
                     .content(objectMapper.writeValueAsString(transactionDTO)))
                     .andExpect(status().isBadRequest());
         }
+
+        @Test
+        void transferWithIdempotencyKeyIsExecutedOnce() throws Exception {
+            when(idempotencyService.execute(eq("retry-1"), eq(TransactionType.TRANSFER), any(TransactionDTO.class), any()))
+                    .thenReturn(testTransaction);
+
+            mockMvc.perform(post("/api/transactions/transfer")
+                    .header(TransactionController.IDEMPOTENCY_KEY_HEADER, "retry-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transactionDTO)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(1));
+
+            verify(transactionService, never()).transfer(any(TransactionDTO.class));
+        }
+
+        @Test
+        void transferBatchReportsItems() throws Exception {
+            BatchTransferResult result = new BatchTransferResult(BatchTransferRequest.Mode.PARTIAL, 1, 1, List.of(
+                    new BatchTransferResult.Item(0, TransactionStatus.COMPLETED, 1L, null),
+                    new BatchTransferResult.Item(1, TransactionStatus.FAILED, null, "Insufficient funds")));
+            when(transactionService.transferBatch(any(BatchTransferRequest.class))).thenReturn(result);
+
+            BatchTransferRequest request = new BatchTransferRequest(List.of(transactionDTO, transactionDTO),
+                    BatchTransferRequest.Mode.PARTIAL);
+            mockMvc.perform(post("/api/transactions/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.completed").value(1))
+                    .andExpect(jsonPath("$.items[0].transactionId").value(1))
+                    .andExpect(jsonPath("$.items[1].status").value("FAILED"))
+                    .andExpect(jsonPath("$.items[1].error").value("Insufficient funds"));
+        }
+
+        @Test
+        void transferAsyncIsAcceptedAsPending() throws Exception {
+            when(asyncTransactionService.submit(eq(TransactionType.TRANSFER), any(TransactionDTO.class)))
+                    .thenReturn(new TransactionStatusResponse(7L, TransactionType.TRANSFER, TransactionStatus.PENDING, null));
+
+            mockMvc.perform(post("/api/transactions/async/transfer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transactionDTO)))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", "/api/transactions/7/status"))
+                    .andExpect(jsonPath("$.status").value("PENDING"));
+
+            verify(transactionService, never()).transfer(any(TransactionDTO.class));
+        }
+
+        @Test
+        void transferAsyncWithFullQueueReturnsTooManyRequests() throws Exception {
+            mockMvc = MockMvcBuilders.standaloneSetup(transactionController)
+                                     .setControllerAdvice(new GlobalExceptionHandler())
+                                     .build();
+            when(asyncTransactionService.submit(eq(TransactionType.TRANSFER), any(TransactionDTO.class)))
+                    .thenThrow(new SubmissionQueueFullException("Transaction queue is full, retry later"));
+
+            mockMvc.perform(post("/api/transactions/async/transfer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transactionDTO)))
+                    .andExpect(status().isTooManyRequests());
+        }
     }
 }
@@ -1,10 +1,21 @@
 package com.bankapp.localbankapp.unit;
 
+import com.BankApp.localbankapp.currency.CbrXmlParser;
+import com.BankApp.localbankapp.currency.FileRateSource;
+import com.BankApp.localbankapp.currency.RateSnapshot;
+import com.BankApp.localbankapp.exception.RatesUnavailableException;
+import com.BankApp.localbankapp.model.Currency;
 import com.BankApp.localbankapp.util.CurrencyConverter;
 import org.junit.jupiter.api.*;
+import org.springframework.core.io.ClassPathResource;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -12,11 +23,18 @@ import static org.junit.jupiter.api.Assertions.*;
  * @author Alexander Brazhkin
  */
 class CurrencyConverterTest {
+    private static final long ONE_DAY_MS = 86_400_000L;
+
     private static CurrencyConverter converter;
 
     @BeforeAll
     static void init() {
-        converter = new CurrencyConverter();
+        converter = new CurrencyConverter(recordedFeed(), ONE_DAY_MS);
+        converter.refresh();
+    }
+
+    private static FileRateSource recordedFeed() {
+        return new FileRateSource(new ClassPathResource("cbr/XML_daily.xml"));
     }
 
     @Test
@@ -49,4 +67,114 @@ class CurrencyConverterTest {
 
         assertEquals(amount.setScale(2, RoundingMode.HALF_UP), result);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Recorded feed is loaded into the snapshot")
+    void testSnapshotFromRecordedFeed() {
+        RateSnapshot snapshot = converter.getSnapshot();
+
+        assertEquals(LocalDate.of(2026, 10, 17), snapshot.getRateDate());
+        assertEquals(0, new BigDecimal("81.2845").compareTo(snapshot.rubPerUnit("USD")));
+        assertEquals(0, new BigDecimal("94.5132").compareTo(snapshot.rubPerUnit(Currency.EUR)));
+        assertNull(snapshot.getRates().get("AMD"), "currencies the bank does not support are skipped");
+        assertEquals(0, new BigDecimal("8128.450").compareTo(converter.convert(new BigDecimal("100"), "USD", "RUB")));
+    }
+
+    @Test
+    @DisplayName("Typed overload matches the string overload")
+    void testTypedConvertMatchesStringConvert() {
+        BigDecimal amount = new BigDecimal("123.45");
+
+        for (Currency from : Currency.values()) {
+            for (Currency to : Currency.values()) {
+                assertEquals(converter.convert(amount, from.name(), to.name()), converter.convert(amount, from, to));
+            }
+        }
+        assertEquals(new BigDecimal("86.00"), converter.convert(new BigDecimal("100.00"), Currency.USD, Currency.EUR));
+    }
+
+    @Test
+    @DisplayName("Minor units conversion agrees with BigDecimal conversion")
+    void testConvertMinorUnits() {
+        assertEquals(812845L, converter.convertMinor(10000L, Currency.USD, Currency.RUB));
+        assertEquals(-812845L, converter.convertMinor(-10000L, Currency.USD, Currency.RUB));
+        assertEquals(10617L, converter.convertMinor(12345L, Currency.USD, Currency.EUR));
+        assertEquals(777L, converter.convertMinor(777L, Currency.EUR, Currency.EUR));
+
+        long huge = Long.MAX_VALUE / 1000;
+        BigDecimal expected = converter.convert(BigDecimal.valueOf(huge, 2), Currency.EUR, Currency.RUB);
+        assertEquals(0, expected.movePointRight(2).compareTo(BigDecimal.valueOf(
+                converter.convertMinor(huge, Currency.EUR, Currency.RUB))), "overflow falls back to BigDecimal");
+    }
+
+    @Test
+    @DisplayName("Unknown currency codes are rejected")
+    void testConvertUnknownCurrency() {
+        assertThrows(IllegalArgumentException.class, () -> converter.convert(BigDecimal.ONE, "USD", "GBX"));
+    }
+
+    @Test
+    @DisplayName("Parser honours the declared encoding and divides by nominal")
+    void testParseUtf8FeedWithNominal() throws IOException {
+        String xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <ValCurs Date="01.02.2026" name="Foreign Currency Market">
+                  <Valute ID="R01235"><NumCode>840</NumCode><CharCode>USD</CharCode><Nominal>1</Nominal>
+                    <Name>Доллар США</Name><Value>90,5</Value></Valute>
+                  <Valute ID="R01239"><NumCode>978</NumCode><CharCode>EUR</CharCode><Nominal>10</Nominal>
+                    <Name>Евро</Name><Value>1000,1234</Value></Valute>
+                </ValCurs>
+                """.strip();
+
+        RateSnapshot snapshot = new CbrXmlParser().parse(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), Instant.now());
+
+        assertEquals(LocalDate.of(2026, 2, 1), snapshot.getRateDate());
+        assertEquals(new BigDecimal("90.500000"), snapshot.rubPerUnit(Currency.USD));
+        assertEquals(new BigDecimal("100.012340"), snapshot.rubPerUnit(Currency.EUR));
+    }
+
+    @Test
+    @DisplayName("Parser rejects feeds with a DOCTYPE or external entities")
+    void testParseRejectsXxe() {
+        String xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <!DOCTYPE ValCurs [<!ENTITY xxe SYSTEM "file:///etc/passwd">]>
+                <ValCurs Date="01.02.2026"><Valute><CharCode>&xxe;</CharCode><Nominal>1</Nominal>
+                <Value>1,0</Value></Valute></ValCurs>
+                """.strip();
+
+        assertThrows(IOException.class, () -> new CbrXmlParser().parse(
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), Instant.now()));
+    }
+
+    @Test
+    @DisplayName("Conversion fails fast before the first refresh")
+    void testConvertBeforeRefreshFails() {
+        CurrencyConverter empty = new CurrencyConverter(recordedFeed(), ONE_DAY_MS);
+
+        assertThrows(RatesUnavailableException.class, () -> empty.convert(BigDecimal.TEN, "USD", "EUR"));
+        assertEquals(BigDecimal.TEN.setScale(2), empty.convert(BigDecimal.TEN, "USD", "USD"));
+    }
+
+    @Test
+    @DisplayName("Conversion fails fast once the snapshot is older than max staleness")
+    void testConvertWithStaleSnapshotFails() throws InterruptedException {
+        CurrencyConverter strict = new CurrencyConverter(recordedFeed(), 1);
+        strict.refresh();
+        Thread.sleep(5);
+
+        assertThrows(RatesUnavailableException.class, () -> strict.convert(BigDecimal.TEN, "USD", "EUR"));
+    }
+
+    @Test
+    @DisplayName("Failed refresh keeps the previous snapshot")
+    void testFailedRefreshKeepsSnapshot() {
+        CurrencyConverter broken = new CurrencyConverter(
+                new FileRateSource(new ClassPathResource("cbr/missing.xml")), ONE_DAY_MS);
+
+        assertThrows(RatesUnavailableException.class, broken::refresh);
+        broken.scheduledRefresh();
+        assertNull(broken.getSnapshot());
+    }
+}
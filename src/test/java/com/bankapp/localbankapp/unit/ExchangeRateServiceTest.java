@@ -0,0 +1,128 @@
+package com.bankapp.localbankapp.unit;
+
+import com.BankApp.localbankapp.currency.RateSnapshot;
+import com.BankApp.localbankapp.currency.RatesRefreshedEvent;
+import com.BankApp.localbankapp.exception.RatesUnavailableException;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.ExchangeRate;
+import com.BankApp.localbankapp.model.ExchangeRateId;
+import com.BankApp.localbankapp.repository.ExchangeRateRepository;
+import com.BankApp.localbankapp.service.impl.ExchangeRateServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@ExtendWith(MockitoExtension.class)
+@Tag("Rates")
+class ExchangeRateServiceTest {
+    private static final LocalDate OCT_15 = LocalDate.of(2026, 10, 15);
+    private static final LocalDate OCT_17 = LocalDate.of(2026, 10, 17);
+
+    @Mock
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExchangeRateServiceImpl exchangeRateService;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateService = new ExchangeRateServiceImpl(exchangeRateRepository, transactionManager, "Europe/Moscow", 31);
+    }
+
+    private static RateSnapshot snapshot(LocalDate rateDate, String usd, String eur) {
+        BigDecimal[] rubPerUnit = new BigDecimal[Currency.values().length];
+        rubPerUnit[Currency.USD.ordinal()] = new BigDecimal(usd);
+        rubPerUnit[Currency.EUR.ordinal()] = new BigDecimal(eur);
+        return new RateSnapshot(rateDate, Instant.parse("2026-10-16T12:00:00Z"), rubPerUnit);
+    }
+
+    @Test
+    @DisplayName("Refreshed snapshot is persisted once per distinct set of rates")
+    @SuppressWarnings("unchecked")
+    void recordPersistsSnapshot() {
+        exchangeRateService.onRatesRefreshed(new RatesRefreshedEvent(snapshot(OCT_17, "81.284500", "94.513200")));
+        exchangeRateService.onRatesRefreshed(new RatesRefreshedEvent(snapshot(OCT_17, "81.284500", "94.513200")));
+
+        ArgumentCaptor<List<ExchangeRate>> rows = ArgumentCaptor.forClass(List.class);
+        verify(exchangeRateRepository, times(1)).saveAll(rows.capture());
+        assertEquals(2, rows.getValue().size());
+        assertEquals(new ExchangeRateId(OCT_17, Currency.USD), rows.getValue().get(0).getId());
+        assertEquals(new BigDecimal("81.284500"), rows.getValue().get(0).getRubPerUnit());
+    }
+
+    @Test
+    @DisplayName("Point-in-time conversion uses the Moscow business date")
+    void convertAtUsesMoscowDate() {
+        exchangeRateService.record(snapshot(OCT_17, "81.284500", "94.513200"));
+
+        // 00:30 on the 17th in Moscow is still the 16th in UTC
+        BigDecimal result = exchangeRateService.convertAt(
+                new BigDecimal("100"), Currency.USD, Currency.RUB, Instant.parse("2026-10-16T21:30:00Z"));
+
+        assertEquals(new BigDecimal("8128.45"), result);
+        verify(exchangeRateRepository, never()).findLatestRateDateOnOrBefore(any());
+    }
+
+    @Test
+    @DisplayName("Dates older than the in-memory index are read from the table")
+    void snapshotOnFallsBackToRepository() {
+        exchangeRateService.record(snapshot(OCT_17, "81.284500", "94.513200"));
+        LocalDate oct16 = OCT_17.minusDays(1);
+        when(exchangeRateRepository.findLatestRateDateOnOrBefore(oct16)).thenReturn(Optional.of(OCT_15));
+        when(exchangeRateRepository.findByIdRateDate(OCT_15)).thenReturn(List.of(
+                new ExchangeRate(new ExchangeRateId(OCT_15, Currency.USD), new BigDecimal("80.000000"),
+                        Instant.parse("2026-10-14T12:00:00Z"))));
+
+        RateSnapshot rates = exchangeRateService.snapshotAt(Instant.parse("2026-10-16T20:30:00Z"));
+
+        assertEquals(OCT_15, rates.getRateDate());
+        assertEquals(new BigDecimal("8000.00"), rates.convert(new BigDecimal("100"), Currency.USD, Currency.RUB));
+        assertThrows(IllegalArgumentException.class,
+                () -> rates.convert(BigDecimal.ONE, Currency.USD, Currency.EUR));
+    }
+
+    @Test
+    @DisplayName("Missing history fails with RatesUnavailableException")
+    void snapshotOnWithoutHistoryFails() {
+        when(exchangeRateRepository.findLatestRateDateOnOrBefore(OCT_15)).thenReturn(Optional.empty());
+
+        assertThrows(RatesUnavailableException.class, () -> exchangeRateService.snapshotOn(OCT_15));
+    }
+
+    @Test
+    @DisplayName("Database failures do not break the rate refresh, roll back and are retried on the next one")
+    void persistenceFailureIsSwallowed() {
+        when(exchangeRateRepository.saveAll(anyList())).thenThrow(new DataAccessResourceFailureException("down"))
+                                                        .thenReturn(List.of());
+
+        assertDoesNotThrow(() -> exchangeRateService.onRatesRefreshed(
+                new RatesRefreshedEvent(snapshot(OCT_17, "81.284500", "94.513200"))));
+        verify(transactionManager).rollback(any());
+        exchangeRateService.onRatesRefreshed(new RatesRefreshedEvent(snapshot(OCT_17, "81.284500", "94.513200")));
+
+        verify(exchangeRateRepository, times(2)).saveAll(anyList());
+        verify(transactionManager).commit(any());
+    }
+}
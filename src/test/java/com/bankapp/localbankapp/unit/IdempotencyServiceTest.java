@@ -0,0 +1,216 @@
+package com.bankapp.localbankapp.unit;
+
+import com.BankApp.localbankapp.dto.TransactionDTO;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.model.IdempotencyKey;
+import com.BankApp.localbankapp.model.Transaction;
+import com.BankApp.localbankapp.model.TransactionType;
+import com.BankApp.localbankapp.repository.IdempotencyKeyRepository;
+import com.BankApp.localbankapp.repository.TransactionRepository;
+import com.BankApp.localbankapp.service.impl.IdempotencyServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@Tag("Idempotency")
+class IdempotencyServiceTest {
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyServiceImpl idempotencyService;
+    private TransactionDTO dto;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(idempotencyKeyRepository, transactionRepository,
+                transactionManager, 100, false);
+        dto = new TransactionDTO(1L, 2L, new BigDecimal("100.00"), Currency.USD, Currency.USD);
+        transaction = new Transaction();
+        transaction.setId(42L);
+        when(idempotencyKeyRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(transactionRepository.findById(42L)).thenReturn(Optional.of(transaction));
+    }
+
+    private Supplier<Transaction> counting(AtomicInteger executions) {
+        return () -> {
+            executions.incrementAndGet();
+            return transaction;
+        };
+    }
+
+    @Test
+    @DisplayName("A retried key returns the original transaction without executing again")
+    void retryIsReplayed() {
+        AtomicInteger executions = new AtomicInteger();
+
+        Transaction first = idempotencyService.execute("key-1", TransactionType.TRANSFER, dto, counting(executions));
+        Transaction retry = idempotencyService.execute("key-1", TransactionType.TRANSFER, dto, counting(executions));
+
+        assertEquals(1, executions.get());
+        assertEquals(42L, first.getId());
+        assertEquals(42L, retry.getId());
+        ArgumentCaptor<IdempotencyKey> saved = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(saved.capture());
+        assertEquals(42L, saved.getValue().getTransactionId());
+        assertEquals(TransactionType.TRANSFER, saved.getValue().getOperation());
+    }
+
+    @Test
+    @DisplayName("A key already in the table is replayed after a restart")
+    void keyFromDatabaseIsReplayed() {
+        IdempotencyServiceImpl restarted = new IdempotencyServiceImpl(idempotencyKeyRepository, transactionRepository,
+                transactionManager, 100, false);
+        idempotencyService.execute("key-1", TransactionType.DEPOSIT, dto, () -> transaction);
+        ArgumentCaptor<IdempotencyKey> saved = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(saved.capture());
+        when(idempotencyKeyRepository.findById(saved.getValue().getKey())).thenReturn(Optional.of(saved.getValue()));
+
+        AtomicInteger executions = new AtomicInteger();
+        Transaction replayed = restarted.execute("key-1", TransactionType.DEPOSIT, dto, counting(executions));
+
+        assertEquals(0, executions.get());
+        assertEquals(42L, replayed.getId());
+    }
+
+    @Test
+    @DisplayName("Reusing a key for a different request is rejected")
+    void differentRequestIsRejected() {
+        idempotencyService.execute("key-1", TransactionType.TRANSFER, dto, () -> transaction);
+        TransactionDTO other = new TransactionDTO(1L, 2L, new BigDecimal("250.00"), Currency.USD, Currency.USD);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute("key-1", TransactionType.TRANSFER, other, () -> transaction));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("A failed attempt is not remembered, so the retry executes")
+    void failureIsNotRemembered() {
+        assertThrows(ResponseStatusException.class, () -> idempotencyService.execute("key-1", TransactionType.WITHDRAWAL,
+                dto, () -> {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient funds");
+                }));
+
+        AtomicInteger executions = new AtomicInteger();
+        idempotencyService.execute("key-1", TransactionType.WITHDRAWAL, dto, counting(executions));
+
+        assertEquals(1, executions.get());
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(any(IdempotencyKey.class));
+    }
+
+    @Test
+    @DisplayName("Concurrent duplicates wait for the first execution instead of racing it")
+    void concurrentDuplicatesExecuteOnce() throws Exception {
+        int threads = 8;
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Supplier<Transaction> slow = () -> {
+            executions.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return transaction;
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Transaction>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute("key-1", TransactionType.TRANSFER, dto, slow);
+                }));
+            }
+            start.countDown();
+            for (Future<Transaction> result : results) {
+                assertEquals(42L, result.get(10, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, executions.get());
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(any(IdempotencyKey.class));
+    }
+
+    @Test
+    @DisplayName("Blank or oversized keys are rejected")
+    void invalidKeyIsRejected() {
+        String oversized = "k".repeat(IdempotencyServiceImpl.MAX_KEY_LENGTH + 1);
+
+        assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute(" ", TransactionType.TRANSFER, dto, () -> transaction));
+        assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute(oversized, TransactionType.TRANSFER, dto, () -> transaction));
+    }
+
+    @Test
+    @DisplayName("A key whose transaction was archived is answered as gone, not retried")
+    void archivedTransactionIsGone() {
+        idempotencyService.execute("key-1", TransactionType.TRANSFER, dto, () -> transaction);
+        ArgumentCaptor<IdempotencyKey> saved = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(saved.capture());
+        when(idempotencyKeyRepository.findById(saved.getValue().getKey())).thenReturn(Optional.of(saved.getValue()));
+        when(transactionRepository.findById(42L)).thenReturn(Optional.empty());
+        IdempotencyServiceImpl otherNode = new IdempotencyServiceImpl(idempotencyKeyRepository, transactionRepository,
+                transactionManager, 100, false);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> otherNode.execute("key-1", TransactionType.TRANSFER, dto, () -> transaction));
+        assertEquals(HttpStatus.GONE, e.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Keys are rejected with the ledger engine, which commits outside the key's transaction")
+    void keysAreRejectedWithLedger() {
+        IdempotencyServiceImpl withLedger = new IdempotencyServiceImpl(idempotencyKeyRepository, transactionRepository,
+                transactionManager, 100, true);
+        AtomicInteger executions = new AtomicInteger();
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> withLedger.execute("key-1", TransactionType.TRANSFER, dto, counting(executions)));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertEquals(0, executions.get());
+    }
+}
@@ -1,8 +1,13 @@
 package com.bankapp.localbankapp.unit;
 
 import com.BankApp.localbankapp.security.JwtAuthFilter;
+import com.BankApp.localbankapp.model.UserRole;
 import com.BankApp.localbankapp.security.JwtTokenProvider;
+import com.BankApp.localbankapp.security.TokenVersionCache;
 import com.BankApp.localbankapp.service.UserService;
+import com.BankApp.localbankapp.service.impl.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.*;
@@ -14,6 +19,7 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
@@ -23,6 +29,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import javax.crypto.SecretKey;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -43,6 +50,9 @@ public class JwtTest {
         @Mock
         private UserService userService;
 
+        @Mock
+        private TokenVersionCache tokenVersionCache;
+
         @Mock
         private FilterChain filterChain;
 
@@ -70,8 +80,7 @@ public class JwtTest {
                                           .authorities(Collections.emptyList())
                                           .build();
 
-            when(tokenProvider.validateToken(token)).thenReturn(true);
-            when(tokenProvider.getUsernameFromJWT(token)).thenReturn("testuser");
+            when(tokenProvider.verify(token)).thenReturn(Jwts.claims().subject("testuser").build());
             when(userService.loadUserByUsername("testuser")).thenReturn(userDetails);
 
             jwtAuthFilter.doFilterInternal(request, response, filterChain);
@@ -81,6 +90,47 @@ public class JwtTest {
             verify(filterChain, times(1)).doFilter(request, response);
         }
 
+        @Test
+        void doFilterInternalTokenWithClaimsSkipsUserLookup() throws ServletException, IOException {
+            String token = "claims.jwt.token";
+            request.addHeader("Authorization", "Bearer " + token);
+            when(tokenProvider.verify(token)).thenReturn(claims("testuser", 7L, 2, "ROLE_USER", "ROLE_ADMIN"));
+            when(tokenVersionCache.isCurrent(7L, 2)).thenReturn(true);
+
+            jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            assertNotNull(authentication);
+            assertEquals("testuser", authentication.getName());
+            assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"),
+                    authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+            verifyNoInteractions(userService);
+            verify(filterChain, times(1)).doFilter(request, response);
+        }
+
+        @Test
+        void doFilterInternalRevokedTokenContinuesFilterChain() throws ServletException, IOException {
+            String token = "revoked.jwt.token";
+            request.addHeader("Authorization", "Bearer " + token);
+            when(tokenProvider.verify(token)).thenReturn(claims("testuser", 7L, 1, "ROLE_ADMIN"));
+            when(tokenVersionCache.isCurrent(7L, 1)).thenReturn(false);
+
+            jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+            assertNull(SecurityContextHolder.getContext().getAuthentication());
+            verifyNoInteractions(userService);
+            verify(filterChain, times(1)).doFilter(request, response);
+        }
+
+        private Claims claims(String username, Long userId, int version, String... roles) {
+            return Jwts.claims()
+                       .subject(username)
+                       .add(JwtTokenProvider.USER_ID, userId)
+                       .add(JwtTokenProvider.TOKEN_VERSION, version)
+                       .add(JwtTokenProvider.ROLES, List.of(roles))
+                       .build();
+        }
+
         @Test
         void doFilterInternalNoAuthorizationHeaderContinuesFilterChain() throws ServletException, IOException {
             jwtAuthFilter.doFilterInternal(request, response, filterChain);
@@ -93,7 +143,7 @@ public class JwtTest {
         void doFilterInternalInvalidTokenContinuesFilterChain() throws ServletException, IOException {
             String token = "invalid.jwt.token";
             request.addHeader("Authorization", "Bearer " + token);
-            when(tokenProvider.validateToken(token)).thenReturn(false);
+            when(tokenProvider.verify(token)).thenReturn(null);
 
             jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
@@ -116,8 +166,7 @@ public class JwtTest {
             String token = "valid.jwt.token";
             request.addHeader("Authorization", "Bearer " + token);
 
-            when(tokenProvider.validateToken(token)).thenReturn(true);
-            when(tokenProvider.getUsernameFromJWT(token)).thenReturn("nonexistent");
+            when(tokenProvider.verify(token)).thenReturn(Jwts.claims().subject("nonexistent").build());
             when(userService.loadUserByUsername("nonexistent"))
                             .thenThrow(new RuntimeException("User not found"));
 
@@ -240,6 +289,89 @@ public class JwtTest {
             assertFalse(isValid);
         }
 
+        @Test
+        void verifyValidTokenReturnsClaims() {
+            Authentication authentication = new UsernamePasswordAuthenticationToken("testuser", null);
+            String token = jwtTokenProvider.generateToken(authentication);
+
+            Claims claims = jwtTokenProvider.verify(token);
+
+            assertNotNull(claims);
+            assertEquals("testuser", claims.getSubject());
+        }
+
+        @Test
+        void verifyInvalidTokenReturnsNull() {
+            assertNull(jwtTokenProvider.verify("invalid.token.here"));
+            assertNull(jwtTokenProvider.verify(" "));
+        }
+
+        @Test
+        void verifyRepeatedTokenReturnsCachedClaims() {
+            Authentication authentication = new UsernamePasswordAuthenticationToken("testuser", null);
+            String token = jwtTokenProvider.generateToken(authentication);
+
+            assertSame(jwtTokenProvider.verify(token), jwtTokenProvider.verify(token));
+        }
+
+        @Test
+        void verifyTamperedTokenMissesTheCache() {
+            Authentication authentication = new UsernamePasswordAuthenticationToken("testuser", null);
+            String token = jwtTokenProvider.generateToken(authentication);
+            assertNotNull(jwtTokenProvider.verify(token));
+
+            String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+            assertNull(jwtTokenProvider.verify(tampered));
+        }
+
+        @Test
+        void verifyCachedTokenFailsOnceExpired() throws InterruptedException {
+            // expiry is stored in whole seconds, so a token issued for one second expires within one second
+            ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationMs", 1000);
+            Authentication authentication = new UsernamePasswordAuthenticationToken("testuser", null);
+            String token = jwtTokenProvider.generateToken(authentication);
+            assertNotNull(jwtTokenProvider.verify(token));
+
+            Thread.sleep(1100);
+
+            assertNull(jwtTokenProvider.verify(token));
+        }
+
+        @Test
+        void verifyWithoutCacheParsesEachTime() {
+            ReflectionTestUtils.setField(jwtTokenProvider, "jwtCacheMaxSize", 0);
+            Authentication authentication = new UsernamePasswordAuthenticationToken("testuser", null);
+            String token = jwtTokenProvider.generateToken(authentication);
+
+            Claims first = jwtTokenProvider.verify(token);
+            Claims second = jwtTokenProvider.verify(token);
+
+            assertEquals(first, second);
+            assertNotSame(first, second);
+        }
+
+        @Test
+        void generateTokenForLoggedInUserCarriesAuthoritiesAndVersion() {
+            com.BankApp.localbankapp.model.User user = new com.BankApp.localbankapp.model.User();
+            user.setId(7L);
+            user.setUsername("testuser");
+            user.setPassword("password");
+            user.setRoles(List.of(UserRole.USER, UserRole.ADMIN));
+            user.setTokenVersion(3);
+            UserDetailsImpl details = new UserDetailsImpl(user);
+            Authentication authentication = new UsernamePasswordAuthenticationToken(
+                    details, null, details.getAuthorities());
+
+            Claims claims = jwtTokenProvider.verify(jwtTokenProvider.generateToken(authentication));
+
+            assertNotNull(claims);
+            assertEquals("testuser", claims.getSubject());
+            assertEquals(7L, claims.get(JwtTokenProvider.USER_ID, Long.class));
+            assertEquals(3, claims.get(JwtTokenProvider.TOKEN_VERSION, Integer.class));
+            assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), claims.get(JwtTokenProvider.ROLES, List.class));
+        }
+
         @Test
         void getSigningKeyReturnsValidKey() {
             SecretKey key = ReflectionTestUtils.invokeMethod(jwtTokenProvider, "getSigningKey");
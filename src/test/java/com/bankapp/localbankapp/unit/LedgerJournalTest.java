@@ -0,0 +1,146 @@
+package com.bankapp.localbankapp.unit;
+
+import com.BankApp.localbankapp.ledger.LedgerJournal;
+import com.BankApp.localbankapp.ledger.LedgerRecord;
+import com.BankApp.localbankapp.ledger.RingBuffer;
+import com.BankApp.localbankapp.model.Currency;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@Tag("Ledger")
+class LedgerJournalTest {
+    @TempDir
+    Path dir;
+
+    private static LedgerRecord transferOut(long seq) {
+        return new LedgerRecord(seq, LedgerRecord.Kind.TRANSFER_OUT, 100 + seq, 7L, 8L, 1050L, 980L, 1000L,
+                Currency.EUR, Currency.USD, LocalDate.of(2026, 10, 17), 1_760_000_000_000L);
+    }
+
+    @Test
+    @DisplayName("Committed records are read back intact across segments")
+    void recordsSurviveRoundTrip() throws IOException {
+        LedgerJournal journal = new LedgerJournal(dir, 1, false);
+        journal.append(transferOut(journal.nextSeq()));
+        List<Path> closed = journal.roll();
+        journal.append(transferOut(journal.nextSeq()));
+        journal.close();
+
+        List<LedgerRecord> records = LedgerJournal.read(dir);
+        assertEquals(1, closed.size());
+        assertEquals(2, LedgerJournal.segments(dir).size());
+        assertEquals(List.of(transferOut(1), transferOut(2)), records);
+        assertEquals(-1050L, records.get(0).deltaFor(7L));
+        assertEquals(0L, records.get(0).deltaFor(8L));
+    }
+
+    @Test
+    @DisplayName("A torn record at the end of a segment is dropped")
+    void tornTailIsIgnored() throws IOException {
+        LedgerJournal journal = new LedgerJournal(dir, 1, false);
+        journal.append(transferOut(journal.nextSeq()));
+        journal.append(transferOut(journal.nextSeq()));
+        journal.close();
+        Path segment = LedgerJournal.segments(dir).get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(bytes, bytes.length - 5), StandardOpenOption.TRUNCATE_EXISTING);
+
+        assertEquals(List.of(transferOut(1)), LedgerJournal.read(dir));
+    }
+
+    @Test
+    @DisplayName("Uncommitted records are not on disk")
+    void appendIsStagedUntilCommit() throws IOException {
+        LedgerJournal journal = new LedgerJournal(dir, 1, false);
+        journal.append(transferOut(journal.nextSeq()));
+        assertTrue(LedgerJournal.read(dir).isEmpty());
+
+        journal.commit();
+        assertEquals(1, LedgerJournal.read(dir).size());
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("After a failed write nothing more is committed, even with an empty buffer")
+    void failedCommitIsNeverFollowedBySuccess() throws IOException {
+        Path fullDevice = Path.of("/dev/full");
+        assumeTrue(Files.exists(fullDevice));
+        Files.createSymbolicLink(dir.resolve(String.format("%020d.wal", 1)), fullDevice);
+        LedgerJournal journal = new LedgerJournal(dir, 1, false);
+        journal.append(transferOut(journal.nextSeq()));
+
+        assertThrows(UncheckedIOException.class, journal::commit);
+        assertThrows(UncheckedIOException.class, journal::commit);
+        assertThrows(UncheckedIOException.class, journal::roll);
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("A segment without records is not rolled, so it is never handed out for deletion while in use")
+    void emptySegmentIsNotRolled() throws IOException {
+        LedgerJournal journal = new LedgerJournal(dir, 1, false);
+        LedgerJournal.delete(journal.roll());
+        journal.append(transferOut(journal.nextSeq()));
+        journal.commit();
+        journal.close();
+
+        assertEquals(List.of(transferOut(1)), LedgerJournal.read(dir));
+    }
+
+    @Test
+    @DisplayName("Ring buffer delivers every element from concurrent producers in per-producer order")
+    void ringBufferKeepsProducerOrder() throws InterruptedException {
+        RingBuffer<long[]> ring = new RingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                for (long i = 0; i < perProducer; i++) {
+                    while (!ring.offer(new long[]{producer, i})) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            int drained = ring.drain(element -> {
+                assertEquals(next[(int) element[0]], element[1]);
+                next[(int) element[0]]++;
+            }, 32);
+            if (drained == 0) {
+                ring.await();
+            }
+            received += drained;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, ring.size());
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(100));
+    }
+}
@@ -0,0 +1,107 @@
+package com.bankapp.localbankapp.unit;
+
+import com.BankApp.localbankapp.exception.LoginsUnavailableException;
+import com.BankApp.localbankapp.security.LoginExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Alexander Brazhkin
+ */
+@Tag("LoginExecutor")
+class LoginExecutorTest {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private LoginExecutor executor;
+
+    @AfterEach
+    void shutDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.destroy();
+        }
+    }
+
+    /**
+     * Holds its thread until released, like a BCrypt check that does not notice its caller has given up.
+     */
+    private String blockingLogin() {
+        started.countDown();
+        boolean interrupted = false;
+        while (release.getCount() > 0) {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return "token";
+    }
+
+    @Test
+    void poolTakesTheConfiguredShareOfCpus() {
+        assertEquals(4, LoginExecutor.threadsFor(0.5, 8));
+        assertEquals(1, LoginExecutor.threadsFor(0.5, 1));
+        assertEquals(1, LoginExecutor.threadsFor(0, 8));
+        assertEquals(3, LoginExecutor.threadsFor(0.25, 10));
+    }
+
+    @Test
+    void loginOutcomeReachesTheCaller() {
+        executor = new LoginExecutor(0.01, 1, 5000);
+
+        assertEquals("token", executor.call(() -> "token"));
+        BadCredentialsException thrown = assertThrows(BadCredentialsException.class, () -> executor.call(() -> {
+            throw new BadCredentialsException("Bad credentials");
+        }));
+        assertEquals("Bad credentials", thrown.getMessage());
+    }
+
+    @Test
+    void loginsBeyondTheQueueAreRejected() throws Exception {
+        executor = new LoginExecutor(0.01, 1, 10_000);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.call(this::blockingLogin));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.call(() -> "queued"));
+        for (int i = 0; i < 250 && executor.getQueuedLogins() == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, executor.getQueuedLogins());
+
+        long before = System.nanoTime();
+        assertThrows(LoginsUnavailableException.class, () -> executor.call(() -> "rejected"));
+        assertTrue(System.nanoTime() - before < TimeUnit.SECONDS.toNanos(1), "rejected without waiting");
+
+        release.countDown();
+        assertEquals("token", running.get(10, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void loginWaitingTooLongIsDropped() throws InterruptedException {
+        executor = new LoginExecutor(0.01, 4, 200);
+        CompletableFuture.runAsync(() -> executor.call(this::blockingLogin));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThrows(LoginsUnavailableException.class, () -> executor.call(() -> {
+            ran.set(true);
+            return "late";
+        }));
+        release.countDown();
+        Thread.sleep(100);
+        assertFalse(ran.get());
+    }
+}
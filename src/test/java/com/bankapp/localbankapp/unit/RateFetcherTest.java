@@ -0,0 +1,184 @@
+package com.bankapp.localbankapp.unit;
+
+import com.BankApp.localbankapp.currency.CbrHttpRateSource;
+import com.BankApp.localbankapp.currency.CircuitBreaker;
+import com.BankApp.localbankapp.currency.RateFetcher;
+import com.BankApp.localbankapp.currency.RateSnapshot;
+import com.BankApp.localbankapp.exception.RatesUnavailableException;
+import com.BankApp.localbankapp.model.Currency;
+import com.BankApp.localbankapp.util.CurrencyConverter;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the rate fetcher against a local stub of the CBR endpoint.
+ *
+ * @author Alexander Brazhkin
+ */
+@Tag("Rates")
+class RateFetcherTest {
+    private static byte[] feed;
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateFetcher fetcher;
+
+    @BeforeAll
+    static void loadFeed() throws IOException {
+        try (InputStream in = new ClassPathResource("cbr/XML_daily.xml").getInputStream()) {
+            feed = in.readAllBytes();
+        }
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/scripts/XML_daily.asp", exchange -> {
+            hits.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = status == 200 ? feed : new byte[0];
+            exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+        if (fetcher != null) {
+            fetcher.destroy();
+        }
+    }
+
+    private CurrencyConverter converter(int failureThreshold, long openMs, long timeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setReadTimeout(Duration.ofSeconds(5));
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/scripts/XML_daily.asp";
+        fetcher = new RateFetcher(
+                new CbrHttpRateSource(new RestTemplate(requestFactory), url),
+                new CircuitBreaker(failureThreshold, Duration.ofMillis(openMs)),
+                Duration.ofMillis(timeoutMs),
+                1,
+                meterRegistry
+        );
+        return new CurrencyConverter(fetcher, 86_400_000L);
+    }
+
+    @Test
+    @DisplayName("Concurrent refreshes are collapsed into one upstream request")
+    void concurrentRefreshesShareOneRequest() throws Exception {
+        CurrencyConverter converter = converter(3, 60_000, 5_000);
+        release = new CountDownLatch(1);
+        int callers = 16;
+        CountDownLatch ready = new CountDownLatch(callers);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<RateSnapshot>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    ready.countDown();
+                    return converter.refresh();
+                }));
+            }
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            assertTrue(ready.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            release.countDown();
+
+            RateSnapshot first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<RateSnapshot> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, hits.get());
+        assertEquals(1, meterRegistry.get("rates.fetch").tag("outcome", "success").timer().count());
+        assertNotNull(fetcher.getLastFetchLatency());
+    }
+
+    @Test
+    @DisplayName("Breaker opens after repeated failures and recovers through a half-open probe")
+    void breakerOpensAndProbes() throws Exception {
+        CurrencyConverter converter = converter(2, 300, 5_000);
+        status = 500;
+
+        assertThrows(RatesUnavailableException.class, converter::refresh);
+        assertThrows(RatesUnavailableException.class, converter::refresh);
+        assertEquals(CircuitBreaker.State.OPEN, fetcher.getCircuitState());
+        assertEquals(2, hits.get());
+
+        assertThrows(RatesUnavailableException.class, converter::refresh);
+        assertEquals(2, hits.get(), "open breaker must not call the upstream");
+        assertEquals(1.0, meterRegistry.get("rates.circuit.state").gauge().value());
+
+        Thread.sleep(350);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, fetcher.getCircuitState());
+        status = 200;
+
+        assertNotNull(converter.refresh());
+        assertEquals(3, hits.get());
+        assertEquals(CircuitBreaker.State.CLOSED, fetcher.getCircuitState());
+    }
+
+    @Test
+    @DisplayName("A slow upstream times out without holding the caller")
+    void slowUpstreamTimesOut() {
+        CurrencyConverter converter = converter(3, 60_000, 200);
+        release = new CountDownLatch(1);
+
+        long started = System.nanoTime();
+        assertThrows(RatesUnavailableException.class, converter::refresh);
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 2_000);
+        assertEquals(1, fetcher.getConsecutiveFailures());
+    }
+
+    @Test
+    @DisplayName("Stale conversions fail fast and trigger a single background fetch")
+    void staleConversionTriggersBackgroundFetch() throws Exception {
+        CurrencyConverter converter = converter(3, 60_000, 5_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(RatesUnavailableException.class,
+                    () -> converter.convert(BigDecimal.TEN, Currency.USD, Currency.EUR));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (converter.getSnapshot() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(converter.getSnapshot());
+        assertTrue(hits.get() <= 2);
+    }
+}
@@ -1,7 +1,11 @@
 package com.bankapp.localbankapp.unit;
 
+import com.BankApp.localbankapp.currency.RateSnapshot;
 import com.BankApp.localbankapp.dto.AccountDTO;
+import com.BankApp.localbankapp.dto.AccountResponse;
 import com.BankApp.localbankapp.dto.AuthRequest;
+import com.BankApp.localbankapp.dto.BatchTransferRequest;
+import com.BankApp.localbankapp.dto.BatchTransferResult;
 import com.BankApp.localbankapp.dto.TransactionDTO;
 import com.BankApp.localbankapp.exception.EmailNotFoundException;
 import com.BankApp.localbankapp.model.*;
@@ -9,17 +13,26 @@ import com.BankApp.localbankapp.repository.AccountRepository;
 import com.BankApp.localbankapp.repository.TransactionRepository;
 import com.BankApp.localbankapp.repository.UserRepository;
 import com.BankApp.localbankapp.security.JwtTokenProvider;
+import com.BankApp.localbankapp.security.LoginExecutor;
+import com.BankApp.localbankapp.security.TokenVersionCache;
+import com.BankApp.localbankapp.service.LockingMode;
+import com.BankApp.localbankapp.service.StripedBalanceService;
 import com.BankApp.localbankapp.service.impl.AccountServiceImpl;
 import com.BankApp.localbankapp.service.impl.AuthServiceImpl;
+import com.BankApp.localbankapp.service.impl.TransactionPartitionServiceImpl;
 import com.BankApp.localbankapp.service.impl.TransactionServiceImpl;
+import com.BankApp.localbankapp.service.impl.UserDetailsImpl;
 import com.BankApp.localbankapp.service.impl.UserServiceImpl;
+import com.BankApp.localbankapp.util.BalanceCache;
 import com.BankApp.localbankapp.util.CurrencyConverter;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -28,14 +41,22 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -55,6 +76,9 @@ public class ServiceTest {
         @Mock
         private UserRepository userRepository;
 
+        @Spy
+        private BalanceCache balanceCache = new BalanceCache(100, 60_000, null);
+
         @InjectMocks
         private AccountServiceImpl accountService;
 
@@ -108,23 +132,46 @@ public class ServiceTest {
 
         @Test
         void getAccountSuccess() {
-            when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+            when(accountRepository.findResponseById(1L)).thenReturn(Optional.of(new AccountResponse(
+                    1L, "ACC_0001", BigDecimal.valueOf(1000), Currency.USD, true, null, 1L)));
 
-            BankAccount account = accountService.getAccountById(1L);
+            AccountResponse account = accountService.getAccountById(1L);
             assertNotNull(account);
             assertEquals(1L, account.getId());
             assertEquals("ACC_0001", account.getAccountNumber());
+            verify(accountRepository, never()).findById(any());
         }
 
         @Test
         void getAccountThrowsEmptyResultDataAccessException() {
-            when(accountRepository.findById(500L)).thenReturn(Optional.empty());
+            when(accountRepository.findResponseById(500L)).thenReturn(Optional.empty());
 
             EmptyResultDataAccessException ex =
                     assertThrows(EmptyResultDataAccessException.class, () -> accountService.getAccountById(500L));
 
             assertEquals("Account not found with id: " + 500L, ex.getMessage());
         }
+
+        @Test
+        void getBalanceIsReadOnceUntilEvicted() {
+            when(accountRepository.findTotalBalanceById(1L))
+                    .thenReturn(Optional.of(BigDecimal.valueOf(1000)), Optional.of(BigDecimal.valueOf(700)));
+
+            assertEquals(0, BigDecimal.valueOf(1000).compareTo(accountService.getBalanceById(1L)));
+            assertEquals(0, BigDecimal.valueOf(1000).compareTo(accountService.getBalanceById(1L)));
+            balanceCache.evictAfterCommit(1L);
+            assertEquals(0, BigDecimal.valueOf(700).compareTo(accountService.getBalanceById(1L)));
+            verify(accountRepository, times(2)).findTotalBalanceById(1L);
+            verify(accountRepository, never()).findById(any());
+        }
+
+        @Test
+        void getBalanceThrowsEmptyResultDataAccessException() {
+            when(accountRepository.findTotalBalanceById(500L)).thenReturn(Optional.empty());
+
+            assertThrows(EmptyResultDataAccessException.class, () -> accountService.getBalanceById(500L));
+            assertEquals(0, balanceCache.size());
+        }
     }
 
     @Nested
@@ -144,6 +191,9 @@ public class ServiceTest {
         @Mock
         private JwtTokenProvider tokenProvider;
 
+        @Spy
+        private LoginExecutor loginExecutor = new LoginExecutor(1, 1, 5000);
+
         @InjectMocks
         private AuthServiceImpl authService;
 
@@ -261,9 +311,18 @@ public class ServiceTest {
         @Mock
         private CurrencyConverter currencyConverter;
 
+        @Mock
+        private RateSnapshot rates;
+
         @Mock
         private TransactionRepository transactionRepository;
 
+        @Mock
+        private StripedBalanceService stripedBalanceService;
+
+        @Mock
+        private BalanceCache balanceCache;
+
         @InjectMocks
         private TransactionServiceImpl transactionService;
         private BankAccount fromAccount;
@@ -360,6 +419,7 @@ public class ServiceTest {
             assertEquals(0, BigDecimal.valueOf(700).compareTo(fromAccount.getBalance()));
             assertEquals(0, BigDecimal.valueOf(800).compareTo(toAccount.getBalance()));
             verify(transactionRepository, times(1)).save(any(Transaction.class));
+            verify(balanceCache).evictAfterCommit(List.of(1L, 2L));
         }
 
         @Test
@@ -377,6 +437,7 @@ public class ServiceTest {
             var ex = assertThrows(ResponseStatusException.class, () -> transactionService.transfer(dto));
             assertEquals("404 NOT_FOUND \"Source account not found\"", ex.getMessage());
             verify(transactionRepository, never()).save(any(Transaction.class));
+            verifyNoInteractions(balanceCache);
         }
 
         @Test
@@ -419,8 +480,10 @@ public class ServiceTest {
         void transferUSDToEURSuccess() {
             when(accountRepository.findById(1L)).thenReturn(Optional.of(usdAccount));
             when(accountRepository.findById(2L)).thenReturn(Optional.of(eurAccount));
-            when(currencyConverter.convert(BigDecimal.valueOf(100), Currency.USD.toString(), Currency.EUR.toString()))
+            when(currencyConverter.currentSnapshot()).thenReturn(rates);
+            when(rates.convert(BigDecimal.valueOf(100), Currency.USD, Currency.EUR))
                     .thenReturn(BigDecimal.valueOf(85)); // for example 1 USD = 0.85 EUR
+            when(rates.getRateDate()).thenReturn(LocalDate.of(2026, 10, 17));
             when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
                 Transaction transaction = invocation.getArgument(0);
                 transaction.setId(1L);
@@ -434,7 +497,9 @@ public class ServiceTest {
             assertEquals(0, BigDecimal.valueOf(585).compareTo(eurAccount.getBalance())); // 500 + 85
             assertEquals(Currency.USD, result.getFromCurrency());
             assertEquals(Currency.EUR, result.getToCurrency());
-            verify(currencyConverter, times(1)).convert(any(), any(), any());
+            assertEquals(LocalDate.of(2026, 10, 17), result.getRateDate());
+            verify(currencyConverter, times(1)).currentSnapshot();
+            verify(rates, times(1)).convert(any(), any(Currency.class), any(Currency.class));
         }
 
         @Test
@@ -447,7 +512,8 @@ public class ServiceTest {
 
             when(accountRepository.findById(2L)).thenReturn(Optional.of(eurAccount));
             when(accountRepository.findById(1L)).thenReturn(Optional.of(usdAccount));
-            when(currencyConverter.convert(BigDecimal.valueOf(100), Currency.EUR.toString(), Currency.USD.toString()))
+            when(currencyConverter.currentSnapshot()).thenReturn(rates);
+            when(rates.convert(BigDecimal.valueOf(100), Currency.EUR, Currency.USD))
                     .thenReturn(BigDecimal.valueOf(118)); // for example 1 EUR = 1.18 USD
             when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
                 Transaction transaction = invocation.getArgument(0);
@@ -472,7 +538,8 @@ public class ServiceTest {
 
             when(accountRepository.findById(1L)).thenReturn(Optional.of(usdAccount));
             when(accountRepository.findById(3L)).thenReturn(Optional.of(rubAccount));
-            when(currencyConverter.convert(BigDecimal.valueOf(100), Currency.USD.toString(), Currency.RUB.toString()))
+            when(currencyConverter.currentSnapshot()).thenReturn(rates);
+            when(rates.convert(BigDecimal.valueOf(100), Currency.USD, Currency.RUB))
                     .thenReturn(BigDecimal.valueOf(7500)); // for example 1 USD = 75 RUB
             when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
                 Transaction transaction = invocation.getArgument(0);
@@ -516,7 +583,8 @@ public class ServiceTest {
             transactionDTO.setToCurrency(Currency.USD); // but in USD
 
             when(accountRepository.findById(2L)).thenReturn(Optional.of(eurAccount));
-            when(currencyConverter.convert(BigDecimal.valueOf(100), Currency.USD.toString(), Currency.EUR.toString()))
+            when(currencyConverter.currentSnapshot()).thenReturn(rates);
+            when(rates.convert(BigDecimal.valueOf(100), Currency.USD, Currency.EUR))
                     .thenReturn(BigDecimal.valueOf(85)); // USD to EUR
             when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
                 Transaction transaction = invocation.getArgument(0);
@@ -542,7 +610,8 @@ public class ServiceTest {
             transactionDTO.setFromCurrency(Currency.EUR); // but in EUR
 
             when(accountRepository.findById(1L)).thenReturn(Optional.of(usdAccount));
-            when(currencyConverter.convert(BigDecimal.valueOf(100), Currency.EUR.toString(), Currency.USD.toString()))
+            when(currencyConverter.currentSnapshot()).thenReturn(rates);
+            when(rates.convert(BigDecimal.valueOf(100), Currency.EUR, Currency.USD))
                     .thenReturn(BigDecimal.valueOf(118)); // EUR to USD
             when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
                 Transaction transaction = invocation.getArgument(0);
@@ -569,7 +638,8 @@ public class ServiceTest {
             transactionDTO.setAmount(BigDecimal.valueOf(1000));
 
             when(accountRepository.findById(1L)).thenReturn(Optional.of(usdAccount));
-            when(currencyConverter.convert(BigDecimal.valueOf(1000), Currency.EUR.toString(), Currency.USD.toString()))
+            when(currencyConverter.currentSnapshot()).thenReturn(rates);
+            when(rates.convert(BigDecimal.valueOf(1000), Currency.EUR, Currency.USD))
                     .thenReturn(BigDecimal.valueOf(1180)); // 1000 EUR to USD
 
             assertThrows(ResponseStatusException.class, () -> {
@@ -579,6 +649,198 @@ public class ServiceTest {
             verify(transactionRepository, never()).save(any());
         }
 
+        @Test
+        void transferPessimisticLocksBothAccountsInIdOrder() {
+            ReflectionTestUtils.setField(transactionService, "lockingMode", LockingMode.PESSIMISTIC);
+            when(accountRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            TransactionDTO dto = new TransactionDTO(2L, 1L, BigDecimal.valueOf(200), Currency.USD, Currency.USD);
+            Transaction transaction = transactionService.transfer(dto);
+
+            assertEquals(toAccount, transaction.getFromAccount());
+            assertEquals(0, BigDecimal.valueOf(300).compareTo(toAccount.getBalance()));
+            assertEquals(0, BigDecimal.valueOf(1200).compareTo(fromAccount.getBalance()));
+            verify(accountRepository, never()).findById(any());
+        }
+
+        @Test
+        void transferPessimisticMissingAccountThrowsNotFound() {
+            ReflectionTestUtils.setField(transactionService, "lockingMode", LockingMode.PESSIMISTIC);
+            when(accountRepository.findAllByIdForUpdate(List.of(1L, 999L))).thenReturn(List.of(fromAccount));
+
+            TransactionDTO dto = new TransactionDTO(1L, 999L, BigDecimal.valueOf(100), Currency.USD, Currency.USD);
+            var ex = assertThrows(ResponseStatusException.class, () -> transactionService.transfer(dto));
+
+            assertEquals("404 NOT_FOUND \"Target account not found\"", ex.getMessage());
+            verify(transactionRepository, never()).save(any(Transaction.class));
+        }
+
+        @Test
+        void withdrawPessimisticLocksAccount() {
+            ReflectionTestUtils.setField(transactionService, "lockingMode", LockingMode.PESSIMISTIC);
+            transactionDTO.setToAccountId(null);
+            transactionDTO.setToCurrency(null);
+            transactionDTO.setFromCurrency(Currency.USD);
+            when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(usdAccount));
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            transactionService.withdrawal(transactionDTO);
+
+            assertEquals(0, BigDecimal.valueOf(900).compareTo(usdAccount.getBalance()));
+            verify(accountRepository, never()).findById(any());
+        }
+
+        @Test
+        void transferPessimisticDebitsStripedSourceThroughStripes() {
+            ReflectionTestUtils.setField(transactionService, "lockingMode", LockingMode.PESSIMISTIC);
+            fromAccount.setStripeCount(4);
+            when(accountRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(List.of(toAccount));
+            when(accountRepository.findAllById(List.of(1L))).thenReturn(List.of(fromAccount));
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            TransactionDTO dto = new TransactionDTO(1L, 2L, BigDecimal.valueOf(200), Currency.USD, Currency.USD);
+            transactionService.transfer(dto);
+
+            verify(stripedBalanceService).debit(1L, BigDecimal.valueOf(200));
+            assertEquals(0, BigDecimal.valueOf(1000).compareTo(fromAccount.getBalance()));
+            assertEquals(0, BigDecimal.valueOf(700).compareTo(toAccount.getBalance()));
+        }
+
+        @Test
+        void transferIntoStripedAccountChecksFundsBeforeTouchingStripes() {
+            toAccount.setStripeCount(4);
+            when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
+            when(accountRepository.findById(2L)).thenReturn(Optional.of(toAccount));
+
+            TransactionDTO dto = new TransactionDTO(1L, 2L, BigDecimal.valueOf(5000), Currency.USD, Currency.USD);
+            assertThrows(ResponseStatusException.class, () -> transactionService.transfer(dto));
+
+            verifyNoInteractions(stripedBalanceService);
+        }
+
+        @Test
+        void depositConditionalUpdateCreditsStripedAccount() {
+            ReflectionTestUtils.setField(transactionService, "lockingMode", LockingMode.CONDITIONAL_UPDATE);
+            transactionDTO.setFromAccountId(null);
+            transactionDTO.setFromCurrency(null);
+            transactionDTO.setToCurrency(Currency.USD);
+            AccountRepository.BalanceView account = mock(AccountRepository.BalanceView.class);
+            when(account.getCurrency()).thenReturn(Currency.USD);
+            when(account.getActive()).thenReturn(true);
+            when(account.getStripeCount()).thenReturn(4);
+
+            when(accountRepository.credit(2L, BigDecimal.valueOf(100), Currency.USD)).thenReturn(0);
+            when(accountRepository.findBalanceViewById(2L)).thenReturn(Optional.of(account));
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            transactionService.deposit(transactionDTO);
+
+            verify(stripedBalanceService).credit(2L, BigDecimal.valueOf(100));
+        }
+
+        @Test
+        void transferConditionalUpdateSkipsEntityLoads() {
+            ReflectionTestUtils.setField(transactionService, "lockingMode", LockingMode.CONDITIONAL_UPDATE);
+            when(accountRepository.debit(1L, BigDecimal.valueOf(300), Currency.USD)).thenReturn(1);
+            when(accountRepository.credit(2L, BigDecimal.valueOf(300), Currency.USD)).thenReturn(1);
+            when(accountRepository.getReferenceById(1L)).thenReturn(fromAccount);
+            when(accountRepository.getReferenceById(2L)).thenReturn(toAccount);
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            TransactionDTO dto = new TransactionDTO(1L, 2L, BigDecimal.valueOf(300), Currency.USD, Currency.USD);
+            Transaction transaction = transactionService.transfer(dto);
+
+            assertEquals(fromAccount, transaction.getFromAccount());
+            assertEquals(Currency.USD, transaction.getToCurrency());
+            assertNull(transaction.getRateDate());
+            verify(accountRepository, never()).findById(any());
+            verify(accountRepository, never()).findBalanceViewById(any());
+            verifyNoInteractions(currencyConverter);
+        }
+
+        @Test
+        void transferConditionalUpdateConvertsOnCurrencyMismatch() {
+            ReflectionTestUtils.setField(transactionService, "lockingMode", LockingMode.CONDITIONAL_UPDATE);
+            transactionDTO.setToCurrency(null);
+            AccountRepository.BalanceView target = mock(AccountRepository.BalanceView.class);
+            when(target.getCurrency()).thenReturn(Currency.EUR);
+            when(target.getActive()).thenReturn(true);
+
+            when(accountRepository.debit(1L, BigDecimal.valueOf(100), Currency.USD)).thenReturn(1);
+            when(accountRepository.credit(2L, BigDecimal.valueOf(100), Currency.USD)).thenReturn(0);
+            when(accountRepository.findBalanceViewById(2L)).thenReturn(Optional.of(target));
+            when(currencyConverter.currentSnapshot()).thenReturn(rates);
+            when(rates.convert(BigDecimal.valueOf(100), Currency.USD, Currency.EUR)).thenReturn(BigDecimal.valueOf(85));
+            when(rates.getRateDate()).thenReturn(LocalDate.of(2026, 10, 17));
+            when(accountRepository.credit(2L, BigDecimal.valueOf(85), Currency.EUR)).thenReturn(1);
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            Transaction transaction = transactionService.transfer(transactionDTO);
+
+            assertEquals(Currency.USD, transaction.getFromCurrency());
+            assertEquals(Currency.EUR, transaction.getToCurrency());
+            assertEquals(LocalDate.of(2026, 10, 17), transaction.getRateDate());
+        }
+
+        @Test
+        void withdrawConditionalUpdateInsufficientFunds() {
+            ReflectionTestUtils.setField(transactionService, "lockingMode", LockingMode.CONDITIONAL_UPDATE);
+            transactionDTO.setToAccountId(null);
+            transactionDTO.setToCurrency(null);
+            transactionDTO.setAmount(BigDecimal.valueOf(5000));
+            AccountRepository.BalanceView account = mock(AccountRepository.BalanceView.class);
+            when(account.getCurrency()).thenReturn(Currency.USD);
+            when(account.getActive()).thenReturn(true);
+
+            when(accountRepository.debit(1L, BigDecimal.valueOf(5000), Currency.USD)).thenReturn(0);
+            when(accountRepository.findBalanceViewById(1L)).thenReturn(Optional.of(account));
+
+            var ex = assertThrows(ResponseStatusException.class, () -> transactionService.withdrawal(transactionDTO));
+            assertEquals("400 BAD_REQUEST \"Insufficient funds\"", ex.getMessage());
+            verify(transactionRepository, never()).save(any());
+        }
+
+        @Test
+        void transferBatchPartialSkipsFailedItems() {
+            when(accountRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(fromAccount, toAccount));
+            when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<Transaction> transactions = invocation.getArgument(0);
+                long id = 10;
+                for (Transaction transaction : transactions) {
+                    transaction.setId(id++);
+                }
+                return transactions;
+            });
+
+            BatchTransferResult result = transactionService.transferBatch(new BatchTransferRequest(List.of(
+                    new TransactionDTO(1L, 2L, BigDecimal.valueOf(300), Currency.USD, Currency.USD),
+                    new TransactionDTO(1L, 2L, BigDecimal.valueOf(5000), Currency.USD, Currency.USD),
+                    new TransactionDTO(2L, 1L, BigDecimal.valueOf(100), Currency.USD, Currency.USD)
+            ), BatchTransferRequest.Mode.PARTIAL));
+
+            assertEquals(2, result.getCompleted());
+            assertEquals(1, result.getFailed());
+            assertEquals(TransactionStatus.COMPLETED, result.getItems().get(0).getStatus());
+            assertEquals(10L, result.getItems().get(0).getTransactionId());
+            assertEquals(TransactionStatus.FAILED, result.getItems().get(1).getStatus());
+            assertEquals("Insufficient funds", result.getItems().get(1).getError());
+            assertEquals(11L, result.getItems().get(2).getTransactionId());
+            assertEquals(0, BigDecimal.valueOf(800).compareTo(fromAccount.getBalance())); // 1000 - 300 + 100
+            assertEquals(0, BigDecimal.valueOf(700).compareTo(toAccount.getBalance())); // 500 + 300 - 100
+        }
+
+        @Test
+        void transferBatchRejectsOversizedBatch() {
+            ReflectionTestUtils.setField(transactionService, "maxBatchSize", 1);
+            BatchTransferRequest request = new BatchTransferRequest(List.of(transactionDTO, transactionDTO),
+                    BatchTransferRequest.Mode.ALL_OR_NOTHING);
+
+            var ex = assertThrows(ResponseStatusException.class, () -> transactionService.transferBatch(request));
+            assertEquals("400 BAD_REQUEST \"Batch size exceeds 1\"", ex.getMessage());
+            verifyNoInteractions(accountRepository, transactionRepository);
+        }
+
         @Test
         void transferNegativeAmountThrowsException() {
             transactionDTO.setAmount(BigDecimal.valueOf(-100));
@@ -598,6 +860,9 @@ public class ServiceTest {
         @Mock
         private UserRepository userRepository;
 
+        @Mock
+        private TokenVersionCache tokenVersionCache;
+
         @InjectMocks
         private UserServiceImpl userService;
         private User testUser;
@@ -667,6 +932,8 @@ public class ServiceTest {
             assertEquals("newUser@test.com", updated.getEmail());
             verify(userRepository, times(1)).findById(1L);
             verify(userRepository, times(1)).save(any(User.class));
+            verify(userRepository).bumpTokenVersion(1L);
+            verify(tokenVersionCache).evictAfterCommit(1L);
         }
 
         @Test
@@ -686,10 +953,74 @@ public class ServiceTest {
             assertLinesMatch(user.getAuthorities().stream().map(String::valueOf).toList(), List.of("ROLE_USER"));
         }
 
+        @Test
+        void updatePasswordStoresTheRehash() {
+            when(userRepository.findByUsername(testUser.getUsername())).thenReturn(Optional.of(testUser));
+
+            UserDetails user = userService.updatePassword(new UserDetailsImpl(testUser), "{bcrypt}rehashed");
+
+            assertEquals("{bcrypt}rehashed", testUser.getPassword());
+            assertEquals("{bcrypt}rehashed", user.getPassword());
+            verifyNoInteractions(tokenVersionCache);
+        }
+
         @Test
         void loadUserByUsernameThrowsAccountNotFoundException() {
             when(userRepository.findByUsername(testUser.getUsername())).thenReturn(Optional.empty());
             assertThrows(UsernameNotFoundException.class, () -> userService.loadUserByUsername(testUser.getUsername()));
         }
     }
+
+    @Nested
+    @DisplayName("Transaction partition service testing")
+    @Tag("TransactionPartitionService")
+    class TransactionPartitionServiceTest {
+        @Mock
+        private JdbcTemplate jdbcTemplate;
+
+        @Mock
+        private PlatformTransactionManager transactionManager;
+
+        private TransactionPartitionServiceImpl partitionService;
+
+        @BeforeEach
+        void setUp() {
+            partitionService = new TransactionPartitionServiceImpl(jdbcTemplate, transactionManager, true, 3, 24, "archive");
+        }
+
+        @Test
+        void createsUpcomingPartitionsAndArchivesExpiredOnes() {
+            when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Integer.class))).thenReturn(1);
+            when(jdbcTemplate.queryForObject(contains("create_transactions_partition"), eq(Boolean.class), any()))
+                    .thenReturn(false);
+            when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class))).thenReturn(List.of(
+                    "transactions_2024_09", "transactions_2024_10", "transactions_2026_10", "transactions_manual"));
+
+            partitionService.maintain(YearMonth.of(2026, 10));
+
+            for (LocalDate month : List.of(LocalDate.of(2026, 10, 1), LocalDate.of(2026, 11, 1),
+                    LocalDate.of(2026, 12, 1), LocalDate.of(2027, 1, 1))) {
+                verify(jdbcTemplate).queryForObject(contains("create_transactions_partition"), eq(Boolean.class), eq(month));
+            }
+            verify(jdbcTemplate).execute("alter table transactions detach partition transactions_2024_09");
+            verify(jdbcTemplate).execute("alter table transactions_2024_09 set schema archive");
+            verify(jdbcTemplate, times(2)).execute(anyString());
+        }
+
+        @Test
+        void unpartitionedTableIsLeftAlone() {
+            when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Integer.class))).thenReturn(0);
+
+            partitionService.maintain(YearMonth.of(2026, 10));
+
+            verify(jdbcTemplate, never()).queryForObject(contains("create_transactions_partition"), eq(Boolean.class), any());
+            verify(jdbcTemplate, never()).execute(anyString());
+        }
+
+        @Test
+        void invalidArchiveSchemaIsRejected() {
+            assertThrows(IllegalArgumentException.class, () ->
+                    new TransactionPartitionServiceImpl(jdbcTemplate, transactionManager, true, 3, 24, "archive; drop"));
+        }
+    }
 }